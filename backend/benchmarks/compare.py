@@ -0,0 +1,45 @@
+#!/usr/bin/env python3
+"""对比两次 JMH JSON 结果：python3 compare.py results/<旧>.json results/<新>.json [阈值百分比，默认 5]
+
+按基准名和参数配对，输出两次得分和变化百分比；得分越低越好（AverageTime 模式），
+变慢超过阈值的行标记为 REGRESSION，存在回退时退出码为 1。
+"""
+import json
+import sys
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        results = {}
+        for run in json.load(f):
+            params = ",".join(f"{k}={v}" for k, v in sorted((run.get("params") or {}).items()))
+            metric = run["primaryMetric"]
+            results[(run["benchmark"], params)] = (metric["score"], metric["scoreError"], metric["scoreUnit"])
+        return results
+
+
+def main():
+    if len(sys.argv) < 3:
+        print(__doc__)
+        return 2
+    old, new = load(sys.argv[1]), load(sys.argv[2])
+    threshold = float(sys.argv[3]) if len(sys.argv) > 3 else 5.0
+    regressions = 0
+    for key in sorted(old.keys() & new.keys()):
+        (before, _, unit), (after, error, _) = old[key], new[key]
+        change = (after - before) / before * 100 if before else 0.0
+        flag = ""
+        if change > threshold:
+            flag = "REGRESSION"
+            regressions += 1
+        elif change < -threshold:
+            flag = "faster"
+        name = key[0].rsplit(".", 2)[-2] + "." + key[0].rsplit(".", 1)[-1]
+        print(f"{name:55} {key[1]:14} {before:12.3f} {after:12.3f} ±{error:<9.3f} {unit:8} {change:+7.1f}% {flag}")
+    for key in sorted(old.keys() ^ new.keys()):
+        print(f"{key[0]} {key[1]}: 只出现在其中一次结果中")
+    return 1 if regressions else 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
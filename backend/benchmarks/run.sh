@@ -0,0 +1,16 @@
+#!/usr/bin/env bash
+# 构建并运行 JMH 基准，结果以 JSON 保存在 results/<提交>.json，便于不同提交之间对比。
+# 额外参数原样传给 JMH，例如只跑 CSV 相关基准：./run.sh CsvMapping
+# 查询基准默认启动 MongoDB 容器（需要 Docker），已有实例时：JAVA_OPTS=-Dbench.mongo.uri=mongodb://localhost:27017 ./run.sh
+set -euo pipefail
+cd "$(dirname "$0")"
+
+../mvnw -q -f pom.xml -DskipTests package
+
+commit=$(git rev-parse --short HEAD 2>/dev/null || echo local)
+if ! git diff --quiet HEAD -- .. 2>/dev/null; then
+  commit="${commit}-dirty"
+fi
+mkdir -p results
+java ${JAVA_OPTS:-} -jar target/benchmarks.jar -rf json -rff "results/${commit}.json" "$@"
+echo "结果已保存到 benchmarks/results/${commit}.json，可用 compare.py 与其他提交的结果对比"
@@ -0,0 +1,169 @@
+package com.example.test1.benchmark;
+
+import com.example.test1.model.StockData;
+import com.example.test1.repository.StockDataRepository;
+import com.example.test1.service.StockDataReadConverter;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 仓库查询热路径：按名称 + 时间范围（一天 / 一个月）经 StockDataRepository 映射为实体，
+ * 同一范围直接读原始文档（SeriesQueryService 的做法），以及 scroll 接口的键集分页首页。
+ * 指定 -Dbench.mongo.uri=mongodb://host:27017 时使用已有实例（写入并在结束时删除 stockdb_bench 库），
+ * 否则启动一次性的 MongoDB 容器。集合与索引和线上一致：(nameKey, timestamp) 与 (timestamp, _id)。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MongoQueryBenchmark {
+
+	private static final String DATABASE = "stockdb_bench";
+	private static final String COLLECTION = "stock_data";
+	private static final ZoneId ZONE = ZoneId.systemDefault();
+	private static final int DAYS = 60;
+	private static final int ROWS = SampleData.SYMBOLS.size() * SampleData.MINUTES_PER_DAY * DAYS;
+
+	private MongoDBContainer container;
+	private MongoClient client;
+	private MongoTemplate mongoTemplate;
+	private StockDataRepository repository;
+
+	private final List<String> keys = List.of(StockData.nameKeyOf("Apple"));
+	private LocalDateTime dayFrom;
+	private LocalDateTime dayTo;
+	private LocalDateTime monthFrom;
+	private LocalDateTime monthTo;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		String uri = System.getProperty("bench.mongo.uri");
+		if (uri == null || uri.isBlank()) {
+			container = new MongoDBContainer("mongo:7.0");
+			container.start();
+			uri = container.getReplicaSetUrl();
+		}
+		client = MongoClients.create(uri);
+		SimpleMongoClientDatabaseFactory factory = new SimpleMongoClientDatabaseFactory(client, DATABASE);
+
+		// 与 MongoConfig 相同的读取转换
+		MongoCustomConversions conversions = new MongoCustomConversions(List.of(new StockDataReadConverter()));
+		MongoMappingContext context = new MongoMappingContext();
+		context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+		context.afterPropertiesSet();
+		MappingMongoConverter converter = new MappingMongoConverter(new DefaultDbRefResolver(factory), context);
+		converter.setCustomConversions(conversions);
+		converter.afterPropertiesSet();
+		mongoTemplate = new MongoTemplate(factory, converter);
+		repository = new MongoRepositoryFactory(mongoTemplate).getRepository(StockDataRepository.class);
+
+		MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+		collection.drop();
+		List<Document> docs = SampleData.documents(ROWS);
+		for (int from = 0; from < docs.size(); from += 10_000) {
+			collection.insertMany(docs.subList(from, Math.min(docs.size(), from + 10_000)));
+		}
+		collection.createIndex(Indexes.ascending("nameKey", "timestamp"), new IndexOptions().name("nameKey_timestamp"));
+		collection.createIndex(Indexes.ascending("timestamp", "_id"), new IndexOptions().name("timestamp_id"));
+
+		dayFrom = SampleData.FIRST_DAY.plusDays(DAYS / 2).atStartOfDay();
+		dayTo = dayFrom.plusDays(1);
+		monthFrom = SampleData.FIRST_DAY.plusDays(DAYS / 4).atStartOfDay();
+		monthTo = monthFrom.plusDays(30);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (client != null) {
+			client.getDatabase(DATABASE).drop();
+			client.close();
+		}
+		if (container != null) {
+			container.stop();
+		}
+	}
+
+	@Benchmark
+	public List<StockData> repositoryDay() {
+		return repository.findByNameKeyInAndTimestampBetween(keys, dayFrom, dayTo);
+	}
+
+	@Benchmark
+	public List<StockData> repositoryMonth() {
+		return repository.findByNameKeyInAndTimestampBetween(keys, monthFrom, monthTo);
+	}
+
+	// 不经实体映射，直接消费原始文档
+	@Benchmark
+	public void rawDocumentsMonth(Blackhole bh) {
+		for (Document doc : mongoTemplate.getCollection(COLLECTION)
+				.find(Filters.and(
+						Filters.in("nameKey", keys),
+						Filters.gte("timestamp", Date.from(monthFrom.atZone(ZONE).toInstant())),
+						Filters.lte("timestamp", Date.from(monthTo.atZone(ZONE).toInstant()))))
+				.sort(Sorts.ascending("timestamp"))
+				.batchSize(1000)) {
+			bh.consume(doc);
+		}
+	}
+
+	// scroll 接口的首页：按 (timestamp, _id) 倒序取 size + 1 条
+	@Benchmark
+	public List<StockData> keysetFirstPage() {
+		Query query = new Query()
+				.with(Sort.by(Sort.Direction.DESC, "timestamp").and(Sort.by(Sort.Direction.DESC, "_id")))
+				.limit(101);
+		return mongoTemplate.find(query, StockData.class);
+	}
+
+	// 键集分页的中间页：定位条件走 (timestamp, _id) 索引，不需要 skip
+	@Benchmark
+	public List<StockData> keysetMiddlePage() {
+		Date after = Date.from(monthTo.atZone(ZONE).toInstant());
+		Query query = new Query(new Criteria().orOperator(
+				Criteria.where("timestamp").lt(after),
+				Criteria.where("timestamp").is(after).and("_id").lt(new ObjectId("ffffffffffffffffffffffff"))))
+				.with(Sort.by(Sort.Direction.DESC, "timestamp").and(Sort.by(Sort.Direction.DESC, "_id")))
+				.limit(101);
+		return mongoTemplate.find(query, StockData.class);
+	}
+}
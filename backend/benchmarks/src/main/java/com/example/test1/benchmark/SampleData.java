@@ -0,0 +1,115 @@
+package com.example.test1.benchmark;
+
+import com.example.test1.model.StockData;
+import org.bson.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * 基准共用的行情样本：按交易日 09:30 起每分钟一行、多只股票轮流生成，固定随机种子保证每次运行数据相同。
+ */
+public final class SampleData {
+
+	public static final List<String> SYMBOLS = List.of("Apple", "Tesla", "Microsoft", "Goldman Sachs", "Walmart");
+	public static final String CSV_HEADER = "timestamp,name,last,high,low,chg_,chg_%,vol_,time";
+	public static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 2);
+	public static final int MINUTES_PER_DAY = 390;
+
+	private static final ZoneId ZONE = ZoneId.systemDefault();
+	private static final DateTimeFormatter CSV_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+	private static final DateTimeFormatter CLOCK = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+	private SampleData() {
+	}
+
+	// 第 i 行的时间：所有股票的同一分钟相邻
+	public static LocalDateTime timestamp(int i) {
+		int minute = i / SYMBOLS.size();
+		return FIRST_DAY.plusDays(minute / MINUTES_PER_DAY)
+				.atTime(LocalTime.of(9, 30).plusMinutes(minute % MINUTES_PER_DAY));
+	}
+
+	public static String symbol(int i) {
+		return SYMBOLS.get(i % SYMBOLS.size());
+	}
+
+	// 与行情 CSV 一致的原始列；混入 "2025-1-2 9:31:00" 格式、带单位的成交量和缺失值，覆盖解析的慢分支
+	public static List<String[]> csvRows(int count) {
+		SplittableRandom random = new SplittableRandom(42);
+		List<String[]> rows = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			LocalDateTime ts = timestamp(i);
+			double last = 100 + random.nextDouble() * 50;
+			double chg = random.nextDouble() * 4 - 2;
+			String timestamp = i % 7 == 0
+					? ts.getYear() + "-" + ts.getMonthValue() + "-" + ts.getDayOfMonth() + " " + ts.toLocalTime().format(DateTimeFormatter.ofPattern("H:mm:ss"))
+					: ts.format(CSV_TIMESTAMP);
+			String vol = i % 11 == 0 ? "-" : String.format(Locale.ROOT, "%.2fM", random.nextDouble() * 40);
+			rows.add(new String[]{
+					timestamp,
+					symbol(i),
+					String.format(Locale.ROOT, "%.2f", last),
+					String.format(Locale.ROOT, "%.2f", last + 1),
+					String.format(Locale.ROOT, "%.2f", last - 1),
+					String.format(Locale.ROOT, "%+.2f", chg),
+					String.format(Locale.ROOT, "%+.2f%%", chg / last * 100),
+					vol,
+					ts.toLocalTime().format(CLOCK)});
+		}
+		return rows;
+	}
+
+	public static String csvLine(String[] row) {
+		return String.join(",", row);
+	}
+
+	public static List<StockData> stockData(int count) {
+		SplittableRandom random = new SplittableRandom(42);
+		List<StockData> rows = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			double last = 100 + random.nextDouble() * 50;
+			StockData sd = new StockData();
+			sd.setId(Integer.toHexString(i));
+			sd.setTimestamp(timestamp(i));
+			sd.setName(symbol(i));
+			sd.setNameKey(StockData.nameKeyOf(sd.getName()));
+			sd.setLast(last);
+			sd.setHigh(last + 1);
+			sd.setLow(last - 1);
+			sd.setChg(random.nextDouble() * 4 - 2);
+			sd.setChgPercent(sd.getChg() / last * 100);
+			sd.setVol(random.nextLong(1_000_000, 40_000_000));
+			sd.setTime(timestamp(i).toLocalTime().format(CLOCK));
+			rows.add(sd);
+		}
+		return rows;
+	}
+
+	// stock_data 中当前存储形态的文档
+	public static List<Document> documents(int count) {
+		List<Document> docs = new ArrayList<>(count);
+		for (StockData sd : stockData(count)) {
+			docs.add(new Document("timestamp", Date.from(sd.getTimestamp().atZone(ZONE).toInstant()))
+					.append("name", sd.getName())
+					.append("nameKey", sd.getNameKey())
+					.append("last", sd.getLast())
+					.append("high", sd.getHigh())
+					.append("low", sd.getLow())
+					.append("chg", sd.getChg())
+					.append("chgPercent", sd.getChgPercent())
+					.append("vol", sd.getVol())
+					.append("time", sd.getTime())
+					.append("schemaVersion", StockData.SCHEMA_VERSION));
+		}
+		return docs;
+	}
+}
@@ -0,0 +1,105 @@
+package com.example.test1.service;
+
+import com.example.test1.benchmark.SampleData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV 导入的行转换热路径：commons-csv 路径的 CsvRowMapper.map、时间列清洗与解析，
+ * 以及标准布局下 StockCsvFastReader 整个文件的解析和转成文档。
+ * 行级基准按每行耗时报告（OperationsPerInvocation = 行数）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvMappingBenchmark {
+
+	private static final int ROWS = 10_000;
+	private static final int FILE_ROWS = 100_000;
+
+	private CsvRowMapper mapper;
+	private String[][] rows;
+	private String[] timestamps;
+	private Path csv;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		mapper = new CsvRowMapper(Arrays.asList(SampleData.CSV_HEADER.split(",")));
+		List<String[]> sample = SampleData.csvRows(ROWS);
+		rows = sample.toArray(new String[0][]);
+		timestamps = sample.stream().map(row -> row[0]).toArray(String[]::new);
+
+		csv = Files.createTempFile("bench-stocks", ".csv");
+		StringBuilder content = new StringBuilder(FILE_ROWS * 80).append(SampleData.CSV_HEADER).append('\n');
+		for (String[] row : SampleData.csvRows(FILE_ROWS)) {
+			content.append(SampleData.csvLine(row)).append('\n');
+		}
+		Files.writeString(csv, content, StandardCharsets.UTF_8);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(csv);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void mapRow(Blackhole bh) {
+		for (String[] row : rows) {
+			bh.consume(mapper.map(row));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void cleanAndParseTimestamp(Blackhole bh) {
+		for (String timestamp : timestamps) {
+			bh.consume(CsvRowMapper.parseTimestamp(CsvRowMapper.cleanTimestamp(timestamp)));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FILE_ROWS)
+	public void fastReaderToDocuments(Blackhole bh) throws IOException {
+		try (StockCsvFastReader reader = StockCsvFastReader.open(csv)) {
+			StockCsvFastReader.Handler handler = new StockCsvFastReader.Handler() {
+				@Override
+				public void onBatch(StockTickBatch batch) {
+					bh.consume(batch.toDocuments());
+				}
+
+				@Override
+				public void onMalformedLine(String line) {
+					bh.consume(line);
+				}
+			};
+			// 单线程顺序解析全部分片，与导入流水线中单个工作线程的负载相同
+			for (StockCsvFastReader.Chunk chunk : reader.split(reader.dataStart(), 1)) {
+				reader.parse(chunk, 1000, handler);
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.example.test1.service;
+
+import com.example.test1.benchmark.SampleData;
+import com.example.test1.model.StockData;
+import com.example.test1.model.StockRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询接口的输出热路径：advanced-search 的行映射（SeriesQueryService.toRow）与整批 JSON 序列化，
+ * 对比直接序列化实体。输出写到丢弃字节的流，只计序列化本身。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+	@Param({"10000", "100000"})
+	public int rows;
+
+	// 与 Spring Boot 默认配置一致：注册 JavaTimeModule，日期输出为 ISO 字符串
+	private final ObjectMapper objectMapper = JsonMapper.builder()
+			.findAndAddModules()
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.build();
+
+	private List<StockData> entities;
+	private List<StockRow> compact;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		entities = SampleData.stockData(rows);
+		compact = entities.stream().map(SeriesQueryService::toRow).toList();
+	}
+
+	@Benchmark
+	public void mapRows(Blackhole bh) {
+		for (StockData sd : entities) {
+			bh.consume(SeriesQueryService.toRow(sd));
+		}
+	}
+
+	// advanced-search 的默认输出：toRow 后整体序列化为 JSON 数组
+	@Benchmark
+	public void advancedSearchJson() throws IOException {
+		List<StockRow> mapped = entities.stream().map(SeriesQueryService::toRow).toList();
+		objectMapper.writeValue(OutputStream.nullOutputStream(), mapped);
+	}
+
+	@Benchmark
+	public void entityJson() throws IOException {
+		objectMapper.writeValue(OutputStream.nullOutputStream(), entities);
+	}
+
+	@Benchmark
+	public void stockRowJson() throws IOException {
+		objectMapper.writeValue(OutputStream.nullOutputStream(), compact);
+	}
+}
@@ -0,0 +1,18 @@
+#!/usr/bin/env bash
+# 构建并运行历史行情回放压测，报告以 JSON 保存在 results/<提交>.json，可用 -Dreplay.baseline 与之前的报告对比。
+# 参数通过 JAVA_OPTS 传入，例如 10 倍速、32 并发、最多跑 5 分钟：
+#   JAVA_OPTS="-Dreplay.speed=10 -Dreplay.concurrency=32 -Dreplay.duration=PT5M" ./run.sh
+# 对比基准（p99 变慢或读吞吐下降超过 10% 时退出码为 1）：
+#   JAVA_OPTS="-Dreplay.baseline=results/abc1234.json" ./run.sh
+# 默认使用本机 mongod，没有时使用嵌入式 mongod（首次需要下载，之后离线）；已有实例时加 -Dreplay.mongo.uri=...
+set -euo pipefail
+cd "$(dirname "$0")"
+
+../mvnw -q -f pom.xml -DskipTests package
+
+commit=$(git rev-parse --short HEAD 2>/dev/null || echo local)
+if ! git diff --quiet HEAD -- .. 2>/dev/null; then
+  commit="${commit}-dirty"
+fi
+mkdir -p results
+java ${JAVA_OPTS:-} -Dreplay.output="results/${commit}.json" -jar target/replay.jar "$@"
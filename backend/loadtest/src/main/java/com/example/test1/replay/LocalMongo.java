@@ -0,0 +1,145 @@
+package com.example.test1.replay;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 回放使用的本地 MongoDB，全程离线、不依赖 Docker，按以下顺序选择：
+ * 1. -Dreplay.mongo.uri 指定的已有实例（不负责启动和关闭）；
+ * 2. 本机的 mongod（-Dreplay.mongod 指定路径或 PATH 中查找），使用临时数据目录和空闲端口启动；
+ * 3. flapdoodle 嵌入式 mongod，首次运行下载安装包并缓存在 ~/.embedmongo，之后不再联网。
+ * 三种都是真实的 mongod，写入和查询的延迟与生产形态一致，避免内存替身掩盖索引和写入的问题。
+ */
+final class LocalMongo implements AutoCloseable {
+
+	private static final String DATABASE = "stockdb";
+	private static final long STARTUP_TIMEOUT_MILLIS = 30_000;
+
+	private final String uri;
+	private final String description;
+	private final AutoCloseable stop;
+
+	private LocalMongo(String uri, String description, AutoCloseable stop) {
+		this.uri = uri;
+		this.description = description;
+		this.stop = stop;
+	}
+
+	static LocalMongo start() throws Exception {
+		String external = System.getProperty("replay.mongo.uri");
+		if (external != null && !external.isBlank()) {
+			return new LocalMongo(external, "外部实例 " + external, () -> { });
+		}
+		Path binary = findMongod();
+		if (binary != null) {
+			return startProcess(binary);
+		}
+		TransitionWalker.ReachedState<RunningMongodProcess> running = Mongod.instance().start(Version.Main.V7_0);
+		ServerAddress address = running.current().getServerAddress();
+		String uri = "mongodb://" + address.getHost() + ":" + address.getPort() + "/" + DATABASE;
+		return new LocalMongo(uri, "嵌入式 mongod 7.0 @ " + address.getPort(),
+				running::close);
+	}
+
+	String uri() {
+		return uri;
+	}
+
+	String description() {
+		return description;
+	}
+
+	@Override
+	public void close() throws Exception {
+		stop.close();
+	}
+
+	private static Path findMongod() {
+		String configured = System.getProperty("replay.mongod");
+		if (configured != null && !configured.isBlank()) {
+			return Path.of(configured);
+		}
+		String path = System.getenv("PATH");
+		if (path == null) {
+			return null;
+		}
+		for (String dir : path.split(File.pathSeparator)) {
+			Path candidate = Path.of(dir, "mongod");
+			if (Files.isExecutable(candidate)) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	private static LocalMongo startProcess(Path binary) throws Exception {
+		Path dbPath = Files.createTempDirectory("replay-mongo");
+		int port = freePort();
+		Process process = new ProcessBuilder(binary.toString(),
+				"--dbpath", dbPath.toString(),
+				"--port", String.valueOf(port),
+				"--bind_ip", "127.0.0.1",
+				"--quiet")
+				.redirectErrorStream(true)
+				.redirectOutput(dbPath.resolve("mongod.log").toFile())
+				.start();
+		AutoCloseable stop = () -> {
+			process.destroy();
+			if (!process.waitFor(10, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+			deleteRecursively(dbPath);
+		};
+		try {
+			awaitPort(process, port);
+		} catch (Exception e) {
+			stop.close();
+			throw e;
+		}
+		return new LocalMongo("mongodb://127.0.0.1:" + port + "/" + DATABASE, "本机 mongod " + binary + " @ " + port, stop);
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static void awaitPort(Process process, int port) throws IOException, InterruptedException {
+		long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+		while (System.currentTimeMillis() < deadline) {
+			if (!process.isAlive()) {
+				throw new IOException("mongod 启动失败，退出码 " + process.exitValue());
+			}
+			try (Socket socket = new Socket()) {
+				socket.connect(new InetSocketAddress("127.0.0.1", port), 500);
+				return;
+			} catch (IOException e) {
+				Thread.sleep(100);
+			}
+		}
+		throw new IOException("mongod 在 " + STARTUP_TIMEOUT_MILLIS + "ms 内未开始监听端口 " + port);
+	}
+
+	private static void deleteRecursively(Path dir) throws IOException {
+		try (Stream<Path> paths = Files.walk(dir)) {
+			for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+}
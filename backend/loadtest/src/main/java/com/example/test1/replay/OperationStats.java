@@ -0,0 +1,80 @@
+package com.example.test1.replay;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一类操作的计数和延迟分布。延迟以微秒记录在 HdrHistogram 中（3 位有效数字），
+ * Recorder 允许多个线程无锁写入，汇总时取出全部样本。
+ */
+final class OperationStats {
+
+	private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+	private final Recorder recorder = new Recorder(MAX_MICROS, 3);
+	private final Histogram total = new Histogram(MAX_MICROS, 3);
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder items = new LongAdder();
+
+	void record(long startNanos) {
+		long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+		recorder.recordValue(Math.min(Math.max(micros, 1), MAX_MICROS));
+	}
+
+	void error() {
+		errors.increment();
+	}
+
+	// 请求中携带的行数等业务计数，例如一次写入的行情条数
+	void items(long count) {
+		items.add(count);
+	}
+
+	long errors() {
+		return errors.sum();
+	}
+
+	long items() {
+		return items.sum();
+	}
+
+	synchronized Histogram histogram() {
+		total.add(recorder.getIntervalHistogram());
+		return total.copy();
+	}
+
+	// 报告中的一项：请求数、错误数、吞吐（次/秒）和毫秒分位数
+	Map<String, Object> summary(double elapsedSeconds) {
+		Histogram histogram = histogram();
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("requests", histogram.getTotalCount());
+		summary.put("errors", errors());
+		summary.put("throughput", round(histogram.getTotalCount() / Math.max(elapsedSeconds, 1e-9)));
+		if (items() > 0) {
+			summary.put("items", items());
+			summary.put("itemsPerSecond", round(items() / Math.max(elapsedSeconds, 1e-9)));
+		}
+		Map<String, Object> latency = new LinkedHashMap<>();
+		latency.put("mean", millis(histogram.getMean()));
+		latency.put("p50", millis(histogram.getValueAtPercentile(50)));
+		latency.put("p90", millis(histogram.getValueAtPercentile(90)));
+		latency.put("p99", millis(histogram.getValueAtPercentile(99)));
+		latency.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+		latency.put("max", millis(histogram.getMaxValue()));
+		summary.put("latencyMs", latency);
+		return summary;
+	}
+
+	private static double millis(double micros) {
+		return Math.round(micros) / 1000.0;
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 100) / 100.0;
+	}
+}
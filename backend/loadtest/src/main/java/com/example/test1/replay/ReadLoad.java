@@ -0,0 +1,157 @@
+package com.example.test1.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 看板读流量：每个工作线程循环按权重抽取一种请求，收到完整响应后（加 thinkMillis）再发下一个，
+ * 即固定并发的闭环负载，吞吐随服务端延迟变化。
+ * advanced-search 查询随机一只股票在行情时钟前一天内的数据；scroll 从第一页起沿 nextCursor 翻 scrollPages 页；
+ * snapshot 请求全市场快照。与浏览器一样发送 Accept-Encoding: gzip，响应体完整读取后才计入延迟。
+ */
+final class ReadLoad implements Runnable {
+
+	private static final ZoneId ZONE = ZoneId.systemDefault();
+	private static final Duration SEARCH_WINDOW = Duration.ofDays(1);
+
+	private final ReplayConfig config;
+	private final HttpClient client;
+	private final URI base;
+	private final List<String> symbols;
+	private final AtomicLong marketClock;
+	private final AtomicBoolean stopped;
+	private final Map<String, OperationStats> stats;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final String[] operations;
+	private final int[] cumulativeWeights;
+
+	ReadLoad(ReplayConfig config, HttpClient client, URI base, List<String> symbols, AtomicLong marketClock,
+			 AtomicBoolean stopped, Map<String, OperationStats> stats) {
+		this.config = config;
+		this.client = client;
+		this.base = base;
+		this.symbols = symbols;
+		this.marketClock = marketClock;
+		this.stopped = stopped;
+		this.stats = stats;
+		this.operations = config.mix().keySet().toArray(String[]::new);
+		this.cumulativeWeights = new int[operations.length];
+		int sum = 0;
+		for (int k = 0; k < operations.length; k++) {
+			sum += config.mix().get(operations[k]);
+			cumulativeWeights[k] = sum;
+		}
+	}
+
+	@Override
+	public void run() {
+		if (operations.length == 0) {
+			return;
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		while (!stopped.get()) {
+			int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+			int k = 0;
+			while (cumulativeWeights[k] <= pick) {
+				k++;
+			}
+			try {
+				switch (operations[k]) {
+					case ReplayConfig.ADVANCED_SEARCH -> advancedSearch(random);
+					case ReplayConfig.SCROLL -> scroll();
+					case ReplayConfig.SNAPSHOT -> get(ReplayConfig.SNAPSHOT, "/api/market/snapshot");
+					default -> throw new IllegalStateException(operations[k]);
+				}
+				if (config.thinkMillis() > 0) {
+					Thread.sleep(config.thinkMillis());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void advancedSearch(ThreadLocalRandom random) throws InterruptedException {
+		String name = symbols.get(random.nextInt(symbols.size()));
+		LocalDateTime end = LocalDateTime.ofInstant(Instant.ofEpochMilli(marketClock.get()), ZONE);
+		LocalDateTime start = end.minus(SEARCH_WINDOW);
+		get(ReplayConfig.ADVANCED_SEARCH, "/api/stock-data/advanced-search?name=" + encode(name)
+				+ "&startTime=" + encode(start.toString()) + "&endTime=" + encode(end.toString()));
+	}
+
+	private void scroll() throws InterruptedException {
+		String cursor = null;
+		for (int page = 0; page < config.scrollPages() && !stopped.get(); page++) {
+			String path = "/api/stock-data/scroll?size=" + config.scrollSize()
+					+ (cursor == null ? "" : "&cursor=" + encode(cursor));
+			byte[] body = get(ReplayConfig.SCROLL, path);
+			if (body == null) {
+				return;
+			}
+			try {
+				JsonNode next = objectMapper.readTree(body).get("nextCursor");
+				if (next == null || next.isNull()) {
+					return;
+				}
+				cursor = next.asText();
+			} catch (IOException e) {
+				stats.get(ReplayConfig.SCROLL).error();
+				return;
+			}
+		}
+	}
+
+	// 成功时返回解压后的响应体，失败时计入错误并返回 null
+	private byte[] get(String operation, String path) throws InterruptedException {
+		OperationStats operationStats = stats.get(operation);
+		HttpRequest request = HttpRequest.newBuilder(base.resolve(path))
+				.header("Accept", "application/json")
+				.header("Accept-Encoding", "gzip")
+				.GET()
+				.build();
+		long begin = System.nanoTime();
+		try {
+			HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+			if (response.statusCode() >= 400) {
+				operationStats.error();
+				return null;
+			}
+			operationStats.record(begin);
+			boolean gzip = response.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent();
+			if (!gzip) {
+				return response.body();
+			}
+			try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+				return in.readAllBytes();
+			}
+		} catch (IOException e) {
+			operationStats.error();
+			return null;
+		}
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+}
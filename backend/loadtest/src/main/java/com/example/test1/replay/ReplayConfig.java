@@ -0,0 +1,97 @@
+package com.example.test1.replay;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 回放参数，全部来自 -Dreplay.* 系统属性，见 run.sh 和 README 的说明。
+ */
+record ReplayConfig(
+		Path csv,
+		int limit,
+		double speed,
+		Duration maxGap,
+		long batchIntervalMillis,
+		int maxBatch,
+		int concurrency,
+		Map<String, Integer> mix,
+		long thinkMillis,
+		int scrollSize,
+		int scrollPages,
+		Duration duration,
+		String baseUrl,
+		Path output,
+		Path baseline,
+		double tolerance) {
+
+	static final String ADVANCED_SEARCH = "advanced-search";
+	static final String SCROLL = "scroll";
+	static final String SNAPSHOT = "snapshot";
+	private static final Set<String> OPERATIONS = Set.of(ADVANCED_SEARCH, SCROLL, SNAPSHOT);
+
+	// 与 DataInitializer 查找 stocks.csv 的位置对应（从 backend/loadtest 目录运行）
+	private static final String[] CSV_CANDIDATES = {"../stocks.csv", "../src/main/resources/stocks.csv", "../data/stocks.csv", "stocks.csv"};
+
+	static ReplayConfig fromSystemProperties() {
+		ReplayConfig config = new ReplayConfig(
+				locateCsv(),
+				Integer.getInteger("replay.limit", 0),
+				Double.parseDouble(System.getProperty("replay.speed", "60")),
+				Duration.parse(System.getProperty("replay.max-gap", "PT5M")),
+				Long.getLong("replay.batch-interval-ms", 100),
+				Integer.getInteger("replay.max-batch", 5000),
+				Integer.getInteger("replay.concurrency", 16),
+				mix(System.getProperty("replay.mix", ADVANCED_SEARCH + ":6," + SCROLL + ":3," + SNAPSHOT + ":1")),
+				Long.getLong("replay.think-ms", 0),
+				Integer.getInteger("replay.scroll-size", 50),
+				Integer.getInteger("replay.scroll-pages", 3),
+				Duration.parse(System.getProperty("replay.duration", "PT0S")),
+				System.getProperty("replay.base-url"),
+				Path.of(System.getProperty("replay.output",
+						"results/replay-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json")),
+				System.getProperty("replay.baseline") == null ? null : Path.of(System.getProperty("replay.baseline")),
+				Double.parseDouble(System.getProperty("replay.tolerance", "0.10")));
+		if (config.speed <= 0 || config.batchIntervalMillis < 1 || config.maxBatch < 1
+				|| config.concurrency < 0 || config.scrollSize < 1 || config.scrollPages < 1) {
+			throw new IllegalArgumentException("回放参数无效: " + config);
+		}
+		return config;
+	}
+
+	private static Path locateCsv() {
+		String configured = System.getProperty("replay.csv");
+		if (configured != null) {
+			return Path.of(configured);
+		}
+		for (String candidate : CSV_CANDIDATES) {
+			Path path = Path.of(candidate);
+			if (Files.isRegularFile(path)) {
+				return path;
+			}
+		}
+		throw new IllegalArgumentException("未找到 stocks.csv，请用 -Dreplay.csv=<路径> 指定");
+	}
+
+	// "advanced-search:6,scroll:3,snapshot:1" → 按权重抽取的读请求组合，权重为 0 的操作不执行
+	static Map<String, Integer> mix(String spec) {
+		Map<String, Integer> mix = new LinkedHashMap<>();
+		for (String part : spec.split(",")) {
+			String[] kv = part.trim().split(":");
+			String operation = kv[0].trim();
+			if (!OPERATIONS.contains(operation)) {
+				throw new IllegalArgumentException("未知的读请求类型: " + operation + "，可选 " + OPERATIONS);
+			}
+			int weight = kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1;
+			if (weight > 0) {
+				mix.put(operation, weight);
+			}
+		}
+		return mix;
+	}
+}
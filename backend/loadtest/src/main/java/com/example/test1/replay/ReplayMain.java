@@ -0,0 +1,233 @@
+package com.example.test1.replay;
+
+import com.example.test1.Test1Application;
+import com.example.test1.service.TickTape;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 历史行情回放 + 读负载压测入口。
+ * 解析 stocks.csv 为按时间排序的磁带，在本地 mongod（见 {@link LocalMongo}）上以进程内方式启动后端（随机端口、不自动导入），
+ * 然后同时运行写入回放（{@link Replayer}）和固定并发的读请求（{@link ReadLoad}），
+ * 磁带放完或到达 replay.duration 后停止，把吞吐和延迟分位数写入 JSON 报告。
+ * 指定 replay.baseline 时与之前的报告对比，p99 变慢或读吞吐下降超过 replay.tolerance 时以退出码 1 结束。
+ */
+public final class ReplayMain {
+
+	private static final String INGEST = "ingest";
+
+	private ReplayMain() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		ReplayConfig config = ReplayConfig.fromSystemProperties();
+		System.out.println("读取行情: " + config.csv().toAbsolutePath());
+		TickTape tape = TickTape.read(config.csv(), config.limit());
+		if (tape.size() == 0) {
+			System.out.println("没有可回放的行情，跳过的行数: " + tape.skipped());
+			System.exit(2);
+		}
+		List<String> symbols = tape.symbols();
+		System.out.println("磁带: " + tape.size() + " 条，" + symbols.size() + " 只股票，跳过 " + tape.skipped() + " 行，"
+				+ Instant.ofEpochMilli(tape.timestamp(0)) + " ~ " + Instant.ofEpochMilli(tape.timestamp(tape.size() - 1)));
+
+		LocalMongo mongo = null;
+		ConfigurableApplicationContext app = null;
+		int exitCode;
+		try {
+			URI base;
+			if (config.baseUrl() != null) {
+				base = URI.create(config.baseUrl());
+				System.out.println("使用已运行的后端: " + base);
+			} else {
+				mongo = LocalMongo.start();
+				System.out.println("MongoDB: " + mongo.description());
+				app = new SpringApplicationBuilder(Test1Application.class)
+						.properties(
+								"spring.data.mongodb.uri=" + mongo.uri(),
+								"server.port=0",
+								"stock.import.on-startup=false",
+								"spring.main.banner-mode=off")
+						.run();
+				int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+				base = URI.create("http://127.0.0.1:" + port);
+				System.out.println("后端已启动: " + base);
+			}
+			Map<String, Object> report = run(config, tape, symbols, base);
+			write(config.output(), report);
+			System.out.println("报告已保存到 " + config.output().toAbsolutePath());
+			exitCode = config.baseline() == null ? 0 : compare(report, config.baseline(), config.tolerance());
+		} finally {
+			if (app != null) {
+				app.close();
+			}
+			if (mongo != null) {
+				mongo.close();
+			}
+		}
+		System.exit(exitCode);
+	}
+
+	private static Map<String, Object> run(ReplayConfig config, TickTape tape, List<String> symbols, URI base) throws Exception {
+		HttpClient client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(5))
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.build();
+		awaitReady(client, base);
+		AtomicLong marketClock = new AtomicLong(tape.timestamp(0));
+		AtomicBoolean stopped = new AtomicBoolean();
+		OperationStats ingest = new OperationStats();
+		Map<String, OperationStats> reads = new LinkedHashMap<>();
+		for (String operation : config.mix().keySet()) {
+			reads.put(operation, new OperationStats());
+		}
+
+		Replayer replayer = new Replayer(tape, config, client, base, marketClock, stopped, ingest);
+		ReadLoad readLoad = new ReadLoad(config, client, base, symbols, marketClock, stopped, reads);
+		long start = System.nanoTime();
+		Thread replayThread = Thread.ofPlatform().name("replay").start(replayer);
+		ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+		for (int k = 0; k < config.concurrency(); k++) {
+			readers.submit(readLoad);
+		}
+
+		long deadline = config.duration().isZero() ? Long.MAX_VALUE : start + config.duration().toNanos();
+		while (replayThread.isAlive() && System.nanoTime() < deadline) {
+			replayThread.join(1000);
+			System.out.printf("已回放 %d/%d 条，行情时间 %s%n", replayer.position(), tape.size(),
+					Instant.ofEpochMilli(marketClock.get()));
+		}
+		stopped.set(true);
+		replayThread.join();
+		readers.shutdown();
+		readers.awaitTermination(1, TimeUnit.MINUTES);
+		double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("startedAt", Instant.now().minusNanos((long) (elapsedSeconds * 1e9)).toString());
+		report.put("elapsedSeconds", Math.round(elapsedSeconds * 100) / 100.0);
+		report.put("config", Map.of(
+				"csv", config.csv().toString(),
+				"ticks", tape.size(),
+				"symbols", symbols.size(),
+				"speed", config.speed(),
+				"maxGap", config.maxGap().toString(),
+				"batchIntervalMs", config.batchIntervalMillis(),
+				"concurrency", config.concurrency(),
+				"mix", config.mix(),
+				"thinkMs", config.thinkMillis()));
+		Map<String, Object> ingestSummary = ingest.summary(elapsedSeconds);
+		ingestSummary.put("replayed", replayer.position());
+		ingestSummary.put("rejected", replayer.rejected());
+		ingestSummary.put("maxScheduleLagMs", replayer.maxLagMillis());
+		report.put(INGEST, ingestSummary);
+		Map<String, Object> readSummary = new LinkedHashMap<>();
+		reads.forEach((operation, stats) -> readSummary.put(operation, stats.summary(elapsedSeconds)));
+		report.put("reads", readSummary);
+		// 服务端视角：写入缓冲区与历史响应缓存的统计
+		Map<String, Object> server = new LinkedHashMap<>();
+		server.put("ingestBuffer", fetch(client, base.resolve("/api/stock-data/batch/stats")));
+		server.put("httpCache", fetch(client, base.resolve("/api/stock-data/http-cache/stats")));
+		report.put("server", server);
+		return report;
+	}
+
+	// 索引创建和预热在后台进行，readiness 为 UP 后再开始施压
+	private static void awaitReady(HttpClient client, URI base) throws InterruptedException {
+		URI readiness = base.resolve("/actuator/health/readiness");
+		long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(5);
+		while (System.nanoTime() < deadline) {
+			try {
+				HttpResponse<Void> response = client.send(HttpRequest.newBuilder(readiness).GET().build(),
+						HttpResponse.BodyHandlers.discarding());
+				if (response.statusCode() == 200) {
+					return;
+				}
+			} catch (IOException e) {
+				// 端口尚未打开
+			}
+			Thread.sleep(500);
+		}
+		System.out.println("等待 readiness 超时，直接开始回放");
+	}
+
+	private static JsonNode fetch(HttpClient client, URI uri) {
+		try {
+			HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+					HttpResponse.BodyHandlers.ofByteArray());
+			return response.statusCode() == 200 ? new ObjectMapper().readTree(response.body()) : null;
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	private static void write(Path output, Map<String, Object> report) throws Exception {
+		if (output.getParent() != null) {
+			Files.createDirectories(output.getParent());
+		}
+		new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report);
+	}
+
+	// 与基准报告逐项对比：所有操作比较 p99，读请求另比较吞吐（写入吞吐由回放速度决定，不参与比较）
+	private static int compare(Map<String, Object> report, Path baselinePath, double tolerance) throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		JsonNode current = mapper.valueToTree(report);
+		JsonNode baseline = mapper.readTree(baselinePath.toFile());
+		List<String> regressions = new ArrayList<>();
+		Map<String, JsonNode> operations = new LinkedHashMap<>();
+		operations.put(INGEST, current.get(INGEST));
+		current.get("reads").fields().forEachRemaining(e -> operations.put(e.getKey(), e.getValue()));
+
+		System.out.printf("%-16s %12s %12s %8s %12s %12s %8s%n", "操作", "基准p99", "当前p99", "变化", "基准吞吐", "当前吞吐", "变化");
+		for (Map.Entry<String, JsonNode> e : operations.entrySet()) {
+			JsonNode before = INGEST.equals(e.getKey()) ? baseline.get(INGEST) : baseline.path("reads").get(e.getKey());
+			if (before == null) {
+				continue;
+			}
+			double p99Before = before.path("latencyMs").path("p99").asDouble();
+			double p99Now = e.getValue().path("latencyMs").path("p99").asDouble();
+			double tpBefore = before.path("throughput").asDouble();
+			double tpNow = e.getValue().path("throughput").asDouble();
+			double p99Change = p99Before > 0 ? p99Now / p99Before - 1 : 0;
+			double tpChange = tpBefore > 0 ? tpNow / tpBefore - 1 : 0;
+			System.out.printf("%-16s %12.3f %12.3f %+7.1f%% %12.2f %12.2f %+7.1f%%%n",
+					e.getKey(), p99Before, p99Now, p99Change * 100, tpBefore, tpNow, tpChange * 100);
+			if (p99Change > tolerance) {
+				regressions.add(e.getKey() + " p99");
+			}
+			if (!INGEST.equals(e.getKey()) && tpChange < -tolerance) {
+				regressions.add(e.getKey() + " 吞吐");
+			}
+		}
+		if (regressions.isEmpty()) {
+			System.out.println("与基准相比没有超过 " + Math.round(tolerance * 100) + "% 的退化");
+			return 0;
+		}
+		System.out.println("退化: " + regressions);
+		return 1;
+	}
+}
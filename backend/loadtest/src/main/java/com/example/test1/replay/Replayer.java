@@ -0,0 +1,183 @@
+package com.example.test1.replay;
+
+import com.example.test1.service.StockTickBatch;
+import com.example.test1.service.TickTape;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 speed 倍速把磁带上的行情经 POST /api/stock-data/batch（NDJSON）写入，与实时行情走同一条写入路径。
+ * 行情时间相邻两条的间隔超过 maxGap（收盘、周末）时压缩为 maxGap，避免长时间空转。
+ * 每 batchIntervalMillis 发送一次已到期的行情；返回 429 时按 Retry-After 等待后重发同一批。
+ * 写入后把行情时钟推进到这一批最后一条的时间，读请求以此决定查询窗口。
+ */
+final class Replayer implements Runnable {
+
+	private static final ZoneId ZONE = ZoneId.systemDefault();
+	private static final JsonFactory JSON = new JsonFactory();
+
+	private final TickTape tape;
+	private final ReplayConfig config;
+	private final HttpClient client;
+	private final URI endpoint;
+	private final AtomicLong marketClock;
+	private final AtomicBoolean stopped;
+	private final OperationStats stats;
+	private final LongAdder rejected = new LongAdder();
+	private volatile long maxLagMillis;
+	private volatile int position;
+
+	Replayer(TickTape tape, ReplayConfig config, HttpClient client, URI base, AtomicLong marketClock,
+			 AtomicBoolean stopped, OperationStats stats) {
+		this.tape = tape;
+		this.config = config;
+		this.client = client;
+		this.endpoint = base.resolve("/api/stock-data/batch");
+		this.marketClock = marketClock;
+		this.stopped = stopped;
+		this.stats = stats;
+	}
+
+	@Override
+	public void run() {
+		long maxGap = config.maxGap().toMillis();
+		long start = System.nanoTime();
+		// 压缩长间隔后的行情经过时间（毫秒），除以 speed 即为应发送的墙钟时间
+		double virtual = 0;
+		int i = 0;
+		while (i < tape.size() && !stopped.get()) {
+			long loopStart = System.nanoTime();
+			double elapsed = (loopStart - start) / 1e6;
+			int from = i;
+			double firstDue = Double.NaN;
+			while (i < tape.size() && i - from < config.maxBatch()) {
+				double next = i == 0 ? 0 : virtual + Math.min(tape.timestamp(i) - tape.timestamp(i - 1), maxGap);
+				if (next / config.speed() > elapsed) {
+					break;
+				}
+				if (i == from) {
+					firstDue = next / config.speed();
+				}
+				virtual = next;
+				i++;
+			}
+			if (i > from) {
+				maxLagMillis = Math.max(maxLagMillis, (long) (elapsed - firstDue));
+				send(from, i);
+				marketClock.set(tape.timestamp(i - 1));
+				position = i;
+			}
+			// 单批达到上限说明落后于计划，立即继续发送
+			if (i - from < config.maxBatch()) {
+				sleepMillis(config.batchIntervalMillis() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loopStart));
+			}
+		}
+	}
+
+	long rejected() {
+		return rejected.sum();
+	}
+
+	long maxLagMillis() {
+		return maxLagMillis;
+	}
+
+	int position() {
+		return position;
+	}
+
+	private void send(int from, int to) {
+		HttpRequest request = HttpRequest.newBuilder(endpoint)
+				.header("Content-Type", "application/x-ndjson")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(ndjson(from, to)))
+				.build();
+		while (!stopped.get()) {
+			long begin = System.nanoTime();
+			HttpResponse<Void> response;
+			try {
+				response = client.send(request, HttpResponse.BodyHandlers.discarding());
+			} catch (IOException e) {
+				stats.error();
+				return;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			stats.record(begin);
+			if (response.statusCode() == 202) {
+				stats.items(to - from);
+				return;
+			}
+			if (response.statusCode() != 429) {
+				stats.error();
+				return;
+			}
+			// 写入缓冲区已满：整批被拒，按服务端建议的间隔重试
+			rejected.increment();
+			long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+			sleepMillis(TimeUnit.SECONDS.toMillis(Math.max(1, retryAfter)));
+		}
+	}
+
+	private byte[] ndjson(int from, int to) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream((to - from) * 160);
+		try (JsonGenerator json = JSON.createGenerator(out)) {
+			json.setRootValueSeparator(null);
+			for (int i = from; i < to; i++) {
+				json.writeStartObject();
+				json.writeStringField("timestamp",
+						LocalDateTime.ofInstant(Instant.ofEpochMilli(tape.timestamp(i)), ZONE).toString());
+				json.writeStringField("name", tape.name(i));
+				number(json, "last", tape.last(i));
+				number(json, "high", tape.high(i));
+				number(json, "low", tape.low(i));
+				number(json, "chg", tape.chg(i));
+				number(json, "chgPercent", tape.chgPercent(i));
+				if (tape.vol(i) != StockTickBatch.VOL_MISSING) {
+					json.writeNumberField("vol", tape.vol(i));
+				}
+				if (tape.time(i) != null) {
+					json.writeStringField("time", tape.time(i));
+				}
+				json.writeEndObject();
+				json.flush();
+				out.write('\n');
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	private static void number(JsonGenerator json, String field, double value) throws IOException {
+		if (!Double.isNaN(value)) {
+			json.writeNumberField(field, value);
+		}
+	}
+
+	private static void sleepMillis(long millis) {
+		if (millis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package com.example.test1.service;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.bson.Document;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * 回放用的行情磁带：按导入流水线相同的规则解析 stocks.csv，结果以列式数组保存并按时间戳稳定排序。
+ * 标准布局走 StockCsvFastReader，其余布局及快速路径拒绝的行用 commons-csv + CsvRowMapper 兜底，
+ * 因此回放写入的每一条与 CsvImportService 导入的文档字段一致。缺少 name 或 timestamp 的行被丢弃（写入接口会拒绝）。
+ */
+public final class TickTape {
+
+	private static final int BATCH_SIZE = 10_000;
+
+	private long[] timestamps = new long[BATCH_SIZE];
+	private String[] names = new String[BATCH_SIZE];
+	private double[] last = new double[BATCH_SIZE];
+	private double[] high = new double[BATCH_SIZE];
+	private double[] low = new double[BATCH_SIZE];
+	private double[] chg = new double[BATCH_SIZE];
+	private double[] chgPercent = new double[BATCH_SIZE];
+	private long[] vol = new long[BATCH_SIZE];
+	private String[] time = new String[BATCH_SIZE];
+	private int size;
+	private int skipped;
+	private final int limit;
+
+	private TickTape(int limit) {
+		this.limit = limit;
+	}
+
+	// limit <= 0 表示读取全部行；否则只保留文件中的前 limit 条有效行
+	public static TickTape read(Path csv, int limit) throws IOException {
+		TickTape tape = new TickTape(limit <= 0 ? Integer.MAX_VALUE : limit);
+		try (StockCsvFastReader reader = StockCsvFastReader.open(csv)) {
+			if (reader.supportsLayout()) {
+				List<String> headerNames = reader.headerNames();
+				for (StockCsvFastReader.Chunk chunk : reader.split(reader.dataStart(), 1)) {
+					reader.parse(chunk, BATCH_SIZE, new StockCsvFastReader.Handler() {
+						@Override
+						public void onBatch(StockTickBatch batch) {
+							tape.append(batch);
+						}
+
+						@Override
+						public void onMalformedLine(String line) {
+							tape.appendMalformed(headerNames, line);
+						}
+					});
+				}
+			} else {
+				tape.appendAll(csv);
+			}
+		}
+		tape.sort();
+		return tape;
+	}
+
+	public int size() { return size; }
+	public int skipped() { return skipped; }
+
+	public long timestamp(int i) { return timestamps[i]; }
+	public String name(int i) { return names[i]; }
+	public double last(int i) { return last[i]; }
+	public double high(int i) { return high[i]; }
+	public double low(int i) { return low[i]; }
+	public double chg(int i) { return chg[i]; }
+	public double chgPercent(int i) { return chgPercent[i]; }
+	public long vol(int i) { return vol[i]; }
+	public String time(int i) { return time[i]; }
+
+	// 磁带中出现过的股票名称，按首次出现的顺序
+	public List<String> symbols() {
+		Set<String> symbols = new LinkedHashSet<>();
+		for (int i = 0; i < size; i++) {
+			symbols.add(names[i]);
+		}
+		return List.copyOf(symbols);
+	}
+
+	private void append(StockTickBatch batch) {
+		for (int i = 0; i < batch.size() && size < limit; i++) {
+			if (batch.name(i) == null || batch.name(i).isBlank()) {
+				skipped++;
+				continue;
+			}
+			add(batch.timestamp(i), batch.name(i), batch.last(i), batch.high(i), batch.low(i),
+					batch.chg(i), batch.chgPercent(i), batch.vol(i), batch.time(i));
+		}
+	}
+
+	private void appendMalformed(List<String> headerNames, String line) {
+		CSVFormat format = CSVFormat.DEFAULT
+				.withHeader(headerNames.toArray(String[]::new))
+				.withIgnoreSurroundingSpaces()
+				.withTrim();
+		CsvRowMapper mapper = new CsvRowMapper(headerNames);
+		try (CSVParser parser = CSVParser.parse(line, format)) {
+			for (CSVRecord record : parser) {
+				append(mapper.map(values(record)));
+			}
+		} catch (Exception e) {
+			skipped++;
+		}
+	}
+
+	private void appendAll(Path csv) throws IOException {
+		try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+			 CSVParser parser = CSVParser.parse(reader, CSVFormat.DEFAULT
+					 .withFirstRecordAsHeader()
+					 .withIgnoreSurroundingSpaces()
+					 .withTrim())) {
+			CsvRowMapper mapper = new CsvRowMapper(parser.getHeaderNames());
+			for (CSVRecord record : parser) {
+				if (size >= limit) {
+					break;
+				}
+				try {
+					append(mapper.map(values(record)));
+				} catch (RuntimeException e) {
+					skipped++;
+				}
+			}
+		}
+	}
+
+	private void append(Document doc) {
+		if (size >= limit) {
+			return;
+		}
+		if (!(doc.get("timestamp") instanceof Date timestamp) || !(doc.get("name") instanceof String name) || name.isBlank()) {
+			skipped++;
+			return;
+		}
+		Object volume = doc.get("vol");
+		Object t = doc.get("time");
+		add(timestamp.getTime(), name, number(doc.get("last")), number(doc.get("high")), number(doc.get("low")),
+				number(doc.get("chg")), number(doc.get("chgPercent")),
+				volume instanceof Number n ? n.longValue() : StockTickBatch.VOL_MISSING,
+				t == null ? null : t.toString());
+	}
+
+	private static double number(Object value) {
+		return value instanceof Number n ? n.doubleValue() : Double.NaN;
+	}
+
+	private void add(long timestamp, String name, double last, double high, double low,
+					 double chg, double chgPercent, long vol, String time) {
+		if (size == timestamps.length) {
+			grow();
+		}
+		int i = size++;
+		this.timestamps[i] = timestamp;
+		this.names[i] = name;
+		this.last[i] = last;
+		this.high[i] = high;
+		this.low[i] = low;
+		this.chg[i] = chg;
+		this.chgPercent[i] = chgPercent;
+		this.vol[i] = vol;
+		this.time[i] = time;
+	}
+
+	private void grow() {
+		int capacity = timestamps.length * 2;
+		timestamps = Arrays.copyOf(timestamps, capacity);
+		names = Arrays.copyOf(names, capacity);
+		last = Arrays.copyOf(last, capacity);
+		high = Arrays.copyOf(high, capacity);
+		low = Arrays.copyOf(low, capacity);
+		chg = Arrays.copyOf(chg, capacity);
+		chgPercent = Arrays.copyOf(chgPercent, capacity);
+		vol = Arrays.copyOf(vol, capacity);
+		time = Arrays.copyOf(time, capacity);
+	}
+
+	// 按时间戳稳定排序，同一时刻的行保持文件中的顺序
+	private void sort() {
+		int[] order = IntStream.range(0, size).boxed()
+				.sorted((a, b) -> Long.compare(timestamps[a], timestamps[b]))
+				.mapToInt(Integer::intValue)
+				.toArray();
+		long[] sortedTimestamps = new long[size];
+		String[] sortedNames = new String[size];
+		double[] sortedLast = new double[size];
+		double[] sortedHigh = new double[size];
+		double[] sortedLow = new double[size];
+		double[] sortedChg = new double[size];
+		double[] sortedChgPercent = new double[size];
+		long[] sortedVol = new long[size];
+		String[] sortedTime = new String[size];
+		for (int k = 0; k < size; k++) {
+			int i = order[k];
+			sortedTimestamps[k] = timestamps[i];
+			sortedNames[k] = names[i];
+			sortedLast[k] = last[i];
+			sortedHigh[k] = high[i];
+			sortedLow[k] = low[i];
+			sortedChg[k] = chg[i];
+			sortedChgPercent[k] = chgPercent[i];
+			sortedVol[k] = vol[i];
+			sortedTime[k] = time[i];
+		}
+		timestamps = sortedTimestamps;
+		names = sortedNames;
+		last = sortedLast;
+		high = sortedHigh;
+		low = sortedLow;
+		chg = sortedChg;
+		chgPercent = sortedChgPercent;
+		vol = sortedVol;
+		time = sortedTime;
+	}
+
+	private static String[] values(CSVRecord record) {
+		String[] values = new String[record.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = record.get(i);
+		}
+		return values;
+	}
+}
@@ -2,14 +2,19 @@ package com.example.test1;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.boot.autoconfigure.domain.EntityScan;
-import org.springframework.context.annotation.ComponentScan;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@ComponentScan(basePackages = "com.example.test1")
-@EntityScan("com.example.test1.model")
+@EnableScheduling
 public class Test1Application {
+
+    // 记录的启动步骤数上限；Bean 创建、上下文刷新和后台启动任务（StartupTasks）的耗时见 /actuator/startup
+    private static final int STARTUP_STEPS = 4096;
+
     public static void main(String[] args) {
-        SpringApplication.run(Test1Application.class, args);
+        SpringApplication application = new SpringApplication(Test1Application.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        application.run(args);
     }
-}
\ No newline at end of file
+}
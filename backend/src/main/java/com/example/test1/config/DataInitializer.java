@@ -1,23 +1,69 @@
 package com.example.test1.config;
 
-import com.example.test1.service.CsvImportService;
+import com.example.test1.service.ImportJobService;
+import com.example.test1.service.ImportProgress;
+import com.example.test1.service.MarketSnapshotService;
+import com.example.test1.service.StartupTasks;
+import com.example.test1.service.SymbolResolver;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
+import java.util.List;
 
+// 迁移检查、导入和预热都作为启动任务在后台执行（排在 IndexInitializer 的建索引之后），不阻塞端口打开；
+// data 任务等导入线程上的迁移、重建和 CSV 导入全部执行完才结束，预热和 readiness 都在其后
 @Component
+@Order(1)
 public class DataInitializer implements CommandLineRunner {
 
-    private final CsvImportService csvImportService;
+    private final ImportJobService importJobService;
+    private final StartupTasks startupTasks;
+    private final SymbolResolver symbolResolver;
+    private final MarketSnapshotService marketSnapshotService;
+    private final boolean importOnStartup;
 
     // 使用构造函数注入
-    public DataInitializer(CsvImportService csvImportService) {
-        this.csvImportService = csvImportService;
+    public DataInitializer(ImportJobService importJobService, StartupTasks startupTasks,
+                           SymbolResolver symbolResolver, MarketSnapshotService marketSnapshotService,
+                           @Value("${stock.import.on-startup:true}") boolean importOnStartup) {
+        this.importJobService = importJobService;
+        this.startupTasks = startupTasks;
+        this.symbolResolver = symbolResolver;
+        this.marketSnapshotService = marketSnapshotService;
+        this.importOnStartup = importOnStartup;
     }
 
     @Override
-    public void run(String... args) throws Exception {
+    public void run(String... args) {
+        startupTasks.submit("data", () -> {
+            submitImports();
+            importJobService.awaitIdle();
+            ImportProgress progress = importJobService.getProgress();
+            if (progress.getStatus() == ImportProgress.Status.FAILED) {
+                throw new IllegalStateException("导入 " + progress.getFile() + " 失败: " + progress.getMessage());
+            }
+        });
+        // 预热股票名称表和最新报价，首个搜索和市场总览请求不再承担加载开销
+        startupTasks.submit("warmup", () -> {
+            symbolResolver.refresh();
+            marketSnapshotService.snapshot(List.of());
+        });
+    }
+
+    private void submitImports() {
+        importJobService.migrateSchemaIfNeeded();
+        importJobService.rebuildRollupsIfMissing();
+        importJobService.rebuildPriceBucketsIfMissing();
+
+        // 回放压测等场景由调用方自己写入数据
+        if (!importOnStartup) {
+            System.out.println("已关闭启动时导入 stocks.csv (stock.import.on-startup=false)");
+            return;
+        }
+
         // 尝试多个可能的文件位置
         String[] possiblePaths = {
             "stocks.csv",                                   // 项目根目录
@@ -31,16 +77,12 @@ public class DataInitializer implements CommandLineRunner {
         for (String filePath : possiblePaths) {
             File file = new File(filePath);
             if (file.exists() && !file.isDirectory()) {
-                try {
-                    System.out.println("找到CSV文件: " + file.getAbsolutePath());
-                    System.out.println("文件大小: " + file.length() + " bytes");
-                    csvImportService.importCsvData(filePath);
-                    fileFound = true;
-                    break; // 导入成功则退出循环
-                } catch (Exception e) {
-                    System.out.println("从 " + filePath + " 导入失败: " + e.getMessage());
-                    e.printStackTrace(); // 打印完整堆栈跟踪
-                }
+                System.out.println("找到CSV文件: " + file.getAbsolutePath());
+                System.out.println("文件大小: " + file.length() + " bytes");
+                // 交给后台增量导入，进度见 /api/import/status
+                importJobService.submit(filePath);
+                fileFound = true;
+                break;
             } else {
                 System.out.println("文件不存在: " + file.getAbsolutePath());
             }
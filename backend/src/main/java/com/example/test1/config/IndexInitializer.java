@@ -0,0 +1,38 @@
+package com.example.test1.config;
+
+import com.example.test1.repository.PriceBucketRepository;
+import com.example.test1.service.RollupService;
+import com.example.test1.service.StartupTasks;
+import com.example.test1.service.StockIndexService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// 先于 DataInitializer 提交，启动任务按提交顺序执行，保证导入开始前索引已存在；
+// 建索引（含旧数据的 nameKey 回填）在后台进行，完成前 readiness 探针不会通过
+@Component
+@Order(0)
+public class IndexInitializer implements CommandLineRunner {
+
+    private final StockIndexService stockIndexService;
+    private final RollupService rollupService;
+    private final PriceBucketRepository priceBucketRepository;
+    private final StartupTasks startupTasks;
+
+    public IndexInitializer(StockIndexService stockIndexService, RollupService rollupService,
+                            PriceBucketRepository priceBucketRepository, StartupTasks startupTasks) {
+        this.stockIndexService = stockIndexService;
+        this.rollupService = rollupService;
+        this.priceBucketRepository = priceBucketRepository;
+        this.startupTasks = startupTasks;
+    }
+
+    @Override
+    public void run(String... args) {
+        startupTasks.submit("indexes", () -> {
+            stockIndexService.ensureIndexes();
+            rollupService.ensureIndexes();
+            priceBucketRepository.ensureIndexes();
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.test1.config;
+
+import com.example.test1.service.StockDataReadConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MongoConfig {
+
+    // 读取 StockData 时兼容迁移前的存储形态
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(new StockDataReadConverter()));
+    }
+
+    // 只调整连接池，在 spring.data.mongodb.uri 之后应用；未配置时沿用连接串和驱动的默认值
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(
+            @Value("${stock.mongo.pool.max-size:0}") int maxSize,
+            @Value("${stock.mongo.pool.max-wait-ms:-1}") long maxWaitMillis) {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> {
+            if (maxSize > 0) {
+                pool.maxSize(maxSize);
+            }
+            if (maxWaitMillis >= 0) {
+                pool.maxWaitTime(maxWaitMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+}
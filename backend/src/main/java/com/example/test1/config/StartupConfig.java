@@ -0,0 +1,19 @@
+package com.example.test1.config;
+
+import com.example.test1.service.StartupTasks;
+import com.example.test1.service.prediction.PredictionService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfig {
+
+    // fast-start profile 开启懒加载时仍需在启动时创建的 bean：
+    // 预测的定时刷新只在 bean 创建后才注册；启动任务要在 readiness 探针第一次检查前就绪
+    @Bean
+    static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                PredictionService.class, StartupTasks.class);
+    }
+}
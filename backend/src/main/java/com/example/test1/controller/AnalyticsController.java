@@ -0,0 +1,82 @@
+package com.example.test1.controller;
+
+import com.example.test1.model.CorrelationMatrix;
+import com.example.test1.model.MarketBreadth;
+import com.example.test1.model.SectorPerformance;
+import com.example.test1.model.TopMovers;
+import com.example.test1.service.analytics.AnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    // 1. 日收益率相关系数矩阵；names 为空时计算全部股票
+    @GetMapping("/correlation")
+    public ResponseEntity<CorrelationMatrix> correlation(
+            @RequestParam(required = false) List<String> names,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(analyticsService.correlation(names, from, to));
+    }
+
+    // 2. 行业等权指数（起点 100）及 window 日滚动年化波动率
+    @GetMapping("/sectors")
+    public ResponseEntity<SectorPerformance> sectors(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "20") int window) {
+        if (!from.isBefore(to) || window < 2) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(analyticsService.sectors(from, to, window));
+    }
+
+    // 3. 行业成分：{ 行业: [股票名称] }，只读行业划分，不计算指数
+    @GetMapping("/sectors/members")
+    public ResponseEntity<Map<String, List<String>>> sectorMembers() {
+        return ResponseEntity.ok(analyticsService.sectorMembers());
+    }
+
+    // 4. 市场宽度：每日涨跌家数、涨跌线、站上 window 日均线的比例和市场滚动波动率
+    @GetMapping("/breadth")
+    public ResponseEntity<MarketBreadth> breadth(
+            @RequestParam(required = false) List<String> names,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "20") int window) {
+        if (!from.isBefore(to) || window < 2) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(analyticsService.breadth(names, from, to, window));
+    }
+
+    // 5. 区间涨幅、跌幅各前 limit 名
+    @GetMapping("/movers")
+    public ResponseEntity<TopMovers> movers(
+            @RequestParam(required = false) List<String> names,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "5") int limit) {
+        if (!from.isBefore(to) || limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(analyticsService.movers(names, from, to, limit));
+    }
+}
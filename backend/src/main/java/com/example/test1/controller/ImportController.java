@@ -0,0 +1,52 @@
+package com.example.test1.controller;
+
+import com.example.test1.service.ImportJobService;
+import com.example.test1.service.ImportProgress;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    // 1. 查询后台导入进度
+    @GetMapping("/status")
+    public ResponseEntity<ImportProgress> status() {
+        return ResponseEntity.ok(importJobService.getProgress());
+    }
+
+    // 2. 重新扫描上次导入的文件，只导入新追加的部分
+    @PostMapping("/rescan")
+    public ResponseEntity<ImportProgress> rescan() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(importJobService.resubmit());
+    }
+
+    // 3. 从原始数据重建 1m/1h/1d 预聚合K线，在后台导入线程上排队执行
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Void> rebuildRollups() {
+        importJobService.rebuildRollups();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+
+    // 4. 把旧形态的 stock_data 文档原地改写为当前存储形态，可重复执行，只处理剩余的旧文档
+    @PostMapping("/schema/migrate")
+    public ResponseEntity<Void> migrateSchema() {
+        importJobService.migrateSchema();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+
+    // 5. 从原始数据重建按股票、按天打包的价格分桶
+    @PostMapping("/prices/rebuild")
+    public ResponseEntity<Void> rebuildPriceBuckets() {
+        importJobService.rebuildPriceBuckets();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+}
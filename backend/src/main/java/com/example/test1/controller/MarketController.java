@@ -0,0 +1,41 @@
+package com.example.test1.controller;
+
+import com.example.test1.model.MarketSnapshot;
+import com.example.test1.service.MarketSnapshotService;
+import com.example.test1.service.QuoteStreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/market")
+public class MarketController {
+
+    @Autowired
+    private MarketSnapshotService marketSnapshotService;
+
+    @Autowired
+    private QuoteStreamService quoteStreamService;
+
+    // 1. 市场总览：每只股票的最新报价、开盘价及涨跌家数等汇总；names 为空时返回全部股票
+    @GetMapping("/snapshot")
+    public ResponseEntity<MarketSnapshot> snapshot(@RequestParam(required = false) List<String> names) {
+        return ResponseEntity.ok(marketSnapshotService.snapshot(names));
+    }
+
+    // 2. 实时行情推送（SSE）：订阅 names 中的股票，新落库的行以 tick 事件推送，客户端较慢时每只股票只推最新一行
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestParam List<String> names) {
+        if (names.stream().allMatch(n -> n == null || n.isBlank())) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(quoteStreamService.subscribe(names));
+    }
+}
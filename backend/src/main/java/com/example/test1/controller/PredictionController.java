@@ -0,0 +1,49 @@
+package com.example.test1.controller;
+
+import com.example.test1.model.Prediction;
+import com.example.test1.model.PredictionSummary;
+import com.example.test1.service.prediction.PredictionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/predictions")
+public class PredictionController {
+
+    @Autowired
+    private PredictionService predictionService;
+
+    // 1. 有预测的股票列表：可用模型及默认模型在完整预测期末的涨跌幅
+    @GetMapping
+    public ResponseEntity<List<PredictionSummary>> list() {
+        return ResponseEntity.ok(predictionService.summaries());
+    }
+
+    // 2. 单只股票未来 days 天的预测；model 为空时取最新生成的模型（lstm / holt）
+    @GetMapping("/{name}")
+    public ResponseEntity<Prediction> predict(
+            @PathVariable String name,
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(required = false) String model) {
+        if (days <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        Prediction prediction = predictionService.predict(name, days, model);
+        return prediction == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(prediction);
+    }
+
+    // 3. 立即按最新行情重算所有股票的基线预测（平时按 stock.predictions.refresh-interval 定时执行）
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Object>> refresh() {
+        return ResponseEntity.ok(Map.of("updated", predictionService.refresh()));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.test1.controller;
+
+import com.example.test1.model.StockRow;
+import com.example.test1.service.SeriesQueryService;
+import com.example.test1.service.reactive.ReactiveStockDataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+// reactive profile 下的只读接口：返回 Flux/Mono，请求线程在等待 Mongo 时即被释放，
+// NDJSON 响应逐行写出，客户端读得慢时按背压暂停从游标拉取
+@Profile("reactive")
+@RestController
+@RequestMapping("/api/reactive/stock-data")
+public class ReactiveStockDataController {
+
+    @Autowired
+    private ReactiveStockDataService reactiveStockDataService;
+
+    // 1. 按名称和时间范围查询，与 /api/stock-data/advanced-search 条件相同
+    @GetMapping(value = "/advanced-search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<StockRow> advancedSearch(
+            @RequestParam String name,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+        return reactiveStockDataService.searchByNameAndTimeRange(name, startTime, endTime)
+                .map(SeriesQueryService::toRow);
+    }
+
+    // 2. 按时间范围查询，与 /api/stock-data/search-by-time 条件相同
+    @GetMapping(value = "/search-by-time", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<StockRow> searchByTime(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+        return reactiveStockDataService.filterByTimeRange(startTime, endTime)
+                .map(SeriesQueryService::toRow);
+    }
+
+    // 3. 单只股票的最新一条
+    @GetMapping("/{name}/latest")
+    public Mono<ResponseEntity<StockRow>> latest(@PathVariable String name) {
+        return reactiveStockDataService.latest(name)
+                .map(data -> ResponseEntity.ok(SeriesQueryService.toRow(data)))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
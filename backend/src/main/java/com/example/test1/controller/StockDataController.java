@@ -1,16 +1,37 @@
 package com.example.test1.controller;
 
+import com.example.test1.model.Candle;
+import com.example.test1.model.CandleColumns;
+import com.example.test1.model.PriceSeries;
 import com.example.test1.model.StockData;
+import com.example.test1.model.StockRow;
+import com.example.test1.model.StockDataSlice;
+import com.example.test1.service.CandleInterval;
+import com.example.test1.service.CandleService;
+import com.example.test1.service.HistoryResponseCache;
+import com.example.test1.service.HotSeriesCache;
+import com.example.test1.service.PriceHistoryService;
+import com.example.test1.service.SeriesQueryService;
 import com.example.test1.service.StockDataService;
+import com.example.test1.service.SymbolResolver;
+import com.example.test1.service.TickIngestBuffer;
+import com.example.test1.service.indicator.IndicatorService;
+import com.example.test1.service.indicator.IndicatorSpec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,9 +39,41 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/stock-data")
 public class StockDataController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int FLUSH_EVERY = 500;
+    private static final int MAX_SCROLL_SIZE = 1000;
+
     @Autowired
     private StockDataService stockDataService;
 
+    @Autowired
+    private CandleService candleService;
+
+    @Autowired
+    private HotSeriesCache hotSeriesCache;
+
+    @Autowired
+    private SeriesQueryService seriesQueryService;
+
+    @Autowired
+    private IndicatorService indicatorService;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    @Autowired
+    private TickIngestBuffer tickIngestBuffer;
+
+    @Autowired
+    private HistoryResponseCache historyResponseCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SymbolResolver symbolResolver;
+
 
     // 1. 分页查询所有数据
     @GetMapping
@@ -29,60 +82,452 @@ public class StockDataController {
         return ResponseEntity.ok(stockDataService.getAllStockData(pageable));
     }
 
-    // 2. 按名称查询
+    // 2. 键集分页：按时间倒序，cursor 为上一页返回的 nextCursor，深页与第一页代价相同；
+    //    withTotal=true 时附带基于集合元数据的估计总数
+    @GetMapping("/scroll")
+    public ResponseEntity<StockDataSlice> scroll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(stockDataService.scroll(cursor, size, withTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // 3. 按名称查询
     @GetMapping("/search-by-name")
     public ResponseEntity<List<StockData>> searchByName(@RequestParam String name) {
         return ResponseEntity.ok(stockDataService.searchByName(name));
     }
 
-    // 3. 按时间范围查询
+    // 4. 按时间范围查询；stream=ndjson/json 时流式输出，见 streamRows；
+    //    指定 fields（如 fields=name,last,vol）时只投影这些列，返回紧凑的 StockRow；
+    //    已收盘的区间（endTime 早于今天）经 closedRange 缓存并支持 ETag 条件请求
     @GetMapping("/search-by-time")
-    public ResponseEntity<List<StockData>> searchByTime(
+    public ResponseEntity<?> searchByTime(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(required = false) String stream,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (fields != null) {
+            java.util.Set<String> projected = SeriesQueryService.parseFields(fields);
+            if (projected == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            if (historyResponseCache.cacheable(endTime)) {
+                String key = "time|" + startTime + "|" + endTime + "|" + String.join(",", new java.util.TreeSet<>(projected));
+                return closedRange(key, null, startTime, endTime, ifNoneMatch, acceptEncoding,
+                        () -> seriesQueryService.rowsByTime(startTime, endTime, projected));
+            }
+            return ResponseEntity.ok(seriesQueryService.rowsByTime(startTime, endTime, projected));
+        }
+        if (stream != null) {
+            return streamRows(stream, () -> stockDataService.streamByTimeRange(startTime, endTime), sd -> sd);
+        }
+        if (historyResponseCache.cacheable(endTime)) {
+            return closedRange("time|" + startTime + "|" + endTime, null, startTime, endTime, ifNoneMatch, acceptEncoding,
+                    () -> stockDataService.filterByTimeRange(startTime, endTime));
+        }
         return ResponseEntity.ok(stockDataService.filterByTimeRange(startTime, endTime));
     }
 
-    // 4. 同时按名称和时间范围查询
+    // 5. 同时按名称和时间范围查询；debug=true 时附带执行计划摘要，用于确认走了 IXSCAN；
+    //    stream=ndjson/json 时流式输出；已收盘的区间按解析出的股票键缓存，见 closedRange
     @GetMapping("/advanced-search")
-    public ResponseEntity<List<java.util.Map<String, Object>>> advancedSearch(
+    public ResponseEntity<?> advancedSearch(
             @RequestParam String name,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(defaultValue = "false") boolean debug,
+            @RequestParam(required = false) String stream,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (stream != null && !debug) {
+            return streamRows(stream, () -> stockDataService.streamByNameAndTimeRange(name, startTime, endTime),
+                    SeriesQueryService::toRow);
+        }
+        if (!debug && historyResponseCache.cacheable(endTime)) {
+            // 不同写法的名称解析到同一组股票时共用一个条目；新股票出现后解析结果变化，自然对应新条目
+            List<String> keys = symbolResolver.resolveKeys(name).stream().sorted().toList();
+            if (!keys.isEmpty()) {
+                return closedRange("advanced|" + String.join(",", keys) + "|" + startTime + "|" + endTime,
+                        keys, startTime, endTime, ifNoneMatch, acceptEncoding,
+                        () -> stockDataService.searchByNameAndTimeRange(name, startTime, endTime).stream()
+                                .map(SeriesQueryService::toRow).toList());
+            }
+        }
         List<StockData> results = stockDataService.searchByNameAndTimeRange(name, startTime, endTime);
 
-        java.util.List<java.util.Map<String, Object>> mapped = results.stream().map(sd -> {
-            java.util.Map<String, Object> map = new java.util.HashMap<>();
-            map.put("id", sd.getId());
-            map.put("name", sd.getName());
-            map.put("last", sd.getLast() != null ? sd.getLast().toString() : null);
-            map.put("high", sd.getHigh() != null ? sd.getHigh().toString() : null);
-            map.put("low", sd.getLow() != null ? sd.getLow().toString() : null);
-            map.put("chg", sd.getChg() != null ? sd.getChg().toString() : null);
-            map.put("chgPercent", sd.getChgPercent());
-            map.put("vol", sd.getVol());
-            map.put("time", sd.getTime());
-            map.put("historicalPrices", sd.getHistoricalPrices());
-
-            // timestamp -> ISO 8601 string for front-end new Date(...) 兼容
-            if (sd.getTimestamp() != null) {
-                java.time.LocalDateTime ldt = sd.getTimestamp();
-                java.time.Instant instant = ldt.atZone(java.time.ZoneId.systemDefault()).toInstant();
-                String iso = java.time.format.DateTimeFormatter.ISO_INSTANT.format(instant);
-                map.put("timestamp", iso);
+        List<StockRow> mapped = results.stream().map(SeriesQueryService::toRow).toList();
+
+        if (debug) {
+            java.util.Map<String, Object> body = new java.util.LinkedHashMap<>();
+            body.put("results", mapped);
+            body.put("explain", stockDataService.explainSearchByNameAndTimeRange(name, startTime, endTime));
+            return ResponseEntity.ok(body);
+        }
+        return ResponseEntity.ok(mapped);
+    }
+
+    // 6. 批量查询多只股票同一时间范围的数据，按请求中的名称分组流式返回 { name: [rows...] }
+    //    所有名称先解析为 nameKey，再用一次 $in 查询按 (nameKey, timestamp) 顺序读出，耗时不随股票数线性增长；
+    //    精确解析为一只股票的名称边读游标边写响应，字段按 nameKey 顺序出现。模糊匹配到多只、
+    //    或与前面名称解析到同一只的名称（通常很少）先收集对应 nameKey 的行，游标读完后按时间归并写在最后
+    @GetMapping("/batch-search")
+    public ResponseEntity<StreamingResponseBody> batchSearch(
+            @RequestParam List<String> names,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+        // 去重并保持请求顺序，避免响应中出现重复字段
+        java.util.Set<String> distinct = new java.util.LinkedHashSet<>(names);
+        java.util.Map<String, List<String>> resolved = new java.util.LinkedHashMap<>();
+        java.util.Set<String> allKeys = new java.util.LinkedHashSet<>();
+        // nameKey -> 边读边写的名称；collected 为需要先收集再归并的 nameKey
+        java.util.Map<String, String> streamed = new java.util.HashMap<>();
+        java.util.Set<String> collected = new java.util.HashSet<>();
+        for (String name : distinct) {
+            List<String> keys = symbolResolver.resolveKeys(name);
+            resolved.put(name, keys);
+            allKeys.addAll(keys);
+            if (keys.size() == 1 && !streamed.containsKey(keys.get(0))) {
+                streamed.put(keys.get(0), name);
             } else {
-                map.put("timestamp", null);
+                collected.addAll(keys);
             }
+        }
 
-            return map;
-        }).toList();
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartObject();
+                java.util.Set<String> written = new java.util.HashSet<>();
+                java.util.Map<String, List<StockData>> buffered = new java.util.HashMap<>();
+                String open = null;
+                int count = 0;
+                try (java.util.stream.Stream<StockData> rows =
+                             stockDataService.streamByNameKeys(allKeys, startTime, endTime)) {
+                    java.util.Iterator<StockData> it = rows.iterator();
+                    while (it.hasNext()) {
+                        StockData sd = it.next();
+                        if (collected.contains(sd.getNameKey())) {
+                            buffered.computeIfAbsent(sd.getNameKey(), k -> new java.util.ArrayList<>()).add(sd);
+                        }
+                        String name = streamed.get(sd.getNameKey());
+                        if (name == null) {
+                            continue;
+                        }
+                        if (!name.equals(open)) {
+                            if (open != null) {
+                                json.writeEndArray();
+                            }
+                            json.writeArrayFieldStart(name);
+                            written.add(name);
+                            open = name;
+                        }
+                        json.writeObject(SeriesQueryService.toRow(sd));
+                        if (++count % FLUSH_EVERY == 0) {
+                            json.flush();
+                        }
+                    }
+                }
+                if (open != null) {
+                    json.writeEndArray();
+                }
+                // 没有数据的名称也返回空数组，前端无需判空
+                for (String name : distinct) {
+                    if (written.contains(name)) {
+                        continue;
+                    }
+                    json.writeArrayFieldStart(name);
+                    writeRows(json, resolved.get(name).stream()
+                                    .flatMap(key -> buffered.getOrDefault(key, List.of()).stream())
+                                    .sorted(java.util.Comparator.comparing(StockData::getTimestamp)),
+                            SeriesQueryService::toRow);
+                    json.writeEndArray();
+                }
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
 
-        return ResponseEntity.ok(mapped);
+    // 7. 单只股票的紧凑序列：fields 选择列（默认全部），format=rows 返回 StockRow 数组，
+    //    format=columns 返回 {t:[...], last:[...], ...} 列式结构，t 为 epoch 毫秒
+    @GetMapping("/{name}/series")
+    public ResponseEntity<?> series(
+            @PathVariable String name,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "rows") String format) {
+        java.util.Set<String> projected = SeriesQueryService.parseFields(fields);
+        if (projected == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return switch (format) {
+            case "rows" -> ResponseEntity.ok(seriesQueryService.rows(name, from, to, projected));
+            case "columns" -> ResponseEntity.ok(seriesQueryService.columns(name, from, to, projected));
+            default -> ResponseEntity.badRequest().build();
+        };
+    }
+
+    // 8. K 线：在 Mongo 内按周期聚合为 OHLCV；不指定 interval 时按 maxPoints 自动选择周期，
+    //    点数仍超过 maxPoints 时用 LTTB 降采样。interval 取值 1m/5m/15m/30m/1h/4h/1d/1w/1M；
+    //    format=columns 时返回 {t,o,h,l,c,v} 列式结构
+    @GetMapping("/{name}/candles")
+    public ResponseEntity<?> candles(
+            @PathVariable String name,
+            @RequestParam(required = false) String interval,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(defaultValue = "rows") String format) {
+        CandleInterval parsed = null;
+        if (interval != null && !interval.isBlank()) {
+            parsed = CandleInterval.of(interval.trim());
+            if (parsed == null) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        int limit = maxPoints != null && maxPoints > 0 ? maxPoints : candleService.getDefaultMaxPoints();
+        List<Candle> candles = candleService.candles(name, parsed, from, to, limit);
+        return switch (format) {
+            case "rows" -> ResponseEntity.ok(candles);
+            case "columns" -> ResponseEntity.ok(CandleColumns.of(candles));
+            default -> ResponseEntity.badRequest().build();
+        };
+    }
+
+    // 9. 技术指标：indicators 形如 sma:20,ema:12,rsi:14,macd:12:26:9,bollinger:20:2,vwap:20,volatility:20，
+    //    省略参数时用默认值；按列返回 {interval, t, values}，已收盘 K 线的结果在服务端缓存，只续算最新部分。
+    //    despike（百分比阈值）先过滤异常收盘价再计算，过滤结果以 despike:<阈值> 列返回
+    @GetMapping("/{name}/indicators")
+    public ResponseEntity<?> indicators(
+            @PathVariable String name,
+            @RequestParam String indicators,
+            @RequestParam(defaultValue = "1d") String interval,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Double despike) {
+        CandleInterval parsed = CandleInterval.of(interval.trim());
+        List<IndicatorSpec> specs = IndicatorSpec.parse(indicators);
+        if (parsed == null || specs == null || (despike != null && !(despike > 0 && despike <= 100))) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(indicatorService.compute(name, parsed, from, to, specs, despike));
+    }
+
+    // 10. 逐笔价格：从按天打包的价格分桶读取，按列返回 {t, p}
+    @GetMapping("/{name}/prices")
+    public ResponseEntity<PriceSeries> prices(
+            @PathVariable String name,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(priceHistoryService.prices(name, from, to));
+    }
+
+    // 11. 热缓存命中率等统计
+    @GetMapping("/cache-stats")
+    public ResponseEntity<java.util.Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(hotSeriesCache.stats());
     }
 
-    // 5. 保存数据
+    // 12. 保存数据：按 (name, timestamp) upsert，同一时间的行重复提交时覆盖原数据
     @PostMapping
     public ResponseEntity<StockData> saveStockData(@Valid @RequestBody StockData stockData) {
+        if (stockData.getName() == null || stockData.getTimestamp() == null) {
+            return ResponseEntity.badRequest().build();
+        }
         return ResponseEntity.status(HttpStatus.CREATED).body(stockDataService.saveStockData(stockData));
     }
-}
\ No newline at end of file
+
+    // 13. 批量写入实时行情：请求体为 JSON 数组或 NDJSON（每行一个对象），入队后返回 202，由后台批量落库；
+    // 缓冲区剩余容量不足时整批拒绝并返回 429，客户端按 Retry-After 稍后重试
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<java.util.Map<String, Object>> ingestBatch(java.io.InputStream body) {
+        List<StockData> rows = new java.util.ArrayList<>();
+        // readValues 同时支持外层 JSON 数组和以空白分隔的多个根对象
+        try (com.fasterxml.jackson.databind.MappingIterator<StockData> it =
+                     objectMapper.readerFor(StockData.class).readValues(body)) {
+            while (it.hasNextValue()) {
+                StockData row = it.nextValue();
+                if (row.getName() == null || row.getName().isBlank() || row.getTimestamp() == null) {
+                    return ResponseEntity.badRequest().body(java.util.Map.of(
+                            "error", "第 " + (rows.size() + 1) + " 条缺少 name 或 timestamp"));
+                }
+                rows.add(row);
+                if (rows.size() > tickIngestBuffer.capacity()) {
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(java.util.Map.of(
+                            "error", "单次最多 " + tickIngestBuffer.capacity() + " 条"));
+                }
+            }
+        } catch (java.io.IOException e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", "无法解析请求体: " + e.getMessage()));
+        }
+        if (!tickIngestBuffer.offer(rows)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(java.util.Map.of("error", "写入缓冲区已满", "queueDepth", tickIngestBuffer.stats().get("queueDepth")));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(java.util.Map.of("accepted", rows.size()));
+    }
+
+    // 14. 批量写入缓冲区的队列深度、刷写耗时等统计
+    @GetMapping("/batch/stats")
+    public ResponseEntity<java.util.Map<String, Object>> ingestStats() {
+        return ResponseEntity.ok(tickIngestBuffer.stats());
+    }
+
+    // 15. 历史响应缓存的条目数、字节数和命中统计
+    @GetMapping("/http-cache/stats")
+    public ResponseEntity<java.util.Map<String, Object>> httpCacheStats() {
+        return ResponseEntity.ok(historyResponseCache.stats());
+    }
+
+    // 16. 多只股票同一区间的 K 线，按请求顺序返回 { name: [candles] }；周期选择同 8，对所有股票统一，
+    //     一次请求取回图表中全部公司的收盘价序列
+    @GetMapping("/candles")
+    public ResponseEntity<java.util.Map<String, List<Candle>>> batchCandles(
+            @RequestParam List<String> names,
+            @RequestParam(required = false) String interval,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer maxPoints) {
+        CandleInterval parsed = null;
+        if (interval != null && !interval.isBlank()) {
+            parsed = CandleInterval.of(interval.trim());
+            if (parsed == null) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        int limit = maxPoints != null && maxPoints > 0 ? maxPoints : candleService.getDefaultMaxPoints();
+        return ResponseEntity.ok(candleService.candles(names, parsed, from, to, limit));
+    }
+
+    // 已收盘区间的响应：首次请求序列化后连同 gzip 结果放入缓存，之后直接返回缓存的字节（客户端接受 gzip 时返回压缩结果，
+    // 由 Content-Encoding 标明，Tomcat 不再重复压缩）。ETag 为内容摘要，If-None-Match 与之一致时直接返回 304，不执行查询
+    private ResponseEntity<?> closedRange(String key, java.util.Collection<String> nameKeys,
+                                          LocalDateTime from, LocalDateTime to,
+                                          String ifNoneMatch, String acceptEncoding,
+                                          java.util.function.Supplier<Object> query) {
+        HistoryResponseCache.Entry entry = historyResponseCache.get(key);
+        if (entry == null) {
+            // 条目未缓存或已被淘汰：查询一次；内容未变时 ETag 与客户端持有的相同，仍可返回 304 省去传输
+            entry = load(key, nameKeys, from, to, query);
+        }
+        boolean gzip = entry.gzip() != null && acceptsGzip(acceptEncoding);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"" + entry.etag() + (gzip ? "-gzip" : "") + "\"");
+        headers.setCacheControl(CacheControl.maxAge(historyResponseCache.maxAgeSeconds(), java.util.concurrent.TimeUnit.SECONDS)
+                .cachePublic());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (etagMatches(ifNoneMatch, entry.etag())) {
+            historyResponseCache.recordNotModified();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return ResponseEntity.ok().headers(headers).body(entry.gzip());
+        }
+        return ResponseEntity.ok().headers(headers).body(entry.json());
+    }
+
+    private HistoryResponseCache.Entry load(String key, java.util.Collection<String> nameKeys,
+                                            LocalDateTime from, LocalDateTime to,
+                                            java.util.function.Supplier<Object> query) {
+        long generation = historyResponseCache.generation();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(query.get());
+            return historyResponseCache.put(key, nameKeys, from, to, json, generation);
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            throw new IllegalStateException("序列化响应失败", e);
+        }
+    }
+
+    // If-None-Match 按弱比较：忽略 W/ 前缀；压缩与未压缩的表示内容相同，视为同一版本
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            tag = tag.replace("\"", "");
+            if (tag.endsWith("-gzip")) {
+                tag = tag.substring(0, tag.length() - "-gzip".length());
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Accept-Encoding 中列出 gzip（或 *）且 q 不为 0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] coding = part.split(";");
+            String token = coding[0].trim();
+            if (token.equalsIgnoreCase("gzip") || token.equals("*")) {
+                return coding.length < 2 || !coding[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // 流式输出：stream=ndjson 每行一个 JSON 对象（application/x-ndjson），stream=json 为分块传输的 JSON 数组。
+    // 边读游标边写响应，内存占用只与游标批大小有关；客户端读得慢时写入阻塞，游标随之暂停拉取；
+    // 客户端断开时写入抛出 IOException，try-with-resources 随即关闭游标
+    private ResponseEntity<StreamingResponseBody> streamRows(String mode,
+                                                             java.util.function.Supplier<java.util.stream.Stream<StockData>> source,
+                                                             java.util.function.Function<StockData, Object> mapper) {
+        boolean ndjson = "ndjson".equalsIgnoreCase(mode);
+        if (!ndjson && !"json".equalsIgnoreCase(mode)) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+                 java.util.stream.Stream<StockData> rows = source.get()) {
+                if (ndjson) {
+                    // 根级值之间用换行分隔
+                    json.setRootValueSeparator(new com.fasterxml.jackson.core.io.SerializedString("\n"));
+                    writeRows(json, rows, mapper);
+                    json.writeRaw('\n');
+                } else {
+                    json.writeStartArray();
+                    writeRows(json, rows, mapper);
+                    json.writeEndArray();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // 每 FLUSH_EVERY 行刷新一次，让已生成的数据尽快以 chunk 发出
+    private static void writeRows(JsonGenerator json, java.util.stream.Stream<StockData> rows,
+                                  java.util.function.Function<StockData, Object> mapper) throws java.io.IOException {
+        java.util.Iterator<StockData> it = rows.iterator();
+        int count = 0;
+        while (it.hasNext()) {
+            json.writeObject(mapper.apply(it.next()));
+            if (++count % FLUSH_EVERY == 0) {
+                json.flush();
+            }
+        }
+    }
+}
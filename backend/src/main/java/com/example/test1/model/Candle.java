@@ -0,0 +1,11 @@
+package com.example.test1.model;
+
+import java.time.Instant;
+
+/**
+ * 一个时间桶内的 OHLCV 数据。time 为桶的起始时刻；
+ * volume 取桶内累计成交量的最大值（CSV 中的 vol 是当日累计成交量）；
+ * count 为桶内原始行数，从预聚合集合读取时为 null。
+ */
+public record Candle(Instant time, Double open, Double high, Double low, Double close, Long volume, Long count) {
+}
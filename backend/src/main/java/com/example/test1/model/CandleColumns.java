@@ -0,0 +1,34 @@
+package com.example.test1.model;
+
+import java.util.List;
+
+/**
+ * 按列组织的 K 线，供图表直接使用：{t:[...], o:[...], h:[...], l:[...], c:[...], v:[...]}。
+ * t 为桶起始 epoch 毫秒；缺失的价格为 NaN，缺失的成交量为 0。
+ */
+public record CandleColumns(long[] t, double[] o, double[] h, double[] l, double[] c, long[] v) {
+
+    public static CandleColumns of(List<Candle> candles) {
+        int size = candles.size();
+        long[] t = new long[size];
+        double[] o = new double[size];
+        double[] h = new double[size];
+        double[] l = new double[size];
+        double[] c = new double[size];
+        long[] v = new long[size];
+        for (int i = 0; i < size; i++) {
+            Candle candle = candles.get(i);
+            t[i] = candle.time().toEpochMilli();
+            o[i] = orNaN(candle.open());
+            h[i] = orNaN(candle.high());
+            l[i] = orNaN(candle.low());
+            c[i] = orNaN(candle.close());
+            v[i] = candle.volume() == null ? 0 : candle.volume();
+        }
+        return new CandleColumns(t, o, h, l, c, v);
+    }
+
+    private static double orNaN(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.test1.model;
+
+import java.util.List;
+
+/**
+ * 日收益率的两两相关系数矩阵：matrix[i][j] 对应 names[i] 与 names[j]，
+ * 共同交易日不足时为 NaN；days 为对齐后的交易日数。
+ */
+public record CorrelationMatrix(List<String> names, int days, double[][] matrix) {
+}
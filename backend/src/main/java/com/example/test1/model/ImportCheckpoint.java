@@ -0,0 +1,47 @@
+package com.example.test1.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * CSV 增量导入检查点：以文件绝对路径为主键，记录文件头指纹和已导入到的字节位置。
+ */
+@Document(collection = "import_checkpoints")
+public class ImportCheckpoint {
+
+    @Id
+    private String path;
+
+    // 文件前 fingerprintLength 字节的 SHA-256，用于识别文件是否被替换
+    private String fingerprint;
+    private long fingerprintLength;
+
+    // 已完整导入的字节位置（总是落在行首）
+    private long byteOffset;
+    private LocalDateTime lastTimestamp;
+    private long recordCount;
+    private LocalDateTime updatedAt;
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public String getFingerprint() { return fingerprint; }
+    public void setFingerprint(String fingerprint) { this.fingerprint = fingerprint; }
+
+    public long getFingerprintLength() { return fingerprintLength; }
+    public void setFingerprintLength(long fingerprintLength) { this.fingerprintLength = fingerprintLength; }
+
+    public long getByteOffset() { return byteOffset; }
+    public void setByteOffset(long byteOffset) { this.byteOffset = byteOffset; }
+
+    public LocalDateTime getLastTimestamp() { return lastTimestamp; }
+    public void setLastTimestamp(LocalDateTime lastTimestamp) { this.lastTimestamp = lastTimestamp; }
+
+    public long getRecordCount() { return recordCount; }
+    public void setRecordCount(long recordCount) { this.recordCount = recordCount; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,11 @@
+package com.example.test1.model;
+
+import java.util.Map;
+
+/**
+ * 按列返回的技术指标：t 为 K 线开始时间（epoch 毫秒），
+ * values 为 { "sma:20": { "value": [...] }, "macd:12:26:9": { "macd": [...], "signal": [...], "histogram": [...] } }，
+ * 每一列与 t 等长，预热期内为 NaN。
+ */
+public record IndicatorSeries(String interval, long[] t, Map<String, Map<String, double[]>> values) {
+}
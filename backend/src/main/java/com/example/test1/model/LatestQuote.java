@@ -0,0 +1,96 @@
+package com.example.test1.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 每只股票的最新报价和当日开盘行，以 nameKey 为主键。
+ * 开盘行取最新交易日 09:25–09:35 之间最晚的一行，没有时取当日第一行（与总览页原先的前端逻辑一致）。
+ */
+@Document(collection = "latest_quotes")
+public class LatestQuote {
+
+    @Id
+    private String nameKey;
+    private String name;
+
+    private LocalDateTime timestamp;
+    private Double last;
+    private Double high;
+    private Double low;
+    private Double chg;
+    private Double chgPercent;
+    private Long vol;
+    private String time;
+
+    private LocalDate sessionDate;
+    private LocalDateTime openTimestamp;
+    private Double open;
+    // 开盘行是否落在 09:25–09:35 窗口内，不在时后续窗口内的行会取代它
+    private boolean openInWindow;
+
+    public LatestQuote() {
+    }
+
+    public LatestQuote(LatestQuote other) {
+        this.nameKey = other.nameKey;
+        this.name = other.name;
+        this.timestamp = other.timestamp;
+        this.last = other.last;
+        this.high = other.high;
+        this.low = other.low;
+        this.chg = other.chg;
+        this.chgPercent = other.chgPercent;
+        this.vol = other.vol;
+        this.time = other.time;
+        this.sessionDate = other.sessionDate;
+        this.openTimestamp = other.openTimestamp;
+        this.open = other.open;
+        this.openInWindow = other.openInWindow;
+    }
+
+    public String getNameKey() { return nameKey; }
+    public void setNameKey(String nameKey) { this.nameKey = nameKey; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+
+    public Double getLast() { return last; }
+    public void setLast(Double last) { this.last = last; }
+
+    public Double getHigh() { return high; }
+    public void setHigh(Double high) { this.high = high; }
+
+    public Double getLow() { return low; }
+    public void setLow(Double low) { this.low = low; }
+
+    public Double getChg() { return chg; }
+    public void setChg(Double chg) { this.chg = chg; }
+
+    public Double getChgPercent() { return chgPercent; }
+    public void setChgPercent(Double chgPercent) { this.chgPercent = chgPercent; }
+
+    public Long getVol() { return vol; }
+    public void setVol(Long vol) { this.vol = vol; }
+
+    public String getTime() { return time; }
+    public void setTime(String time) { this.time = time; }
+
+    public LocalDate getSessionDate() { return sessionDate; }
+    public void setSessionDate(LocalDate sessionDate) { this.sessionDate = sessionDate; }
+
+    public LocalDateTime getOpenTimestamp() { return openTimestamp; }
+    public void setOpenTimestamp(LocalDateTime openTimestamp) { this.openTimestamp = openTimestamp; }
+
+    public Double getOpen() { return open; }
+    public void setOpen(Double open) { this.open = open; }
+
+    public boolean isOpenInWindow() { return openInWindow; }
+    public void setOpenInWindow(boolean openInWindow) { this.openInWindow = openInWindow; }
+}
@@ -0,0 +1,9 @@
+package com.example.test1.model;
+
+/**
+ * 市场宽度：每个交易日的上涨、下跌家数与累计涨跌线，收盘价高于 window 日均线的股票占比（%），
+ * 以及全市场等权指数的 window 日滚动年化波动率（%）。各列与 t 等长。
+ */
+public record MarketBreadth(long[] t, int window, int symbols, int[] advancers, int[] decliners, int[] adLine,
+                            double[] pctAboveMa, double[] volatility) {
+}
@@ -0,0 +1,11 @@
+package com.example.test1.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 市场总览：每只股票的最新报价，以及涨跌家数、总成交量和涨跌幅的离散程度（标准差，单位 %）。
+ */
+public record MarketSnapshot(List<LatestQuote> quotes, int symbols, int advancers, int decliners, int unchanged,
+                             long totalVolume, double volatility, LocalDateTime asOf) {
+}
@@ -0,0 +1,15 @@
+package com.example.test1.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 单只股票按请求天数截取后的价格预测。字段名与前端原先读取的 stock_predictions.json 保持一致；
+ * predictedPrice、priceChange、priceChangePercent 均针对截取后的最后一天。
+ */
+public record Prediction(String companyName, String model, String modelType,
+                         double currentPrice, double predictedPrice, double priceChange, double priceChangePercent,
+                         List<LocalDate> predictionDates, double[] predictedPrices,
+                         int confidenceLevel, int accuracyRate, double volatility, String riskLevel,
+                         String lastUpdated, long dataPoints) {
+}
@@ -0,0 +1,11 @@
+package com.example.test1.model;
+
+import java.util.List;
+
+/**
+ * 预测列表中的一项：股票名称、可用模型（默认模型在前）以及默认模型在完整预测期末的涨跌幅。
+ */
+public record PredictionSummary(String companyName, List<String> models, int horizonDays,
+                                double currentPrice, double predictedPrice, double priceChangePercent,
+                                int confidenceLevel, String lastUpdated) {
+}
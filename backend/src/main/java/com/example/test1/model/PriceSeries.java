@@ -0,0 +1,13 @@
+package com.example.test1.model;
+
+/**
+ * 按列组织的逐笔价格：t 为 epoch 毫秒（升序），p 为对应的 last 价格。
+ */
+public record PriceSeries(long[] t, double[] p) {
+
+    public static final PriceSeries EMPTY = new PriceSeries(new long[0], new double[0]);
+
+    public int size() {
+        return t.length;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.test1.model;
+
+import java.util.List;
+
+/**
+ * 行业指数：t 为交易日开始时间（epoch 毫秒）；每个行业的 index 为成分股等权日收益率链接成的指数（起点 100），
+ * volatility 为 window 个交易日的滚动年化波动率（%），与 t 等长，数据不足处为 NaN。
+ */
+public record SectorPerformance(long[] t, int window, List<Sector> sectors) {
+
+    public record Sector(String name, List<String> members, double[] index, double[] volatility,
+                         double changePercent, double latestVolatility) {
+    }
+}
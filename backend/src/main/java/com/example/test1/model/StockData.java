@@ -2,32 +2,39 @@ package com.example.test1.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.index.Indexed;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Locale;
 
+// 索引由 StockIndexService 在启动时创建：name_timestamp（唯一）、nameKey_timestamp、timestamp_id
+// 存储形态见 SCHEMA_VERSION；旧形态的文档由 StockDataReadConverter 兼容读取，由 SchemaMigrationService 原地迁移
 @Document(collection = "stock_data")
 public class StockData {
 
+    // 当前存储形态：价格为 double、成交量为 long（已按 K/M/B 换算）、涨跌幅为 double（不带 %）、timestamp 为 Date。
+    // 1（无 schemaVersion 字段）：价格可能是字符串（BigDecimal）、成交量和涨跌幅可能是 "12.5M"、"1.23%"；
+    // 2：数值类型同上，但每条仍内嵌 historicalPrices；3：价格历史改存 price_buckets（见 PriceBucketRepository）
+    public static final int SCHEMA_VERSION = 3;
+
     @Id
     private String id;
 
-    @Indexed
     private LocalDateTime timestamp;
 
-    @Indexed
     private String name;
 
-    private BigDecimal last;
-    private BigDecimal high;
-    private BigDecimal low;
-    private BigDecimal chg;
-    private String chgPercent;
-    private String vol;
+    // 名称的归一化精确匹配键（去空格、小写），按名称+时间范围查询走 (nameKey, timestamp) 索引
+    private String nameKey;
+
+    private Double last;
+    private Double high;
+    private Double low;
+    private Double chg;
+    private Double chgPercent;
+    private Long vol;
     private String time;
-    private List<BigDecimal> historicalPrices;
+
+    private int schemaVersion = SCHEMA_VERSION;
 
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -38,32 +45,34 @@ public class StockData {
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
-    public BigDecimal getLast() { return last; }
-    public void setLast(BigDecimal last) { this.last = last; }
+    public String getNameKey() { return nameKey; }
+    public void setNameKey(String nameKey) { this.nameKey = nameKey; }
+
+    public static String nameKeyOf(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public Double getLast() { return last; }
+    public void setLast(Double last) { this.last = last; }
 
-    public BigDecimal getHigh() { return high; }
-    public void setHigh(BigDecimal high) { this.high = high; }
+    public Double getHigh() { return high; }
+    public void setHigh(Double high) { this.high = high; }
 
-    public BigDecimal getLow() { return low; }
-    public void setLow(BigDecimal low) { this.low = low; }
+    public Double getLow() { return low; }
+    public void setLow(Double low) { this.low = low; }
 
-    public BigDecimal getChg() { return chg; }
-    public void setChg(BigDecimal chg) { this.chg = chg; }
+    public Double getChg() { return chg; }
+    public void setChg(Double chg) { this.chg = chg; }
 
-    public String getChgPercent() { return chgPercent; }
-    public void setChgPercent(String chgPercent) { this.chgPercent = chgPercent; }
+    public Double getChgPercent() { return chgPercent; }
+    public void setChgPercent(Double chgPercent) { this.chgPercent = chgPercent; }
 
-    public String getVol() { return vol; }
-    public void setVol(String vol) { this.vol = vol; }
+    public Long getVol() { return vol; }
+    public void setVol(Long vol) { this.vol = vol; }
 
     public String getTime() { return time; }
     public void setTime(String time) { this.time = time; }
 
-    public List<BigDecimal> getHistoricalPrices() {
-        return historicalPrices;
-    }
- 
-    public void setHistoricalPrices(List<BigDecimal> historicalPrices) {
-        this.historicalPrices = historicalPrices;
-    }
+    public int getSchemaVersion() { return schemaVersion; }
+    public void setSchemaVersion(int schemaVersion) { this.schemaVersion = schemaVersion; }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.test1.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * 按 (timestamp, _id) 倒序的一页数据。nextCursor 为不透明的续页令牌，没有下一页时为 null；
+ * totalElements 只在请求时给出，是基于集合元数据的估计值。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StockDataSlice(List<StockData> content, int size, boolean hasNext, String nextCursor, Long totalElements) {
+}
@@ -0,0 +1,12 @@
+package com.example.test1.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 紧凑的行情行：t 为 epoch 毫秒，数值列为数字而不是字符串；
+ * 未通过 fields 请求或缺失的列为 null，不出现在输出中。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StockRow(long t, String name, Double last, Double high, Double low,
+                       Double chg, Double chgPercent, Long vol, String time) {
+}
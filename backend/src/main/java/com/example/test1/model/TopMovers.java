@@ -0,0 +1,12 @@
+package com.example.test1.model;
+
+import java.util.List;
+
+/**
+ * 区间涨跌幅最大和最小的股票；changePercent 为区间首末收盘价的涨跌幅，volatility 为区间内年化波动率（%）。
+ */
+public record TopMovers(List<Mover> gainers, List<Mover> losers) {
+
+    public record Mover(String name, String sector, double first, double last, double changePercent, double volatility) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.test1.repository;
+
+import com.example.test1.model.ImportCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImportCheckpointRepository extends MongoRepository<ImportCheckpoint, String> {
+}
@@ -0,0 +1,9 @@
+package com.example.test1.repository;
+
+import com.example.test1.model.LatestQuote;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LatestQuoteRepository extends MongoRepository<LatestQuote, String> {
+}
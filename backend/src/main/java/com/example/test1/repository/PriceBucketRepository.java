@@ -0,0 +1,162 @@
+package com.example.test1.repository;
+
+import com.example.test1.model.PriceSeries;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 逐笔价格的分桶存储（price_buckets）：每只股票每天一个文档，t/p 两个数组按时间升序打包保存当天的时间和 last 价格，
+ * 以 (nameKey, day) 唯一。读取一段时间只需取覆盖这几天的桶，再在桶内按时间截取。
+ */
+@Repository
+public class PriceBucketRepository {
+
+    public static final String COLLECTION = "price_buckets";
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(COLLECTION).createIndex(new Index()
+                .on("nameKey", Sort.Direction.ASC)
+                .on("day", Sort.Direction.ASC)
+                .unique()
+                .named("nameKey_day"));
+    }
+
+    public boolean isEmpty() {
+        return mongoTemplate.getCollection(COLLECTION).estimatedDocumentCount() == 0;
+    }
+
+    // 当天零点（本地时区）
+    public static Date dayOf(long millis) {
+        return Date.from(LocalDate.ofInstant(new Date(millis).toInstant(), ZONE).atStartOfDay(ZONE).toInstant());
+    }
+
+    /**
+     * 把新价格合并进各自的桶，每个桶一条 upsert。
+     * 同一时间已有价格时以新值为准，因此重复导入同一批数据结果不变，合并与到达顺序无关。
+     *
+     * @param buckets nameKey -> 当天零点 -> 该桶本批的 {t, p}（时间可乱序）
+     */
+    public void merge(Map<String, Map<Date, PriceSeries>> buckets) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        buckets.forEach((nameKey, days) -> days.forEach((day, prices) -> models.add(new UpdateOneModel<>(
+                Filters.and(Filters.eq("nameKey", nameKey), Filters.eq("day", day)),
+                mergeUpdate(prices), UPSERT))));
+        if (!models.isEmpty()) {
+            mongoTemplate.getCollection(COLLECTION).bulkWrite(models, new BulkWriteOptions().ordered(false));
+        }
+    }
+
+    // [fromMs, toMs] 内的价格，按时间升序
+    public PriceSeries range(String nameKey, long fromMs, long toMs) {
+        if (fromMs > toMs) {
+            return PriceSeries.EMPTY;
+        }
+        long[] t = new long[256];
+        double[] p = new double[256];
+        int size = 0;
+        for (Document bucket : mongoTemplate.getCollection(COLLECTION)
+                .find(Filters.and(Filters.eq("nameKey", nameKey),
+                        Filters.gte("day", dayOf(fromMs)),
+                        Filters.lte("day", dayOf(toMs))))
+                .projection(Projections.fields(Projections.include("t", "p"), Projections.excludeId()))
+                .sort(Sorts.ascending("day"))) {
+            List<Date> times = bucket.getList("t", Date.class);
+            List<?> prices = bucket.getList("p", Object.class);
+            for (int i = 0; i < times.size(); i++) {
+                long ts = times.get(i).getTime();
+                if (ts < fromMs || !(prices.get(i) instanceof Number price)) {
+                    continue;
+                }
+                if (ts > toMs) {
+                    break;
+                }
+                if (size == t.length) {
+                    t = Arrays.copyOf(t, size * 2);
+                    p = Arrays.copyOf(p, size * 2);
+                }
+                t[size] = ts;
+                p[size] = price.doubleValue();
+                size++;
+            }
+        }
+        return new PriceSeries(Arrays.copyOf(t, size), Arrays.copyOf(p, size));
+    }
+
+    // 全量重建：按 (nameKey, 日) 分组，把 stock_data 中的 last 按时间顺序打包，结果按 (nameKey, day) 合并覆盖
+    public void rebuild(String source) {
+        Document day = new Document("$dateTrunc", new Document("date", "$timestamp")
+                .append("unit", "day")
+                .append("timezone", ZONE.getId()));
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("nameKey", new Document("$type", "string"))
+                        .append("timestamp", new Document("$type", "date"))
+                        .append("last", new Document("$type", "number"))),
+                // 走 (nameKey, timestamp) 索引顺序，$push 按输入顺序追加
+                new Document("$sort", new Document("nameKey", 1).append("timestamp", 1)),
+                new Document("$group", new Document("_id", new Document("nameKey", "$nameKey").append("day", day))
+                        .append("t", new Document("$push", "$timestamp"))
+                        .append("p", new Document("$push", new Document("$toDouble", "$last")))),
+                new Document("$set", new Document("nameKey", "$_id.nameKey")
+                        .append("day", "$_id.day")
+                        .append("count", new Document("$size", "$t"))),
+                new Document("$unset", "_id"),
+                new Document("$merge", new Document("into", COLLECTION)
+                        .append("on", List.of("nameKey", "day"))
+                        .append("whenMatched", "replace")
+                        .append("whenNotMatched", "insert")));
+        // $merge 只有在遍历结果时才执行
+        mongoTemplate.getCollection(source).aggregate(pipeline).allowDiskUse(true).toCollection();
+    }
+
+    // 管道式更新：把已有的 t/p 拼成 {t, p}，去掉与本批时间相同的项，并入本批后按时间排序再拆回两个数组
+    private static List<Document> mergeUpdate(PriceSeries prices) {
+        List<Date> times = new ArrayList<>(prices.size());
+        List<Document> incoming = new ArrayList<>(prices.size());
+        for (int i = 0; i < prices.size(); i++) {
+            Date time = new Date(prices.t()[i]);
+            times.add(time);
+            incoming.add(new Document("t", time).append("p", prices.p()[i]));
+        }
+        Document existing = new Document("$map", new Document("input",
+                new Document("$range", List.of(0, new Document("$size", new Document("$ifNull", List.of("$t", List.of()))))))
+                .append("as", "i")
+                .append("in", new Document("t", new Document("$arrayElemAt", List.of("$t", "$$i")))
+                        .append("p", new Document("$arrayElemAt", List.of("$p", "$$i")))));
+        Document kept = new Document("$filter", new Document("input", existing)
+                .append("cond", new Document("$not", List.of(new Document("$in", List.of("$$this.t", new Document("$literal", times)))))));
+        Document merged = new Document("$sortArray", new Document("input",
+                new Document("$concatArrays", List.of(kept, new Document("$literal", incoming))))
+                .append("sortBy", new Document("t", 1)));
+        return List.of(
+                new Document("$set", new Document("pts", merged)),
+                new Document("$set", new Document("t", "$pts.t")
+                        .append("p", "$pts.p")
+                        .append("count", new Document("$size", "$pts"))),
+                new Document("$unset", "pts"));
+    }
+}
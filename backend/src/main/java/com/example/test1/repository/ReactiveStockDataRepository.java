@@ -0,0 +1,26 @@
+package com.example.test1.repository;
+
+import com.example.test1.model.StockData;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+// 仅在 reactive profile 下启用（默认配置排除了响应式 Mongo 自动配置），查询条件与 StockDataRepository 一致
+@Profile("reactive")
+@Repository
+public interface ReactiveStockDataRepository extends ReactiveMongoRepository<StockData, String> {
+
+    @Query(value = "{ 'nameKey': { $in: ?0 }, 'timestamp': { $gte: ?1, $lte: ?2 } }", sort = "{ 'timestamp': 1 }")
+    Flux<StockData> findByNameKeyInAndTimestampBetween(Collection<String> nameKeys, LocalDateTime startTime, LocalDateTime endTime);
+
+    @Query(value = "{ 'timestamp': { $gte: ?0, $lte: ?1 } }", sort = "{ 'timestamp': 1 }")
+    Flux<StockData> findByTimestampBetween(LocalDateTime startTime, LocalDateTime endTime);
+
+    Mono<StockData> findFirstByNameKeyOrderByTimestampDesc(String nameKey);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,9 +19,9 @@ public interface StockDataRepository extends MongoRepository<StockData, String>
 
     List<StockData> findByTimestampBetween(LocalDateTime startTime, LocalDateTime endTime);
 
-    // 使用MongoDB的查询语法实现模糊搜索
-    @Query("{ 'name': { $regex: ?0, $options: 'i' }, 'timestamp': { $gte: ?1, $lte: ?2 } }")
-    List<StockData> findByNameContainingAndTimestampBetween(String name, LocalDateTime startTime, LocalDateTime endTime);
+    // 按归一化名称键精确匹配 + 时间范围，走 (nameKey, timestamp) 复合索引；模糊名称先由 SymbolResolver 解析
+    @Query(value = "{ 'nameKey': { $in: ?0 }, 'timestamp': { $gte: ?1, $lte: ?2 } }", sort = "{ 'timestamp': 1 }")
+    List<StockData> findByNameKeyInAndTimestampBetween(Collection<String> nameKeys, LocalDateTime startTime, LocalDateTime endTime);
 
     // 分页查询 - 方法名称与JPA保持一致
     Page<StockData> findAll(Pageable pageable);
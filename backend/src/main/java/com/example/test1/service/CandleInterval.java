@@ -0,0 +1,56 @@
+package com.example.test1.service;
+
+import java.time.Duration;
+
+/**
+ * K 线周期，对应 $dateTrunc 的 unit/binSize。
+ * duration 只用于估算桶数量以自动选择周期，月线按 30 天近似。
+ */
+public enum CandleInterval {
+    M1("1m", "minute", 1, Duration.ofMinutes(1)),
+    M5("5m", "minute", 5, Duration.ofMinutes(5)),
+    M15("15m", "minute", 15, Duration.ofMinutes(15)),
+    M30("30m", "minute", 30, Duration.ofMinutes(30)),
+    H1("1h", "hour", 1, Duration.ofHours(1)),
+    H4("4h", "hour", 4, Duration.ofHours(4)),
+    D1("1d", "day", 1, Duration.ofDays(1)),
+    W1("1w", "week", 1, Duration.ofDays(7)),
+    MN1("1M", "month", 1, Duration.ofDays(30));
+
+    private final String code;
+    private final String unit;
+    private final int binSize;
+    private final Duration duration;
+
+    CandleInterval(String code, String unit, int binSize, Duration duration) {
+        this.code = code;
+        this.unit = unit;
+        this.binSize = binSize;
+        this.duration = duration;
+    }
+
+    public String code() { return code; }
+    public String unit() { return unit; }
+    public int binSize() { return binSize; }
+    public Duration duration() { return duration; }
+
+    // "1h" -> H1；区分大小写（1m 为分钟，1M 为月），无法识别时返回 null
+    public static CandleInterval of(String code) {
+        for (CandleInterval interval : values()) {
+            if (interval.code.equals(code)) {
+                return interval;
+            }
+        }
+        return null;
+    }
+
+    // 桶数量不超过 maxPoints 的最细周期；范围过大时退回月线
+    public static CandleInterval fit(Duration range, int maxPoints) {
+        for (CandleInterval interval : values()) {
+            if (range.dividedBy(interval.duration) < maxPoints) {
+                return interval;
+            }
+        }
+        return MN1;
+    }
+}
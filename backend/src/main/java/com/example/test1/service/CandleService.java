@@ -0,0 +1,146 @@
+package com.example.test1.service;
+
+import com.example.test1.model.Candle;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在 Mongo 内把原始行情按时间桶聚合成 OHLCV，图表只需要几百个点时不再传输全部原始行。
+ * 价格取 last：open/close 为桶内第一条/最后一条，high/low 为桶内 last 的最大/最小值。
+ * 启用预聚合时优先读取能拼出所需周期的最粗一级 candles_* 集合，没有预聚合数据时退回原始数据。
+ */
+@Service
+public class CandleService {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SymbolResolver symbolResolver;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Value("${stock.candles.max-points:1000}")
+    private int defaultMaxPoints;
+
+    public int getDefaultMaxPoints() {
+        return defaultMaxPoints;
+    }
+
+    // interval 为 null 时按 maxPoints 自动选择周期；结果仍超过 maxPoints 时用 LTTB 降采样
+    public List<Candle> candles(String name, CandleInterval interval, LocalDateTime from, LocalDateTime to, int maxPoints) {
+        // K 线只对单只股票有意义：模糊名称匹配到多只时取第一只
+        List<String> keys = symbolResolver.resolveKeys(name);
+        if (keys.isEmpty() || !from.isBefore(to)) {
+            return List.of();
+        }
+        CandleInterval effective = interval != null ? interval : CandleInterval.fit(Duration.between(from, to), maxPoints);
+        List<Candle> candles = List.of();
+        // 全量重建排队或进行中时预聚合不完整，直接聚合原始数据
+        if (rollupService.isReadable()) {
+            candles = rollupService.candles(RollupService.coarsestFor(effective), keys.get(0), effective, from, to);
+        }
+        if (candles.isEmpty()) {
+            candles = aggregate(keys.get(0), effective, from, to);
+        }
+        return Lttb.downsample(candles, maxPoints);
+    }
+
+    // 多只股票同一区间的 K 线，按请求顺序返回 {name: [candles]}；周期对所有股票统一选择，前端可直接对齐时间轴
+    public Map<String, List<Candle>> candles(Collection<String> names, CandleInterval interval,
+                                             LocalDateTime from, LocalDateTime to, int maxPoints) {
+        CandleInterval effective = interval != null ? interval : CandleInterval.fit(Duration.between(from, to), maxPoints);
+        Map<String, List<Candle>> result = new LinkedHashMap<>();
+        for (String name : new LinkedHashSet<>(names)) {
+            result.put(name, candles(name, effective, from, to, maxPoints));
+        }
+        return result;
+    }
+
+    private List<Candle> aggregate(String nameKey, CandleInterval interval, LocalDateTime from, LocalDateTime to) {
+        Document bucket = new Document("$dateTrunc", new Document("date", "$timestamp")
+                .append("unit", interval.unit())
+                .append("binSize", interval.binSize())
+                .append("timezone", ZONE.getId()));
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("nameKey", nameKey)
+                        .append("timestamp", new Document("$gte", toDate(from)).append("$lte", toDate(to)))),
+                // 与 (nameKey, timestamp) 索引顺序一致，$first/$last 依赖该顺序
+                new Document("$sort", new Document("timestamp", 1)),
+                new Document("$group", new Document("_id", bucket)
+                        .append("open", new Document("$first", "$last"))
+                        .append("high", new Document("$max", "$last"))
+                        .append("low", new Document("$min", "$last"))
+                        .append("close", new Document("$last", "$last"))
+                        .append("volume", new Document("$max", "$vol"))
+                        .append("count", new Document("$sum", 1))),
+                new Document("$sort", new Document("_id", 1)));
+
+        List<Candle> candles = new ArrayList<>();
+        for (Document doc : mongoTemplate.getCollection(StockIndexService.COLLECTION).aggregate(pipeline).allowDiskUse(true)) {
+            candles.add(new Candle(
+                    doc.getDate("_id").toInstant(),
+                    toDouble(doc.get("open")),
+                    toDouble(doc.get("high")),
+                    toDouble(doc.get("low")),
+                    toDouble(doc.get("close")),
+                    toLong(doc.get("volume")),
+                    ((Number) doc.get("count")).longValue()));
+        }
+        return candles;
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZONE).toInstant());
+    }
+
+    // 旧数据中数值列可能是字符串，无法识别时返回 null
+    static Double toDouble(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Double.parseDouble(text.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // 涨跌幅：导入数据为数字，保存接口写入的旧格式为 "1.23%"
+    static Double toPercent(Object value) {
+        if (value instanceof String text && !text.isBlank()) {
+            return CsvRowMapper.parsePercent(text.trim());
+        }
+        return toDouble(value);
+    }
+
+    static Long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof String text && !text.isBlank()) {
+            return CsvRowMapper.parseVolume(text.trim());
+        }
+        return null;
+    }
+}
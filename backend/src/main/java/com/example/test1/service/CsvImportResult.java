@@ -0,0 +1,11 @@
+package com.example.test1.service;
+
+/**
+ * 一次 CSV 导入的统计结果。
+ */
+public record CsvImportResult(String filePath, long recordCount, long errorCount, long elapsedMillis) {
+
+    public double rowsPerSecond() {
+        return elapsedMillis == 0 ? recordCount : recordCount * 1000.0 / elapsedMillis;
+    }
+}
@@ -1,231 +1,634 @@
 package com.example.test1.service;
 
 // import com.example.test1.model.StockData;
+import com.example.test1.model.ImportCheckpoint;
+import com.example.test1.repository.ImportCheckpointRepository;
 import com.example.test1.repository.StockDataRepository;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.bson.Document;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.FileReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
-import java.math.BigDecimal;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * CSV 增量导入服务。
+ * 每个文件在 import_checkpoints 中记录文件头指纹和已导入的字节位置：文件未变化时直接跳过，
+ * 只追加时从检查点续导新增部分，文件被替换时重新全量导入。写入按 (name, timestamp) 幂等 upsert，
+ * 重复导入同一段数据不会产生重复文档。
+ * 表头符合标准布局时，待导入区间被内存映射并按行边界切片，由转换线程池并行直接从字节解析；
+ * 否则用 commons-csv 顺序解析，转换线程池用预编译的表头映射把行转成 BSON。
+ * 两条路径共用写入线程池，以无序 bulkWrite 批量落库，解析最多领先写入 {@code queue-capacity} 个批次。
+ */
 @Service
-public class CsvImportService {
+public class CsvImportService implements MeterBinder {
+
+    private static final String COLLECTION = "stock_data";
+    private static final long FINGERPRINT_BYTES = 64 * 1024;
+    private static final long CHECKPOINT_INTERVAL_NANOS = 5_000_000_000L;
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
 
     @Autowired
     private StockDataRepository stockDataRepository;
 
+    @Autowired
+    private ImportCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private StockIndexService stockIndexService;
+
     @Autowired
     private MongoTemplate mongoTemplate;
 
-    public void importCsvData(String filePath) {
+    // 每批落库后通知，用于维护预聚合等派生数据
+    @Autowired(required = false)
+    private List<IngestListener> ingestListeners = List.of();
+
+    // 每批写入的文档数
+    @Value("${stock.import.batch-size:1000}")
+    private int batchSize;
+
+    // 行转换线程数，0 表示使用 CPU 核数
+    @Value("${stock.import.worker-threads:0}")
+    private int workerThreads;
+
+    // 并发写入 MongoDB 的线程数
+    @Value("${stock.import.writer-threads:4}")
+    private int writerThreads;
+
+    // 解析最多领先写入阶段的批次数
+    @Value("${stock.import.queue-capacity:16}")
+    private int queueCapacity;
+
+    // 表头符合标准布局时使用内存映射快速解析
+    @Value("${stock.import.fast-path:true}")
+    private boolean fastPath;
+
+    // 累计写入行数与错误行数，行/秒由监控系统按速率计算
+    private final AtomicLong importedRows = new AtomicLong();
+    private final AtomicLong importErrors = new AtomicLong();
+    private volatile Timer batchWriteTimer;
+    private volatile Timer importTimer;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("stock.import.rows", importedRows, AtomicLong::get)
+                .description("CSV 导入写入的行数").register(registry);
+        FunctionCounter.builder("stock.import.errors", importErrors, AtomicLong::get)
+                .description("CSV 导入中无法解析的行数").register(registry);
+        batchWriteTimer = Timer.builder("stock.import.batch.write")
+                .description("每批 bulkWrite 及导入后处理的耗时").register(registry);
+        importTimer = Timer.builder("stock.import.duration")
+                .description("单个 CSV 文件的导入耗时").register(registry);
+    }
+
+    public CsvImportResult importCsvData(String filePath) {
+        return importCsvData(filePath, new ImportProgress(filePath));
+    }
+
+    public CsvImportResult importCsvData(String filePath, ImportProgress progress) {
         System.out.println("开始导入CSV文件: " + filePath);
-        
-        try (Reader reader = new FileReader(filePath);
-             // 使用更宽松的CSV格式，处理不一致的分隔符
+        Path path = Path.of(filePath).toAbsolutePath().normalize();
+        stockIndexService.ensureIndexes();
+
+        try (StockCsvFastReader reader = StockCsvFastReader.open(path)) {
+            long end = reader.completeLinesEnd();
+            long start = reader.dataStart();
+
+            ImportCheckpoint checkpoint = checkpointRepository.findById(path.toString()).orElse(null);
+            if (checkpoint != null && isSameFile(reader, checkpoint, end)) {
+                start = Math.max(start, checkpoint.getByteOffset());
+            } else {
+                if (checkpoint != null) {
+                    System.out.println("CSV文件已被替换，重新全量导入: " + path);
+                }
+                checkpoint = new ImportCheckpoint();
+                checkpoint.setPath(path.toString());
+                checkpoint.setFingerprintLength(Math.min(reader.size(), FINGERPRINT_BYTES));
+                checkpoint.setFingerprint(reader.headFingerprint(checkpoint.getFingerprintLength()));
+            }
+
+            if (start >= end) {
+                String message = "文件未变化，已导入至字节 " + start + "，跳过";
+                System.out.println(message + ": " + path);
+                progress.skip(message);
+                return new CsvImportResult(filePath, 0, 0, 0);
+            }
+
+            progress.start(start, end);
+            System.out.println((start > reader.dataStart() ? "从检查点续导" : "全量导入")
+                    + ": 字节 " + start + " -> " + end + " / " + reader.size());
+            Checkpointer checkpointer = new Checkpointer(checkpoint);
+            CsvImportResult result;
+            if (fastPath && reader.supportsLayout()) {
+                result = importFast(filePath, reader, start, end, progress, checkpointer);
+            } else {
+                System.out.println("CSV文件头不是标准布局，使用 commons-csv 解析: " + reader.headerNames());
+                result = importWithCommonsCsv(filePath, reader, start, end, progress, checkpointer);
+            }
+            progress.complete(result);
+            return result;
+        } catch (IOException e) {
+            throw new RuntimeException("CSV数据导入失败: " + e.getMessage(), e);
+        }
+    }
+
+    // 指纹一致且检查点位置仍在文件内，说明文件只被追加过
+    private boolean isSameFile(StockCsvFastReader reader, ImportCheckpoint checkpoint, long end) throws IOException {
+        return checkpoint.getFingerprint() != null
+                && checkpoint.getFingerprintLength() <= reader.size()
+                && checkpoint.getByteOffset() <= end
+                && checkpoint.getFingerprint().equals(reader.headFingerprint(checkpoint.getFingerprintLength()));
+    }
+
+    private CsvImportResult importFast(String filePath, StockCsvFastReader reader, long start, long end,
+                                       ImportProgress progress, Checkpointer checkpointer) {
+        Pipeline pipeline = new Pipeline(progress, checkpointer);
+        try {
+            List<StockCsvFastReader.Chunk> chunks = reader.split(start, end, pipeline.parallelism());
+            System.out.println("CSV文件头: " + reader.headerNames() + ", 并行解析分片数: " + chunks.size());
+
+            ChunkCommitter committer = new ChunkCommitter(chunks, checkpointer);
+            AtomicLong recordCount = new AtomicLong();
+            List<CompletableFuture<Void>> parsers = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                int index = i;
+                parsers.add(CompletableFuture.runAsync(
+                        () -> parseChunk(reader, index, committer, pipeline, recordCount), pipeline.mapPool));
+            }
+            try {
+                CompletableFuture.allOf(parsers.toArray(CompletableFuture[]::new)).join();
+            } catch (CompletionException e) {
+                pipeline.fail(e.getCause());
+            }
+
+            CsvImportResult result = finish(pipeline, filePath, recordCount.get());
+            checkpointer.advance(end, 0, true);
+            return result;
+        } catch (Exception e) {
+            System.err.println("CSV数据导入失败: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("CSV数据导入失败: " + e.getMessage(), e);
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    // 解析单个分片；分片内全部批次写入成功后才会推进检查点
+    private void parseChunk(StockCsvFastReader reader, int index, ChunkCommitter committer,
+                            Pipeline pipeline, AtomicLong recordCount) {
+        StockCsvFastReader.Chunk chunk = committer.chunk(index);
+        // 快速路径无法识别的行（引号、列数不符、非常规数值/时间）交给 commons-csv，
+        // 每攒满 batchSize 行提交一批，与快速路径的批次一样受写入队列的背压约束
+        List<String> malformed = new ArrayList<>();
+        AtomicLong malformedCount = new AtomicLong();
+        try {
+            reader.parse(chunk, batchSize, new StockCsvFastReader.Handler() {
+                @Override
+                public void onBatch(StockTickBatch batch) {
+                    recordCount.addAndGet(batch.size());
+                    committer.submit(index, pipeline, batch.toDocuments());
+                }
+
+                @Override
+                public void onMalformedLine(String line) {
+                    malformed.add(line);
+                    if (malformed.size() >= batchSize) {
+                        submitMalformedLines(reader, index, committer, pipeline, recordCount, malformed);
+                        malformedCount.addAndGet(batchSize);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        malformedCount.addAndGet(malformed.size());
+        submitMalformedLines(reader, index, committer, pipeline, recordCount, malformed);
+        if (malformedCount.get() > 0) {
+            System.out.println("分片 " + index + " 中有 " + malformedCount.get() + " 行改用 commons-csv 解析");
+        }
+        pipeline.progress.addBytes(chunk.end() - chunk.start());
+        committer.release(index);
+    }
+
+    private void submitMalformedLines(StockCsvFastReader reader, int index, ChunkCommitter committer,
+                                      Pipeline pipeline, AtomicLong recordCount, List<String> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        recordCount.addAndGet(lines.size());
+        committer.submit(index, pipeline, parseMalformedLines(reader.headerNames(), lines, pipeline));
+        lines.clear();
+    }
+
+    private List<Document> parseMalformedLines(List<String> headerNames, List<String> lines, Pipeline pipeline) {
+        CSVFormat format = CSVFormat.DEFAULT
+                .withHeader(headerNames.toArray(String[]::new))
+                .withIgnoreSurroundingSpaces()
+                .withTrim();
+        List<String[]> rows = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            try (CSVParser parser = CSVParser.parse(line, format)) {
+                for (CSVRecord record : parser) {
+                    rows.add(values(record));
+                }
+            } catch (Exception e) {
+                pipeline.error();
+                System.out.println("问题记录内容: " + line + " (" + e.getMessage() + ")");
+            }
+        }
+        return pipeline.mapRows(new CsvRowMapper(headerNames), rows, 0);
+    }
+
+    private CsvImportResult importWithCommonsCsv(String filePath, StockCsvFastReader source, long start, long end,
+                                                 ImportProgress progress, Checkpointer checkpointer) {
+        Pipeline pipeline = new Pipeline(progress, checkpointer);
+        InputStream in = new FilterInputStream(source.newInputStream(start, end)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    progress.addBytes(n);
+                }
+                return n;
+            }
+        };
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+             // 使用更宽松的CSV格式，处理不一致的分隔符；表头取自文件首行，数据从检查点位置开始
              CSVParser csvParser = CSVParser.parse(reader, CSVFormat.DEFAULT
-                 .withFirstRecordAsHeader()
+                 .withHeader(source.headerNames().toArray(String[]::new))
                  .withIgnoreSurroundingSpaces()
                  .withTrim())) {
 
             System.out.println("CSV文件头: " + csvParser.getHeaderMap().keySet());
-            
-            List<Document> docs = new ArrayList<>();
-            int recordCount = 0;
-            int errorCount = 0;
-            
+            CsvRowMapper mapper = new CsvRowMapper(csvParser.getHeaderNames());
+
+            List<String[]> rows = new ArrayList<>(batchSize);
+            long recordCount = 0;
             for (CSVRecord record : csvParser) {
                 recordCount++;
-                
-                try {
-                    // 调试：打印有问题的记录
-                    if (recordCount <= 5) {
-                        System.out.println("记录 " + recordCount + ": " + record.toString());
-                    }
-
-                    // 构建 BSON Document 并尽量保留 CSV 的列名
-                    // 为兼容不同 CSV 的列名变体，先建立一个简易的列名归一化表
-                    java.util.Map<String, String> normalize = new java.util.HashMap<>();
-                    normalize.put("chg_", "chg");
-                    normalize.put("chg_%", "chgPercent");
-                    normalize.put("chg%", "chgPercent");
-                    normalize.put("chg_chg_%", "chgPercent");
-                    normalize.put("chg", "chg");
-                    normalize.put("chgpercent", "chgPercent");
-                    normalize.put("vol_", "vol");
-                    normalize.put("vol", "vol");
-
-                    Document doc = new Document();
-                    for (String header : csvParser.getHeaderNames()) {
-                        String headerKey = header == null ? "" : header.trim();
-                        String headerLower = headerKey.toLowerCase();
-                        String normalized = normalize.getOrDefault(headerLower, headerKey);
-                        String raw = null;
-                        try {
-                            raw = record.get(header);
-                        } catch (IllegalArgumentException e) {
-                            raw = null;
-                        }
-
-                        if (raw == null) {
-                            doc.put(normalized, null);
-                            continue;
-                        }
-
-                        String value = raw.trim();
-                        if (value.isEmpty()) {
-                            doc.put(header, null);
-                            continue;
-                        }
-
-                        if (headerLower.equals("timestamp")) {
-                            String cleaned = value.replace('@', '0').replaceAll("[^0-9\\-:/\\s]", "");
-                            cleaned = cleanTimestamp(cleaned);
-                            LocalDateTime ldt = parseTimestamp(cleaned);
-                            java.time.Instant instant = ldt.atZone(java.time.ZoneId.systemDefault()).toInstant();
-                            String iso = java.time.format.DateTimeFormatter.ISO_INSTANT.format(instant);
-                            doc.put(normalized, java.util.Date.from(instant));
-                            doc.put(normalized + "_iso", iso);
-                            continue;
-                        }
-
-                        if (value.matches("^-?\\d+$")) {
-                            try {
-                                long lv = Long.parseLong(value);
-                                doc.put(normalized, lv);
-                                continue;
-                            } catch (NumberFormatException ignored) {
-                                // fallthrough
-                            }
-                        }
-
-                        if (value.matches("^-?\\d+\\.\\d+$")) {
-                            try {
-                                double dv = Double.parseDouble(value);
-                                doc.put(normalized, dv);
-                                continue;
-                            } catch (NumberFormatException ignored) {
-                                // fallthrough
-                            }
-                        }
-
-                        doc.put(normalized, value);
-                    }
-
-                    docs.add(doc);
-
-                    // 打印前5个将要插入的 Document
-                    if (recordCount <= 5) {
-                        try {
-                            System.out.println("[DEBUG] 将插入的 Document 示例: " + doc.toJson());
-                        } catch (Exception ex) {
-                            System.out.println("[DEBUG] Document toJson 打印失败，使用 toString: " + doc.toString());
-                        }
-                    }
+                // 调试：打印前几条记录
+                if (recordCount <= 5) {
+                    System.out.println("记录 " + recordCount + ": " + record.toString());
+                }
 
-                    // 分批插入到 MongoDB
-                    if (docs.size() >= 1000) {
-                        for (Document d : docs) {
-                            mongoTemplate.insert(d, "stock_data");
-                        }
-                        System.out.println("已导入 " + recordCount + " 条记录...");
-                        docs.clear();
+                rows.add(values(record));
+                if (rows.size() >= batchSize) {
+                    if (!pipeline.submit(mapper, rows, recordCount - rows.size() + 1)) {
+                        break; // 下游已失败，停止解析
                     }
-
-                } catch (Exception e) {
-                    errorCount++;
-                    System.out.println("解析记录 " + recordCount + " 时出错: " + e.getMessage());
-                    System.out.println("问题记录内容: " + record.toString());
-                    // 继续处理下一条记录，不中断整个导入过程
-                    continue;
+                    rows = new ArrayList<>(batchSize);
                 }
             }
-            
-            // 保存剩余数据
-            if (!docs.isEmpty()) {
-                for (Document d : docs) {
-                    mongoTemplate.insert(d, "stock_data");
-                }
+
+            // 提交剩余数据
+            if (!rows.isEmpty()) {
+                pipeline.submit(mapper, rows, recordCount - rows.size() + 1);
             }
-            
-            System.out.println("CSV数据导入完成！总共处理记录数: " + recordCount + ", 错误记录数: " + errorCount);
-            
+
+            // 顺序解析的批次乱序完成，只在全部写入成功后推进检查点
+            CsvImportResult result = finish(pipeline, filePath, recordCount);
+            checkpointer.advance(end, recordCount, true);
+            return result;
+
         } catch (Exception e) {
             System.err.println("CSV数据导入失败: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("CSV数据导入失败: " + e.getMessage(), e);
+        } finally {
+            pipeline.shutdown();
         }
     }
-    
-    // 清理时间字符串
-    private String cleanTimestamp(String timestamp) {
-        if (timestamp == null || timestamp.trim().isEmpty()) {
-            return "2025-01-01 00:00:00"; // 默认时间
-        }
-        
-        // 替换非法字符
-        timestamp = timestamp.replace('@', '0')
-                           .replace('＠', '0') // 全角@
-                           .replaceAll("[^0-9\\-:\\s]", "");
-        
-        // 修复无效的小时数（大于23）
-        String[] parts = timestamp.split(" ");
-        if (parts.length >= 2) {
-            String timePart = parts[1];
-            String[] timeParts = timePart.split(":");
-            if (timeParts.length >= 1) {
-                try {
-                    int hour = Integer.parseInt(timeParts[0]);
-                    if (hour > 23) {
-                        timeParts[0] = "23"; // 将无效小时改为23
+
+    private CsvImportResult finish(Pipeline pipeline, String filePath, long recordCount) throws InterruptedException {
+        CsvImportResult result = pipeline.await(filePath, recordCount);
+        Timer timer = importTimer;
+        if (timer != null) {
+            timer.record(result.elapsedMillis(), TimeUnit.MILLISECONDS);
+        }
+        System.out.printf("CSV数据导入完成！总共处理记录数: %d, 错误记录数: %d, 耗时: %d ms, %.0f 行/秒%n",
+                result.recordCount(), result.errorCount(), result.elapsedMillis(), result.rowsPerSecond());
+        return result;
+    }
+
+    private void writeBatch(List<Document> docs) {
+        if (docs.isEmpty()) {
+            return;
+        }
+        // 按 (name, timestamp) 幂等 upsert；无序写入让服务端并行应用，单条失败不阻塞同批其余文档
+        List<WriteModel<Document>> models = new ArrayList<>(docs.size());
+        for (Document doc : docs) {
+            models.add(new ReplaceOneModel<>(
+                    Filters.and(Filters.eq("name", doc.get("name")), Filters.eq("timestamp", doc.get("timestamp"))),
+                    doc, UPSERT));
+        }
+        mongoTemplate.getCollection(COLLECTION).bulkWrite(models, new BulkWriteOptions().ordered(false));
+        for (IngestListener listener : ingestListeners) {
+            try {
+                listener.onIngested(docs);
+            } catch (RuntimeException e) {
+                // 派生数据可通过重建恢复，不让它中断导入
+                System.out.println("导入后处理失败 (" + listener.getClass().getSimpleName() + "): " + e.getMessage());
+            }
+        }
+    }
+
+    private static String[] values(CSVRecord record) {
+        String[] values = new String[record.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = record.get(i);
+        }
+        return values;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * 检查点持久化：记录已完整导入的字节位置，批量导入过程中最多每 5 秒落库一次。
+     */
+    private class Checkpointer {
+        private final ImportCheckpoint checkpoint;
+        private final AtomicLong maxTimestamp = new AtomicLong(Long.MIN_VALUE);
+        private long lastSaveNanos = System.nanoTime();
+
+        Checkpointer(ImportCheckpoint checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
+        void observe(List<Document> docs) {
+            long max = Long.MIN_VALUE;
+            for (Document doc : docs) {
+                if (doc.get("timestamp") instanceof Date date) {
+                    max = Math.max(max, date.getTime());
+                }
+            }
+            maxTimestamp.accumulateAndGet(max, Math::max);
+        }
+
+        synchronized void advance(long offset, long records, boolean force) {
+            if (offset > checkpoint.getByteOffset()) {
+                checkpoint.setByteOffset(offset);
+                checkpoint.setRecordCount(checkpoint.getRecordCount() + records);
+            } else if (!force) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (force || now - lastSaveNanos >= CHECKPOINT_INTERVAL_NANOS) {
+                long max = maxTimestamp.get();
+                if (max != Long.MIN_VALUE) {
+                    LocalDateTime observed = LocalDateTime.ofInstant(Instant.ofEpochMilli(max), ZoneId.systemDefault());
+                    if (checkpoint.getLastTimestamp() == null || observed.isAfter(checkpoint.getLastTimestamp())) {
+                        checkpoint.setLastTimestamp(observed);
                     }
-                    timePart = String.join(":", timeParts);
-                    parts[1] = timePart;
-                    timestamp = parts[0] + " " + parts[1];
-                } catch (NumberFormatException e) {
-                    // 忽略解析错误
                 }
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                checkpointRepository.save(checkpoint);
+                lastSaveNanos = now;
             }
         }
-        
-        return timestamp;
     }
-    
-    // 解析时间
-    private LocalDateTime parseTimestamp(String timestampStr) {
-        try {
-            // 尝试多种时间格式
-            DateTimeFormatter[] formatters = {
-                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),
-                DateTimeFormatter.ofPattern("yyyy-M-d H:mm:ss"),
-                DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss"),
-                DateTimeFormatter.ISO_LOCAL_DATE_TIME
-            };
-            
-            for (DateTimeFormatter formatter : formatters) {
+
+    /**
+     * 并行分片的提交顺序控制：分片的解析和全部批次写入都完成后标记为完成，
+     * 检查点只推进到从头开始连续完成的最后一个分片末尾，崩溃后续导不会漏行。
+     */
+    private static class ChunkCommitter {
+        private final List<StockCsvFastReader.Chunk> chunks;
+        private final Checkpointer checkpointer;
+        private final AtomicInteger[] outstanding;
+        private final long[] rows;
+        private final boolean[] done;
+        private int committed;
+
+        ChunkCommitter(List<StockCsvFastReader.Chunk> chunks, Checkpointer checkpointer) {
+            this.chunks = chunks;
+            this.checkpointer = checkpointer;
+            this.outstanding = new AtomicInteger[chunks.size()];
+            this.rows = new long[chunks.size()];
+            this.done = new boolean[chunks.size()];
+            for (int i = 0; i < outstanding.length; i++) {
+                // 初始计数 1 代表分片本身仍在解析
+                outstanding[i] = new AtomicInteger(1);
+            }
+        }
+
+        StockCsvFastReader.Chunk chunk(int index) {
+            return chunks.get(index);
+        }
+
+        void submit(int index, Pipeline pipeline, List<Document> docs) {
+            outstanding[index].incrementAndGet();
+            synchronized (this) {
+                rows[index] += docs.size();
+            }
+            if (!pipeline.submitDocuments(docs, () -> release(index))) {
+                throw new CancellationException("写入阶段已失败，停止解析");
+            }
+        }
+
+        void release(int index) {
+            if (outstanding[index].decrementAndGet() == 0) {
+                complete(index);
+            }
+        }
+
+        private synchronized void complete(int index) {
+            done[index] = true;
+            int before = committed;
+            long committedRows = 0;
+            while (committed < done.length && done[committed]) {
+                committedRows += rows[committed];
+                committed++;
+            }
+            if (committed > before) {
+                checkpointer.advance(chunks.get(committed - 1).end(), committedRows, committed == done.length);
+            }
+        }
+    }
+
+    /**
+     * 单次导入的转换/写入阶段。信号量充当解析与写入之间的有界队列。
+     */
+    private class Pipeline {
+        private final long startNanos = System.nanoTime();
+        private final ImportProgress progress;
+        private final Checkpointer checkpointer;
+        private final int parallelism;
+        private final ExecutorService mapPool;
+        private final ExecutorService writePool;
+        private final Semaphore pending = new Semaphore(queueCapacity);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final AtomicLong errorCount = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private final long reportEvery = (long) batchSize * 50;
+
+        Pipeline(ImportProgress progress, Checkpointer checkpointer) {
+            this.progress = progress;
+            this.checkpointer = checkpointer;
+            this.parallelism = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+            this.mapPool = Executors.newFixedThreadPool(parallelism, namedThreads("csv-map-"));
+            this.writePool = Executors.newFixedThreadPool(Math.max(1, writerThreads), namedThreads("csv-write-"));
+        }
+
+        int parallelism() {
+            return parallelism;
+        }
+
+        void fail(Throwable ex) {
+            failure.compareAndSet(null, ex);
+        }
+
+        void error() {
+            errorCount.incrementAndGet();
+            importErrors.incrementAndGet();
+        }
+
+        // 提交一批原始行：先在转换线程池映射为文档，再交给写入线程池
+        boolean submit(CsvRowMapper mapper, List<String[]> rows, long firstRecordNumber) throws InterruptedException {
+            if (failure.get() != null) {
+                return false;
+            }
+            pending.acquire();
+            CompletableFuture
+                    .supplyAsync(() -> mapRows(mapper, rows, firstRecordNumber), mapPool)
+                    .thenAcceptAsync(this::write, writePool)
+                    .whenComplete((v, ex) -> complete(ex, null));
+            return true;
+        }
+
+        // 提交一批已转换好的文档，直接交给写入线程池；写入成功后回调 onWritten
+        boolean submitDocuments(List<Document> docs, Runnable onWritten) {
+            if (failure.get() != null) {
+                return false;
+            }
+            try {
+                pending.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+                return false;
+            }
+            CompletableFuture
+                    .runAsync(() -> write(docs), writePool)
+                    .whenComplete((v, ex) -> complete(ex, onWritten));
+            return true;
+        }
+
+        private void complete(Throwable ex, Runnable onWritten) {
+            try {
+                if (ex != null) {
+                    fail(ex);
+                } else if (onWritten != null) {
+                    onWritten.run();
+                }
+            } catch (RuntimeException e) {
+                fail(e);
+            } finally {
+                pending.release();
+            }
+        }
+
+        // firstRecordNumber 为 0 表示行号未知（快速路径兜底行）
+        List<Document> mapRows(CsvRowMapper mapper, List<String[]> rows, long firstRecordNumber) {
+            List<Document> docs = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                long recordNumber = firstRecordNumber > 0 ? firstRecordNumber + i : 0;
+                String[] values = rows.get(i);
                 try {
-                    return LocalDateTime.parse(timestampStr, formatter);
+                    Document doc = mapper.map(values);
+                    docs.add(doc);
+                    // 打印前5个将要插入的 Document
+                    if (recordNumber > 0 && recordNumber <= 5) {
+                        System.out.println("[DEBUG] 将插入的 Document 示例: " + doc.toJson());
+                    }
                 } catch (Exception e) {
-                    // 尝试下一种格式
+                    // 继续处理下一条记录，不中断整个导入过程
+                    error();
+                    System.out.println("解析记录 " + (recordNumber > 0 ? recordNumber + " " : "") + "时出错: " + e.getMessage());
+                    System.out.println("问题记录内容: " + String.join(",", values));
                 }
             }
-            
-            // 如果所有格式都失败，使用默认时间
-            System.out.println("无法解析时间: " + timestampStr + ", 使用默认时间");
-            return LocalDateTime.now();
-            
-        } catch (Exception e) {
-            System.out.println("时间解析失败: " + timestampStr + ", 使用默认时间");
-            return LocalDateTime.now();
+            return docs;
+        }
+
+        private void write(List<Document> docs) {
+            long start = System.nanoTime();
+            writeBatch(docs);
+            Timer timer = batchWriteTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            importedRows.addAndGet(docs.size());
+            checkpointer.observe(docs);
+            progress.addRows(docs.size());
+            long before = written.getAndAdd(docs.size());
+            long after = before + docs.size();
+            if (before / reportEvery != after / reportEvery) {
+                double seconds = (System.nanoTime() - startNanos) / 1e9;
+                System.out.printf("已导入 %d 条记录... (%.0f 行/秒)%n", after, after / seconds);
+            }
+        }
+
+        CsvImportResult await(String filePath, long recordCount) throws InterruptedException {
+            // 取回全部许可即表示所有在途批次都已结束
+            pending.acquire(queueCapacity);
+            pending.release(queueCapacity);
+            Throwable ex = failure.get();
+            if (ex != null) {
+                throw new RuntimeException("批量写入失败: " + ex.getMessage(), ex);
+            }
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+            return new CsvImportResult(filePath, recordCount, errorCount.get(), elapsedMillis);
+        }
+
+        void shutdown() {
+            mapPool.shutdownNow();
+            writePool.shutdownNow();
         }
     }
-}
\ No newline at end of file
+}
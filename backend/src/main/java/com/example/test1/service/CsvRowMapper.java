@@ -0,0 +1,245 @@
+package com.example.test1.service;
+
+import com.example.test1.model.StockData;
+import org.bson.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 按 CSV 表头预先编译好的行映射器。
+ * 列名归一化、时间列识别只在构造时做一次，之后每行只按列下标取值转换，
+ * 避免在每个单元格上重复建表和跑正则。
+ */
+class CsvRowMapper {
+
+    // 为兼容不同 CSV 的列名变体，建立列名归一化表
+    private static final Map<String, String> NORMALIZE = Map.of(
+            "chg_", "chg",
+            "chg_%", "chgPercent",
+            "chg%", "chgPercent",
+            "chg_chg_%", "chgPercent",
+            "chg", "chg",
+            "chgpercent", "chgPercent",
+            "vol_", "vol",
+            "vol", "vol");
+
+    private static final Pattern TIMESTAMP_NOISE = Pattern.compile("[^0-9\\-:/\\s]");
+    private static final Pattern TIMESTAMP_ILLEGAL = Pattern.compile("[^0-9\\-:\\s]");
+
+    // 尝试多种时间格式
+    private static final DateTimeFormatter[] TIMESTAMP_FORMATTERS = {
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),
+        DateTimeFormatter.ofPattern("yyyy-M-d H:mm:ss"),
+        DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss"),
+        DateTimeFormatter.ISO_LOCAL_DATE_TIME
+    };
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final String[] keys;
+    private final boolean[] timestampColumn;
+    private final boolean[] priceColumn;
+
+    CsvRowMapper(List<String> headerNames) {
+        int size = headerNames.size();
+        this.keys = new String[size];
+        this.timestampColumn = new boolean[size];
+        this.priceColumn = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            String header = headerNames.get(i);
+            keys[i] = normalizeHeader(header);
+            timestampColumn[i] = keys[i].equalsIgnoreCase("timestamp");
+            priceColumn[i] = StockDataReadConverter.PRICE_FIELDS.contains(keys[i]);
+        }
+    }
+
+    static String normalizeHeader(String header) {
+        String headerKey = header == null ? "" : header.trim();
+        return NORMALIZE.getOrDefault(headerKey.toLowerCase(), headerKey);
+    }
+
+    int columnCount() {
+        return keys.length;
+    }
+
+    // 将一行原始值转换为 BSON Document，列顺序与构造时的表头一致，数值列按 StockData.SCHEMA_VERSION 的形态保存
+    Document map(String[] values) {
+        Document doc = new Document();
+        for (int i = 0; i < keys.length; i++) {
+            String key = keys[i];
+            String raw = i < values.length ? values[i] : null;
+            if (raw == null) {
+                doc.put(key, null);
+                continue;
+            }
+
+            String value = raw.trim();
+            if (value.isEmpty()) {
+                doc.put(key, null);
+                continue;
+            }
+
+            if (timestampColumn[i]) {
+                String cleaned = TIMESTAMP_NOISE.matcher(value.replace('@', '0')).replaceAll("");
+                Instant instant = parseTimestamp(cleanTimestamp(cleaned)).atZone(ZONE).toInstant();
+                doc.put(key, java.util.Date.from(instant));
+                continue;
+            }
+
+            // 价格列统一为 double（整数形式的价格不再存为 long），"-" 等无法识别的值存为 null
+            if (priceColumn[i]) {
+                doc.put(key, isInteger(value) || isDecimal(value) ? Double.valueOf(value) : null);
+                continue;
+            }
+
+            // 涨跌幅与成交量带单位（1.23%、12.5M），与快速解析路径一样统一存为数值
+            if (key.equals("chgPercent") || key.equals("vol")) {
+                Object number;
+                if (key.equals("vol")) {
+                    number = parseVolume(value);
+                } else {
+                    number = parsePercent(value);
+                }
+                if (number != null || value.equals("-")) {
+                    doc.put(key, number);
+                    continue;
+                }
+            }
+
+            if (isInteger(value)) {
+                try {
+                    doc.put(key, Long.parseLong(value));
+                    continue;
+                } catch (NumberFormatException ignored) {
+                    // 超出 long 范围，按字符串保存
+                }
+            }
+
+            if (isDecimal(value)) {
+                try {
+                    doc.put(key, Double.parseDouble(value));
+                    continue;
+                } catch (NumberFormatException ignored) {
+                    // fallthrough
+                }
+            }
+
+            doc.put(key, value);
+        }
+        if (doc.get("name") instanceof String name) {
+            doc.put("nameKey", StockData.nameKeyOf(name));
+        }
+        doc.put("schemaVersion", StockData.SCHEMA_VERSION);
+        return doc;
+    }
+
+    // 1.23% / +1.23% -> 1.23，无法识别时返回 null
+    static Double parsePercent(String value) {
+        String number = value.endsWith("%") ? value.substring(0, value.length() - 1) : value;
+        if (number.startsWith("+")) {
+            number = number.substring(1);
+        }
+        if (number.isEmpty() || !(isInteger(number) || isDecimal(number))) {
+            return null;
+        }
+        return Double.parseDouble(number);
+    }
+
+    // 12345 / 12.5K / 3.2M / 1.1B -> long，"-" 或无法识别时返回 null
+    static Long parseVolume(String value) {
+        double multiplier = switch (Character.toUpperCase(value.charAt(value.length() - 1))) {
+            case 'K' -> 1e3;
+            case 'M' -> 1e6;
+            case 'B' -> 1e9;
+            default -> 1;
+        };
+        String number = multiplier == 1 ? value : value.substring(0, value.length() - 1);
+        if (number.isEmpty() || !(isInteger(number) || isDecimal(number))) {
+            return null;
+        }
+        return Math.round(Double.parseDouble(number) * multiplier);
+    }
+
+    // 等价于 ^-?\d+$
+    static boolean isInteger(String value) {
+        int start = value.charAt(0) == '-' ? 1 : 0;
+        if (start == value.length()) {
+            return false;
+        }
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 等价于 ^-?\d+\.\d+$
+    static boolean isDecimal(String value) {
+        int start = value.charAt(0) == '-' ? 1 : 0;
+        int dot = -1;
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                if (dot >= 0) {
+                    return false;
+                }
+                dot = i;
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return dot > start && dot < value.length() - 1;
+    }
+
+    // 清理时间字符串
+    static String cleanTimestamp(String timestamp) {
+        if (timestamp == null || timestamp.trim().isEmpty()) {
+            return "2025-01-01 00:00:00"; // 默认时间
+        }
+
+        // 替换非法字符
+        timestamp = TIMESTAMP_ILLEGAL.matcher(timestamp.replace('@', '0').replace('＠', '0')).replaceAll("");
+
+        // 修复无效的小时数（大于23）
+        String[] parts = timestamp.split(" ");
+        if (parts.length >= 2) {
+            String[] timeParts = parts[1].split(":");
+            if (timeParts.length >= 1) {
+                try {
+                    int hour = Integer.parseInt(timeParts[0]);
+                    if (hour > 23) {
+                        timeParts[0] = "23"; // 将无效小时改为23
+                    }
+                    timestamp = parts[0] + " " + String.join(":", timeParts);
+                } catch (NumberFormatException e) {
+                    // 忽略解析错误
+                }
+            }
+        }
+
+        return timestamp;
+    }
+
+    // 解析时间
+    static LocalDateTime parseTimestamp(String timestampStr) {
+        for (DateTimeFormatter formatter : TIMESTAMP_FORMATTERS) {
+            try {
+                return LocalDateTime.parse(timestampStr, formatter);
+            } catch (Exception e) {
+                // 尝试下一种格式
+            }
+        }
+
+        // 如果所有格式都失败，使用默认时间
+        System.out.println("无法解析时间: " + timestampStr + ", 使用默认时间");
+        return LocalDateTime.now();
+    }
+}
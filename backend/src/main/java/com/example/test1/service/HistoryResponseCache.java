@@ -0,0 +1,257 @@
+package com.example.test1.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 已收盘历史区间的 HTTP 响应缓存。
+ * 结束时间早于当天零点的查询结果不再变化：按规范化后的查询保存序列化好的 JSON 及其 gzip 压缩结果，
+ * 以内容摘要作为强 ETag；再次请求时直接返回缓存的字节，If-None-Match 命中时返回 304，都不访问 Mongo。
+ * 补录历史数据时经 {@link IngestListener} 删除时间范围和股票重叠的条目。
+ * 按总字节数限制大小，超出时淘汰最久未访问的条目。
+ */
+@Service
+public class HistoryResponseCache implements IngestListener, MeterBinder {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Value("${stock.http-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stock.http-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${stock.http-cache.max-age-seconds:86400}")
+    private long maxAgeSeconds;
+
+    // 小于该字节数的响应不压缩
+    @Value("${stock.http-cache.min-compress-bytes:1024}")
+    private int minCompressBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong invalidated = new AtomicLong();
+    // 每次有条目因补录失效时加一；查询前后不一致说明结果可能已过期，不放入缓存
+    private final AtomicLong generation = new AtomicLong();
+
+    private Lru lru;
+
+    @PostConstruct
+    void init() {
+        lru = new Lru(maxBytes);
+    }
+
+    // 结束时间早于当天零点（本地时区）的区间已收盘
+    public boolean cacheable(LocalDateTime endTime) {
+        return enabled && endTime.isBefore(LocalDate.now(ZONE).atStartOfDay());
+    }
+
+    public long maxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public Entry get(String key) {
+        Entry entry = lru.get(key);
+        (entry == null ? misses : hits).incrementAndGet();
+        return entry;
+    }
+
+    // nameKeys 为 null 表示包含所有股票；startGeneration 为查询前的 generation()，期间发生过失效时只返回不缓存
+    public Entry put(String key, Collection<String> nameKeys, LocalDateTime from, LocalDateTime to,
+                     byte[] json, long startGeneration) {
+        Entry entry = new Entry(etagOf(json), json, json.length >= minCompressBytes ? gzip(json) : null,
+                nameKeys == null ? null : Set.copyOf(nameKeys), toMillis(from), toMillis(to));
+        synchronized (lru) {
+            if (generation.get() == startGeneration) {
+                lru.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    public void recordNotModified() {
+        notModified.incrementAndGet();
+    }
+
+    @Override
+    public void onIngested(List<Document> docs) {
+        if (!enabled) {
+            return;
+        }
+        // 只关心写入已收盘日期的行；按股票汇总时间范围后一次遍历缓存
+        long today = toMillis(LocalDate.now(ZONE).atStartOfDay());
+        Map<String, long[]> ranges = new HashMap<>();
+        for (Document doc : docs) {
+            if (doc.get("nameKey") instanceof String nameKey && doc.getDate("timestamp") != null) {
+                long ts = doc.getDate("timestamp").getTime();
+                if (ts < today) {
+                    long[] range = ranges.computeIfAbsent(nameKey, k -> new long[]{ts, ts});
+                    range[0] = Math.min(range[0], ts);
+                    range[1] = Math.max(range[1], ts);
+                }
+            }
+        }
+        if (!ranges.isEmpty()) {
+            synchronized (lru) {
+                generation.incrementAndGet();
+                invalidated.addAndGet(lru.invalidate(ranges));
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("stock.cache.requests", hits, AtomicLong::get)
+                .tags("cache", "http-response", "result", "hit").register(registry);
+        FunctionCounter.builder("stock.cache.requests", misses, AtomicLong::get)
+                .tags("cache", "http-response", "result", "miss").register(registry);
+        FunctionCounter.builder("stock.cache.not.modified", notModified, AtomicLong::get)
+                .tag("cache", "http-response").register(registry);
+        FunctionCounter.builder("stock.cache.evictions", invalidated, AtomicLong::get)
+                .tag("cache", "http-response").register(registry);
+        Gauge.builder("stock.cache.size", this, c -> c.lru.bytes())
+                .tag("cache", "http-response").baseUnit("bytes").register(registry);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (lru) {
+            stats.put("entries", lru.size());
+            stats.put("bytes", lru.bytes());
+        }
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("notModified", notModified.get());
+        stats.put("invalidated", invalidated.get());
+        return stats;
+    }
+
+    // 内容的 SHA-256 前 16 字节，内容相同则 ETag 相同，重启后依然有效
+    static String etagOf(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 压缩后没有变小时不保存
+    static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.size() < json.length ? out.toByteArray() : null;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 缓存的一个响应。etag 为不带引号的内容摘要，gzip 为 null 表示不压缩；
+     * nameKeys 为 null 表示结果包含所有股票，[from, to] 为查询的时间范围（epoch 毫秒）。
+     */
+    public record Entry(String etag, byte[] json, byte[] gzip, Set<String> nameKeys, long from, long to) {
+
+        long bytes() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+
+        boolean overlaps(String nameKey, long[] range) {
+            return (nameKeys == null || nameKeys.contains(nameKey)) && range[0] <= to && range[1] >= from;
+        }
+    }
+
+    /**
+     * 按访问顺序淘汰的条目表，总字节数不超过 maxBytes；单个条目超过上限时不缓存。
+     */
+    static final class Lru {
+
+        private final long maxBytes;
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+
+        Lru(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized Entry get(String key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(String key, Entry entry) {
+            if (entry.bytes() > maxBytes) {
+                return;
+            }
+            Entry old = entries.put(key, entry);
+            bytes += entry.bytes() - (old == null ? 0 : old.bytes());
+            Iterator<Entry> it = entries.values().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                bytes -= it.next().bytes();
+                it.remove();
+            }
+        }
+
+        // nameKey -> [最早, 最晚] 写入时间；返回删除的条目数
+        synchronized int invalidate(Map<String, long[]> ranges) {
+            List<String> stale = new ArrayList<>();
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                for (Map.Entry<String, long[]> range : ranges.entrySet()) {
+                    if (e.getValue().overlaps(range.getKey(), range.getValue())) {
+                        stale.add(e.getKey());
+                        break;
+                    }
+                }
+            }
+            for (String key : stale) {
+                bytes -= entries.remove(key).bytes();
+            }
+            return stale.size();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.example.test1.service;
+
+import com.example.test1.model.StockData;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 最近行情的内存热缓存。
+ * 每只股票（nameKey）一个按时间排序的环形缓冲区，用原始类型数组按列保存最近 window-days 天的数据，
+ * 完全落在窗口内的范围查询直接二分查找返回，不访问 Mongo。
+ * 某只股票第一次被查询时从 Mongo 装载窗口，之后由导入和保存经 {@link IngestListener} 增量更新。
+ * 每只股票最多保留 rows-per-symbol 行（超出时淘汰最旧的行），最多缓存 max-symbols 只（淘汰最久未访问的）。
+ */
+@Service
+public class HotSeriesCache implements IngestListener, MeterBinder {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${stock.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stock.cache.window-days:3}")
+    private int windowDays;
+
+    @Value("${stock.cache.rows-per-symbol:10000}")
+    private int rowsPerSymbol;
+
+    @Value("${stock.cache.max-symbols:100}")
+    private int maxSymbols;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictedSymbols = new AtomicLong();
+
+    // 访问顺序，超出 max-symbols 时淘汰最久未访问的股票
+    private final Map<String, Series> series = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Series> eldest) {
+            if (size() > maxSymbols) {
+                evictedSymbols.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // 范围完全在缓存窗口内时返回按时间升序的结果，否则返回 null，由调用方查询 Mongo
+    public List<StockData> range(String nameKey, LocalDateTime from, LocalDateTime to) {
+        if (!enabled) {
+            return null;
+        }
+        List<StockData> rows = seriesFor(nameKey).range(toMillis(from), toMillis(to));
+        (rows == null ? misses : hits).incrementAndGet();
+        return rows;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("stock.cache.requests", hits, AtomicLong::get)
+                .tags("cache", "hot-series", "result", "hit").register(registry);
+        FunctionCounter.builder("stock.cache.requests", misses, AtomicLong::get)
+                .tags("cache", "hot-series", "result", "miss").register(registry);
+        FunctionCounter.builder("stock.cache.loads", loads, AtomicLong::get)
+                .tag("cache", "hot-series").register(registry);
+        FunctionCounter.builder("stock.cache.evictions", evictedSymbols, AtomicLong::get)
+                .tag("cache", "hot-series").register(registry);
+        Gauge.builder("stock.cache.hit.ratio", this, HotSeriesCache::hitRatio)
+                .tag("cache", "hot-series").register(registry);
+        Gauge.builder("stock.cache.size", this, HotSeriesCache::symbolCount)
+                .tag("cache", "hot-series").baseUnit("symbols").register(registry);
+    }
+
+    @Override
+    public void onIngested(List<Document> docs) {
+        if (!enabled) {
+            return;
+        }
+        // 只更新已缓存的股票；未缓存的股票等第一次查询时再装载
+        for (Document doc : docs) {
+            if (doc.get("nameKey") instanceof String nameKey && doc.getDate("timestamp") != null) {
+                Series target;
+                synchronized (series) {
+                    target = series.get(nameKey);
+                }
+                if (target != null) {
+                    target.upsert(doc);
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long rows = 0;
+        int symbols;
+        synchronized (series) {
+            symbols = series.size();
+            for (Series s : series.values()) {
+                rows += s.size();
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("symbols", symbols);
+        stats.put("rows", rows);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRate", hitRatio());
+        stats.put("loads", loads.get());
+        stats.put("evictedSymbols", evictedSymbols.get());
+        return stats;
+    }
+
+    private double hitRatio() {
+        long hit = hits.get();
+        long miss = misses.get();
+        return hit + miss == 0 ? 0.0 : (double) hit / (hit + miss);
+    }
+
+    private int symbolCount() {
+        synchronized (series) {
+            return series.size();
+        }
+    }
+
+    // 取出缓存的序列；第一次访问时由当前线程装载，装载完成前的并发查询按未命中处理
+    private Series seriesFor(String nameKey) {
+        Series target;
+        boolean created = false;
+        synchronized (series) {
+            target = series.get(nameKey);
+            if (target == null) {
+                target = new Series(rowsPerSymbol, windowDays * DAY_MILLIS);
+                series.put(nameKey, target);
+                created = true;
+            }
+        }
+        if (created) {
+            load(nameKey, target);
+        }
+        return target;
+    }
+
+    // 先放入缓存再查询，装载期间到达的写入不会丢失
+    private void load(String nameKey, Series target) {
+        try {
+            MongoCollection<Document> collection = mongoTemplate.getCollection(StockIndexService.COLLECTION);
+            Document latest = collection.find(Filters.eq("nameKey", nameKey))
+                    .sort(Sorts.descending("timestamp"))
+                    .projection(Projections.include("timestamp"))
+                    .first();
+            List<Document> docs = new ArrayList<>();
+            long windowStart = Long.MIN_VALUE;
+            if (latest != null) {
+                windowStart = latest.getDate("timestamp").getTime() - windowDays * DAY_MILLIS;
+                collection.find(Filters.and(Filters.eq("nameKey", nameKey), Filters.gte("timestamp", new Date(windowStart))))
+                        .sort(Sorts.descending("timestamp"))
+                        .projection(Projections.exclude("historicalPrices"))
+                        .limit(rowsPerSymbol)
+                        .into(docs);
+            }
+            target.load(docs, windowStart, docs.size() >= rowsPerSymbol);
+            loads.incrementAndGet();
+        } catch (RuntimeException e) {
+            synchronized (series) {
+                series.remove(nameKey, target);
+            }
+            throw e;
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 单只股票的列式环形缓冲区，按 timestamp 升序；逻辑下标 i 对应物理下标 (head + i) % length。
+     * coveredFrom 之后的数据保证完整，查询起点早于它时不能由缓存回答。
+     */
+    static final class Series {
+
+        private static final int INITIAL_CAPACITY = 256;
+
+        private final int limit;
+        private final long windowMillis;
+
+        private long[] timestamps;
+        private String[] names;
+        private double[] last;
+        private double[] high;
+        private double[] low;
+        private double[] chg;
+        private double[] chgPercent;
+        private long[] vol;
+        private String[] time;
+        private int head;
+        private int size;
+        // 装载完成前 ready 为 false，此时到达的写入照常保存但不回答查询
+        private long coveredFrom = Long.MIN_VALUE;
+        private boolean ready;
+
+        Series(int limit, long windowMillis) {
+            this.limit = limit;
+            this.windowMillis = windowMillis;
+            allocate(Math.min(INITIAL_CAPACITY, limit));
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        // docs 按时间降序；truncated 为 true 表示达到行数上限，最旧时间点上可能还有未装载的行
+        synchronized void load(List<Document> docs, long windowStart, boolean truncated) {
+            // 倒序插入，每行都追加在末尾，无需移动
+            for (int i = docs.size() - 1; i >= 0; i--) {
+                upsert(docs.get(i));
+            }
+            long oldest = docs.isEmpty() ? windowStart : docs.get(docs.size() - 1).getDate("timestamp").getTime();
+            coveredFrom = Math.max(coveredFrom, truncated ? oldest + 1 : windowStart);
+            ready = true;
+        }
+
+        synchronized List<StockData> range(long from, long to) {
+            if (!ready || from < coveredFrom) {
+                return null;
+            }
+            int lo = upperBound(from - 1);
+            int hi = upperBound(to);
+            List<StockData> rows = new ArrayList<>(Math.max(0, hi - lo));
+            for (int i = lo; i < hi; i++) {
+                rows.add(toStockData(physical(i)));
+            }
+            return rows;
+        }
+
+        synchronized void upsert(Document doc) {
+            long ts = doc.getDate("timestamp").getTime();
+            if (ts < coveredFrom) {
+                return;
+            }
+            String name = doc.getString("name");
+            int pos = upperBound(ts);
+            // (name, timestamp) 已存在时原地替换，与 stock_data 的 upsert 语义一致
+            for (int i = pos - 1; i >= 0 && timestamps[physical(i)] == ts; i--) {
+                if (name != null && name.equals(names[physical(i)])) {
+                    set(physical(i), doc, ts);
+                    return;
+                }
+            }
+            if (size == limit) {
+                if (pos == 0) {
+                    // 比缓冲区内所有行都旧，放不下
+                    coveredFrom = ts + 1;
+                    return;
+                }
+                evictOldest();
+                pos--;
+            } else if (size == timestamps.length) {
+                grow();
+            }
+            for (int i = size; i > pos; i--) {
+                move(physical(i - 1), physical(i));
+            }
+            set(physical(pos), doc, ts);
+            size++;
+
+            // 最新时间前移后，淘汰窗口之外的旧数据
+            long windowStart = timestamps[physical(size - 1)] - windowMillis;
+            while (size > 0 && timestamps[head] < windowStart) {
+                evictOldest();
+            }
+            coveredFrom = Math.max(coveredFrom, windowStart);
+        }
+
+        // 第一个 timestamp > ts 的逻辑下标
+        private int upperBound(long ts) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (timestamps[physical(mid)] <= ts) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private int physical(int index) {
+            int p = head + index;
+            return p >= timestamps.length ? p - timestamps.length : p;
+        }
+
+        private void evictOldest() {
+            coveredFrom = Math.max(coveredFrom, timestamps[head] + 1);
+            names[head] = null;
+            time[head] = null;
+            head = physical(1);
+            size--;
+        }
+
+        private void grow() {
+            int capacity = Math.min(limit, timestamps.length * 2);
+            long[] oldTimestamps = timestamps;
+            String[] oldNames = names;
+            double[] oldLast = last;
+            double[] oldHigh = high;
+            double[] oldLow = low;
+            double[] oldChg = chg;
+            double[] oldChgPercent = chgPercent;
+            long[] oldVol = vol;
+            String[] oldTime = time;
+            int oldHead = head;
+            allocate(capacity);
+            for (int i = 0; i < size; i++) {
+                int p = (oldHead + i) % oldTimestamps.length;
+                timestamps[i] = oldTimestamps[p];
+                names[i] = oldNames[p];
+                last[i] = oldLast[p];
+                high[i] = oldHigh[p];
+                low[i] = oldLow[p];
+                chg[i] = oldChg[p];
+                chgPercent[i] = oldChgPercent[p];
+                vol[i] = oldVol[p];
+                time[i] = oldTime[p];
+            }
+            head = 0;
+        }
+
+        private void allocate(int capacity) {
+            timestamps = new long[capacity];
+            names = new String[capacity];
+            last = new double[capacity];
+            high = new double[capacity];
+            low = new double[capacity];
+            chg = new double[capacity];
+            chgPercent = new double[capacity];
+            vol = new long[capacity];
+            time = new String[capacity];
+        }
+
+        private void move(int from, int to) {
+            timestamps[to] = timestamps[from];
+            names[to] = names[from];
+            last[to] = last[from];
+            high[to] = high[from];
+            low[to] = low[from];
+            chg[to] = chg[from];
+            chgPercent[to] = chgPercent[from];
+            vol[to] = vol[from];
+            time[to] = time[from];
+        }
+
+        // 迁移前的旧形态文档中数值列可能是字符串，统一转换
+        private void set(int p, Document doc, long ts) {
+            timestamps[p] = ts;
+            names[p] = doc.getString("name");
+            last[p] = number(doc.get("last"));
+            high[p] = number(doc.get("high"));
+            low[p] = number(doc.get("low"));
+            chg[p] = number(doc.get("chg"));
+            Double percent = CandleService.toPercent(doc.get("chgPercent"));
+            chgPercent[p] = percent == null ? Double.NaN : percent;
+            Long volume = CandleService.toLong(doc.get("vol"));
+            vol[p] = volume == null ? StockTickBatch.VOL_MISSING : volume;
+            time[p] = doc.get("time") == null ? null : doc.get("time").toString();
+        }
+
+        private static double number(Object value) {
+            Double parsed = CandleService.toDouble(value);
+            return parsed == null ? Double.NaN : parsed;
+        }
+
+        // 除 id 外与经 StockDataReadConverter 从 Mongo 读出的 StockData 一致：导入和批量写入按 (nameKey, timestamp) upsert，拿不到 _id
+        private StockData toStockData(int p) {
+            StockData data = new StockData();
+            data.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamps[p]), ZONE));
+            data.setName(names[p]);
+            data.setNameKey(StockData.nameKeyOf(names[p]));
+            data.setLast(boxed(last[p]));
+            data.setHigh(boxed(high[p]));
+            data.setLow(boxed(low[p]));
+            data.setChg(boxed(chg[p]));
+            data.setChgPercent(boxed(chgPercent[p]));
+            data.setVol(vol[p] == StockTickBatch.VOL_MISSING ? null : vol[p]);
+            data.setTime(time[p]);
+            return data;
+        }
+
+        private static Double boxed(double value) {
+            return Double.isNaN(value) ? null : value;
+        }
+    }
+}
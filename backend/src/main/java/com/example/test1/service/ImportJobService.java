@@ -0,0 +1,141 @@
+package com.example.test1.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 在后台单线程执行 CSV 导入、存储迁移以及预聚合和价格分桶的重建，启动流程不再等待导入完成。
+ */
+@Service
+public class ImportJobService {
+
+    @Autowired
+    private CsvImportService csvImportService;
+
+    @Autowired
+    private SymbolResolver symbolResolver;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private SchemaMigrationService schemaMigrationService;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "csv-import-job");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile ImportProgress current = new ImportProgress(null);
+
+    // 提交导入任务；已有任务在排队或运行时直接返回其进度
+    public synchronized ImportProgress submit(String filePath) {
+        if (current.isActive()) {
+            return current;
+        }
+        ImportProgress progress = new ImportProgress(filePath);
+        current = progress;
+        executor.submit(() -> {
+            try {
+                csvImportService.importCsvData(filePath, progress);
+                // 导入可能带来新股票名称
+                symbolResolver.refresh();
+            } catch (Exception e) {
+                System.out.println("从 " + filePath + " 导入失败: " + e.getMessage());
+                progress.fail(e.getMessage());
+            }
+        });
+        return progress;
+    }
+
+    // 重新导入上一次提交的文件，只会处理检查点之后新增的部分
+    public ImportProgress resubmit() {
+        String file = current.getFile();
+        return file == null ? current : submit(file);
+    }
+
+    // 重建预聚合K线；与导入共用同一线程，避免重建覆盖并发导入的增量合并
+    public void rebuildRollups() {
+        // 重建完成前 K 线接口改读原始数据，避免把部分写入的预聚合当作完整结果返回
+        rollupService.markRebuildPending();
+        executor.submit(() -> {
+            try {
+                rollupService.rebuild();
+            } catch (Exception e) {
+                System.out.println("重建预聚合K线失败: " + e.getMessage());
+            }
+        });
+    }
+
+    // 把旧形态的 stock_data 文档改写为当前存储形态；与导入共用同一线程，排在之后提交的任务之前
+    public void migrateSchema() {
+        executor.submit(() -> {
+            try {
+                schemaMigrationService.migrate();
+            } catch (Exception e) {
+                System.out.println("存储迁移失败: " + e.getMessage());
+            }
+        });
+    }
+
+    // 尚未迁移过时排队执行一次；预聚合按数值聚合成交量，需要排在回填之前
+    public void migrateSchemaIfNeeded() {
+        if (schemaMigrationService.needsMigration()) {
+            migrateSchema();
+        }
+    }
+
+    // 升级前已导入的数据没有预聚合，排在导入之前回填
+    public void rebuildRollupsIfMissing() {
+        if (rollupService.needsBackfill()) {
+            rebuildRollups();
+        }
+    }
+
+    // 从 stock_data 重建价格分桶；与导入共用同一线程，避免覆盖并发导入的增量合并
+    public void rebuildPriceBuckets() {
+        executor.submit(() -> {
+            try {
+                priceHistoryService.rebuild();
+            } catch (Exception e) {
+                System.out.println("重建价格分桶失败: " + e.getMessage());
+            }
+        });
+    }
+
+    public void rebuildPriceBucketsIfMissing() {
+        if (priceHistoryService.needsBackfill()) {
+            rebuildPriceBuckets();
+        }
+    }
+
+    // 阻塞到此前提交的任务全部执行完：单线程按提交顺序执行，排在最后的空任务结束时前面的任务都已结束
+    public void awaitIdle() {
+        try {
+            executor.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待后台导入任务时被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public ImportProgress getProgress() {
+        return current;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
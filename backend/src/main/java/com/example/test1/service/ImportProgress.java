@@ -0,0 +1,82 @@
+package com.example.test1.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 后台 CSV 导入任务的进度，由导入线程更新、接口线程读取。
+ */
+public class ImportProgress {
+
+    public enum Status { IDLE, QUEUED, RUNNING, SKIPPED, COMPLETED, FAILED }
+
+    private final String file;
+    private volatile Status status;
+    private volatile long startOffset;
+    private volatile long endOffset;
+    private final AtomicLong bytesDone = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private volatile long errorCount;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String message;
+
+    public ImportProgress(String file) {
+        this.file = file;
+        this.status = file == null ? Status.IDLE : Status.QUEUED;
+    }
+
+    void start(long startOffset, long endOffset) {
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.startedAt = LocalDateTime.now();
+        this.status = Status.RUNNING;
+    }
+
+    void addBytes(long bytes) {
+        bytesDone.addAndGet(bytes);
+    }
+
+    void addRows(long rows) {
+        rowsWritten.addAndGet(rows);
+    }
+
+    void skip(String message) {
+        finish(Status.SKIPPED, message);
+    }
+
+    void complete(CsvImportResult result) {
+        this.errorCount = result.errorCount();
+        finish(Status.COMPLETED, String.format("导入 %d 条记录，%.0f 行/秒", result.recordCount(), result.rowsPerSecond()));
+    }
+
+    void fail(String message) {
+        finish(Status.FAILED, message);
+    }
+
+    private void finish(Status status, String message) {
+        this.message = message;
+        this.finishedAt = LocalDateTime.now();
+        this.status = status;
+    }
+
+    public boolean isActive() {
+        return status == Status.QUEUED || status == Status.RUNNING;
+    }
+
+    public String getFile() { return file; }
+    public Status getStatus() { return status; }
+    public long getStartOffset() { return startOffset; }
+    public long getEndOffset() { return endOffset; }
+    public long getBytesDone() { return bytesDone.get(); }
+    public long getRowsWritten() { return rowsWritten.get(); }
+    public long getErrorCount() { return errorCount; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public String getMessage() { return message; }
+
+    public double getPercent() {
+        long total = endOffset - startOffset;
+        return total <= 0 ? (status == Status.COMPLETED ? 100.0 : 0.0) : Math.min(100.0, bytesDone.get() * 100.0 / total);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.test1.service;
+
+import org.bson.Document;
+
+import java.util.List;
+
+/**
+ * 行情落库之后的回调，用于维护派生数据。
+ * 导入流水线在写入线程上、每批 bulkWrite 成功后调用，可能并发，实现需线程安全；
+ * 文档字段与 stock_data 集合一致。
+ */
+public interface IngestListener {
+
+    void onIngested(List<Document> docs);
+}
@@ -0,0 +1,73 @@
+package com.example.test1.service;
+
+import com.example.test1.model.Candle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Largest-Triangle-Three-Buckets 降采样：保留首尾点，其余每个桶中选出
+ * 与前一选中点、下一桶均值构成三角形面积最大的点，尽量保留走势形状。
+ * x 为桶起始时间（毫秒），y 为收盘价；被选中的 K 线原样返回。
+ */
+public final class Lttb {
+
+    private Lttb() {
+    }
+
+    public static List<Candle> downsample(List<Candle> data, int threshold) {
+        int size = data.size();
+        if (threshold >= size || threshold < 3) {
+            return data;
+        }
+
+        List<Candle> sampled = new ArrayList<>(threshold);
+        double every = (double) (size - 2) / (threshold - 2);
+        int selected = 0;
+        sampled.add(data.get(0));
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // 下一个桶的平均点
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, size);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x(data.get(j));
+                avgY += y(data.get(j));
+            }
+            int avgCount = avgEnd - avgStart;
+            avgX /= avgCount;
+            avgY /= avgCount;
+
+            // 当前桶中与前一选中点构成最大三角形的点
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double pointX = x(data.get(selected));
+            double pointY = y(data.get(selected));
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((pointX - avgX) * (y(data.get(j)) - pointY)
+                        - (pointX - x(data.get(j))) * (avgY - pointY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled.add(data.get(next));
+            selected = next;
+        }
+
+        sampled.add(data.get(size - 1));
+        return sampled;
+    }
+
+    private static double x(Candle candle) {
+        return candle.time().toEpochMilli();
+    }
+
+    private static double y(Candle candle) {
+        return candle.close() == null ? 0 : candle.close();
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.test1.service;
+
+import com.example.test1.model.LatestQuote;
+import com.example.test1.model.MarketSnapshot;
+import com.example.test1.model.StockData;
+import com.example.test1.repository.LatestQuoteRepository;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 维护每只股票的最新报价和当日开盘行（latest_quotes），供市场总览一次读取。
+ * 内存中每只股票一份不可变副本，导入和保存经 {@link IngestListener} 按批合并后整体替换，
+ * 变化的报价随即写回集合；首次使用时从集合装载，集合为空而已有行情时从 stock_data 重建。
+ */
+@Service
+public class MarketSnapshotService implements IngestListener {
+
+    private static final String COLLECTION = "latest_quotes";
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final LocalTime OPEN_FROM = LocalTime.of(9, 25);
+    private static final LocalTime OPEN_UNTIL = LocalTime.of(9, 36);
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+
+    @Autowired
+    private LatestQuoteRepository latestQuoteRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final Map<String, LatestQuote> quotes = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+
+    // names 为空时返回全部股票；否则按给定顺序返回其中有报价的股票，汇总指标也只针对这些股票
+    public MarketSnapshot snapshot(Collection<String> names) {
+        ensureLoaded();
+        List<LatestQuote> selected = new ArrayList<>();
+        if (names == null || names.isEmpty()) {
+            selected.addAll(quotes.values());
+            selected.sort(Comparator.comparing(LatestQuote::getName, Comparator.nullsLast(Comparator.naturalOrder())));
+        } else {
+            for (String name : names) {
+                LatestQuote quote = quotes.get(StockData.nameKeyOf(name));
+                if (quote != null) {
+                    selected.add(quote);
+                }
+            }
+        }
+
+        int advancers = 0;
+        int decliners = 0;
+        long totalVolume = 0;
+        int changes = 0;
+        double sum = 0;
+        double sumSquares = 0;
+        LocalDateTime asOf = null;
+        for (LatestQuote quote : selected) {
+            Double change = quote.getChgPercent();
+            if (change != null) {
+                if (change > 0) {
+                    advancers++;
+                } else if (change < 0) {
+                    decliners++;
+                }
+                changes++;
+                sum += change;
+                sumSquares += change * change;
+            }
+            if (quote.getVol() != null) {
+                totalVolume += quote.getVol();
+            }
+            if (asOf == null || (quote.getTimestamp() != null && quote.getTimestamp().isAfter(asOf))) {
+                asOf = quote.getTimestamp();
+            }
+        }
+        double volatility = 0;
+        if (changes > 0) {
+            double mean = sum / changes;
+            volatility = Math.sqrt(Math.max(0, sumSquares / changes - mean * mean));
+        }
+        return new MarketSnapshot(selected, selected.size(), advancers, decliners,
+                selected.size() - advancers - decliners, totalVolume, volatility, asOf);
+    }
+
+    @Override
+    public void onIngested(List<Document> docs) {
+        ensureLoaded();
+        Map<String, List<Document>> byKey = new HashMap<>();
+        for (Document doc : docs) {
+            if (doc.get("nameKey") instanceof String nameKey && doc.getDate("timestamp") != null) {
+                byKey.computeIfAbsent(nameKey, k -> new ArrayList<>()).add(doc);
+            }
+        }
+        byKey.forEach((nameKey, rows) -> {
+            quotes.compute(nameKey, (key, current) -> {
+                LatestQuote next = current == null ? new LatestQuote() : new LatestQuote(current);
+                next.setNameKey(key);
+                for (Document row : rows) {
+                    apply(next, row);
+                }
+                return next;
+            });
+            dirty.add(nameKey);
+        });
+        flush();
+    }
+
+    private void apply(LatestQuote quote, Document doc) {
+        LocalDateTime ts = LocalDateTime.ofInstant(doc.getDate("timestamp").toInstant(), ZONE);
+        if (quote.getTimestamp() == null || !ts.isBefore(quote.getTimestamp())) {
+            quote.setName(doc.getString("name"));
+            quote.setTimestamp(ts);
+            quote.setLast(CandleService.toDouble(doc.get("last")));
+            quote.setHigh(CandleService.toDouble(doc.get("high")));
+            quote.setLow(CandleService.toDouble(doc.get("low")));
+            quote.setChg(CandleService.toDouble(doc.get("chg")));
+            quote.setChgPercent(CandleService.toPercent(doc.get("chgPercent")));
+            quote.setVol(CandleService.toLong(doc.get("vol")));
+            quote.setTime(doc.get("time") == null ? null : doc.get("time").toString());
+        }
+
+        Double price = CandleService.toDouble(doc.get("last"));
+        if (price == null) {
+            return;
+        }
+        LocalDate day = ts.toLocalDate();
+        boolean inWindow = inOpenWindow(ts);
+        boolean replace;
+        if (quote.getSessionDate() == null || day.isAfter(quote.getSessionDate())) {
+            replace = true;
+        } else if (day.equals(quote.getSessionDate())) {
+            // 窗口内取最晚的一行；窗口外的行只在还没有窗口内的行时取最早的一行
+            replace = inWindow
+                    ? !quote.isOpenInWindow() || !ts.isBefore(quote.getOpenTimestamp())
+                    : !quote.isOpenInWindow() && ts.isBefore(quote.getOpenTimestamp());
+        } else {
+            replace = false;
+        }
+        if (replace) {
+            quote.setSessionDate(day);
+            quote.setOpenTimestamp(ts);
+            quote.setOpen(price);
+            quote.setOpenInWindow(inWindow);
+        }
+    }
+
+    private static boolean inOpenWindow(LocalDateTime ts) {
+        LocalTime time = ts.toLocalTime();
+        return !time.isBefore(OPEN_FROM) && time.isBefore(OPEN_UNTIL);
+    }
+
+    // 串行写回，每次写入的都是当时内存中的最新副本，后写的不会被先写的旧值覆盖
+    private synchronized void flush() {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        for (String nameKey : List.copyOf(dirty)) {
+            dirty.remove(nameKey);
+            LatestQuote quote = quotes.get(nameKey);
+            if (quote != null) {
+                Document doc = new Document();
+                mongoTemplate.getConverter().write(quote, doc);
+                models.add(new ReplaceOneModel<>(Filters.eq("_id", nameKey), doc, UPSERT));
+            }
+        }
+        if (!models.isEmpty()) {
+            mongoTemplate.getCollection(COLLECTION).bulkWrite(models, new BulkWriteOptions().ordered(false));
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            for (LatestQuote quote : latestQuoteRepository.findAll()) {
+                quotes.put(quote.getNameKey(), quote);
+            }
+            if (quotes.isEmpty()) {
+                rebuild();
+            }
+            loaded = true;
+        }
+    }
+
+    // 每只股票取最新一行（倒序走 (nameKey, timestamp) 索引），再查最新交易日的开盘行
+    private void rebuild() {
+        List<Document> pipeline = List.of(
+                new Document("$sort", new Document("nameKey", -1).append("timestamp", -1)),
+                new Document("$group", new Document("_id", "$nameKey").append("doc", new Document("$first", "$$ROOT"))));
+        for (Document group : mongoTemplate.getCollection(StockIndexService.COLLECTION).aggregate(pipeline).allowDiskUse(true)) {
+            if (!(group.get("_id") instanceof String nameKey)) {
+                continue;
+            }
+            LatestQuote quote = new LatestQuote();
+            quote.setNameKey(nameKey);
+            apply(quote, group.get("doc", Document.class));
+            Document open = findOpen(nameKey, quote.getTimestamp().toLocalDate());
+            if (open != null) {
+                apply(quote, open);
+            }
+            quotes.put(nameKey, quote);
+            dirty.add(nameKey);
+        }
+        flush();
+        System.out.println("已从行情数据重建 " + quotes.size() + " 只股票的最新报价");
+    }
+
+    private Document findOpen(String nameKey, LocalDate day) {
+        var collection = mongoTemplate.getCollection(StockIndexService.COLLECTION);
+        Document inWindow = collection.find(Filters.and(
+                        Filters.eq("nameKey", nameKey),
+                        Filters.gte("timestamp", toDate(day.atTime(OPEN_FROM))),
+                        Filters.lt("timestamp", toDate(day.atTime(OPEN_UNTIL)))))
+                .sort(Sorts.descending("timestamp"))
+                .first();
+        if (inWindow != null) {
+            return inWindow;
+        }
+        return collection.find(Filters.and(
+                        Filters.eq("nameKey", nameKey),
+                        Filters.gte("timestamp", toDate(day.atStartOfDay()))))
+                .sort(Sorts.ascending("timestamp"))
+                .first();
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZONE).toInstant());
+    }
+}
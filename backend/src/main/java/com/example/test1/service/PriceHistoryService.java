@@ -0,0 +1,97 @@
+package com.example.test1.service;
+
+import com.example.test1.model.PriceSeries;
+import com.example.test1.repository.PriceBucketRepository;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 逐笔价格历史。价格不再随每条行情内嵌 historicalPrices，而是在导入和保存后按股票、按天打包进
+ * {@link PriceBucketRepository}，范围查询只读取覆盖的几个桶。
+ */
+@Service
+public class PriceHistoryService implements IngestListener {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PriceBucketRepository priceBucketRepository;
+
+    @Autowired
+    private SymbolResolver symbolResolver;
+
+    // 与 K 线一致：模糊名称匹配到多只时取第一只
+    public PriceSeries prices(String name, LocalDateTime from, LocalDateTime to) {
+        List<String> keys = symbolResolver.resolveKeys(name);
+        if (keys.isEmpty()) {
+            return PriceSeries.EMPTY;
+        }
+        return priceBucketRepository.range(keys.get(0),
+                from.atZone(ZONE).toInstant().toEpochMilli(), to.atZone(ZONE).toInstant().toEpochMilli());
+    }
+
+    @Override
+    public void onIngested(List<Document> docs) {
+        // 同一批内同一桶的价格先在内存中归并，每个桶只发一条更新
+        // 同一时间出现多次时以最后一条为准，与导入按 (name, timestamp) upsert 一致
+        Map<String, Map<Date, TreeMap<Long, Double>>> buckets = new HashMap<>();
+        for (Document doc : docs) {
+            Double price = CandleService.toDouble(doc.get("last"));
+            if (price == null || !(doc.get("nameKey") instanceof String nameKey)
+                    || !(doc.get("timestamp") instanceof Date timestamp)) {
+                continue;
+            }
+            buckets.computeIfAbsent(nameKey, k -> new HashMap<>())
+                    .computeIfAbsent(PriceBucketRepository.dayOf(timestamp.getTime()), k -> new TreeMap<>())
+                    .put(timestamp.getTime(), price);
+        }
+        if (buckets.isEmpty()) {
+            return;
+        }
+        Map<String, Map<Date, PriceSeries>> series = new HashMap<>();
+        buckets.forEach((nameKey, days) -> {
+            Map<Date, PriceSeries> built = new HashMap<>();
+            days.forEach((day, prices) -> built.put(day, toSeries(prices)));
+            series.put(nameKey, built);
+        });
+        priceBucketRepository.merge(series);
+    }
+
+    // 有原始数据但价格桶为空（升级前导入的数据），需要回填
+    public boolean needsBackfill() {
+        return priceBucketRepository.isEmpty()
+                && mongoTemplate.getCollection(StockIndexService.COLLECTION).estimatedDocumentCount() > 0;
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        System.out.println("开始重建价格分桶...");
+        priceBucketRepository.rebuild(StockIndexService.COLLECTION);
+        System.out.println("价格分桶重建完成，耗时 " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static PriceSeries toSeries(TreeMap<Long, Double> prices) {
+        long[] t = new long[prices.size()];
+        double[] p = new double[prices.size()];
+        int i = 0;
+        for (Map.Entry<Long, Double> entry : prices.entrySet()) {
+            t[i] = entry.getKey();
+            p[i] = entry.getValue();
+            i++;
+        }
+        return new PriceSeries(t, p);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.test1.service;
+
+import com.mongodb.ExplainVerbosity;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 调试用：对查询执行 explain(executionStats) 并提炼出计划阶段、使用的索引和扫描量。
+ */
+@Component
+public class QueryExplainer {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public Map<String, Object> explain(String collection, Bson filter, Bson sort) {
+        Document explain = mongoTemplate.getCollection(collection)
+                .find(filter)
+                .sort(sort)
+                .explain(ExplainVerbosity.EXECUTION_STATS);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        Document planner = explain.get("queryPlanner", Document.class);
+        Document winning = planner == null ? null : planner.get("winningPlan", Document.class);
+        // SBE 引擎下实际计划嵌在 queryPlan 中
+        if (winning != null && winning.get("queryPlan") instanceof Document queryPlan) {
+            winning = queryPlan;
+        }
+        List<String> stages = new ArrayList<>();
+        List<String> indexes = new ArrayList<>();
+        collectStages(winning, stages, indexes);
+        summary.put("stages", stages);
+        summary.put("indexes", indexes);
+        summary.put("indexScan", stages.contains("IXSCAN"));
+
+        Document stats = explain.get("executionStats", Document.class);
+        if (stats != null) {
+            summary.put("nReturned", stats.get("nReturned"));
+            summary.put("totalKeysExamined", stats.get("totalKeysExamined"));
+            summary.put("totalDocsExamined", stats.get("totalDocsExamined"));
+            summary.put("executionTimeMillis", stats.get("executionTimeMillis"));
+        }
+        return summary;
+    }
+
+    // 自顶向下遍历计划树（inputStage / inputStages）
+    private static void collectStages(Document stage, List<String> stages, List<String> indexes) {
+        if (stage == null) {
+            return;
+        }
+        stages.add(stage.getString("stage"));
+        if (stage.get("indexName") instanceof String indexName) {
+            indexes.add(indexName);
+        }
+        if (stage.get("inputStage") instanceof Document input) {
+            collectStages(input, stages, indexes);
+        }
+        if (stage.get("inputStages") instanceof List<?> inputs) {
+            for (Object input : inputs) {
+                if (input instanceof Document child) {
+                    collectStages(child, stages, indexes);
+                }
+            }
+        }
+    }
+}
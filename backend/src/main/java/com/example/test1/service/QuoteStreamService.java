@@ -0,0 +1,263 @@
+package com.example.test1.service;
+
+import com.example.test1.model.StockData;
+import com.example.test1.model.StockRow;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 新行情的实时推送（SSE）。
+ * 导入和保存经 {@link IngestListener} 把新落库的行交给订阅了对应股票的客户端，前端不必再轮询查询接口。
+ * 分发线程只做无锁入队：每个订阅者一条有界队列，队列满时改为按股票只保留最新一行（慢客户端只拿到最新报价）；
+ * 发送在虚拟线程上进行，每个订阅者同一时刻最多一个发送任务，阻塞的连接不影响导入和其他订阅者。
+ */
+@Service
+public class QuoteStreamService implements IngestListener, MeterBinder {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    @Autowired
+    private SymbolResolver symbolResolver;
+
+    @Value("${stock.stream.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${stock.stream.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${stock.stream.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    // nameKey -> 订阅了该股票的客户端
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Set<Subscriber> all = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "quote-stream-heartbeat-" + THREAD_COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean heartbeatStarted = new AtomicBoolean();
+
+    private final AtomicLong sent = new AtomicLong();
+    // 因订阅者较慢被合并掉（未单独推送）的行数
+    private final AtomicLong coalesced = new AtomicLong();
+
+    // 名称按模糊匹配解析；尚无数据的名称按精确 nameKey 订阅，之后导入的行同样会推送
+    public SseEmitter subscribe(Collection<String> names) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String name : names) {
+            if (name == null || name.isBlank()) {
+                continue;
+            }
+            keys.addAll(symbolResolver.resolveKeys(name));
+            keys.add(StockData.nameKeyOf(name));
+        }
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        Subscriber subscriber = new Subscriber(emitter, keys, Math.max(1, bufferSize));
+        for (String key : keys) {
+            subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        all.add(subscriber);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        startHeartbeat();
+        System.out.println("行情推送新订阅: " + keys + "，当前订阅数 " + all.size());
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return all.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("stock.stream.subscribers", this, QuoteStreamService::subscriberCount).register(registry);
+        FunctionCounter.builder("stock.stream.events", sent, AtomicLong::get).tag("result", "sent").register(registry);
+        FunctionCounter.builder("stock.stream.events", coalesced, AtomicLong::get).tag("result", "coalesced").register(registry);
+    }
+
+    @Override
+    public void onIngested(List<Document> docs) {
+        if (all.isEmpty()) {
+            return;
+        }
+        for (Document doc : docs) {
+            if (!(doc.get("nameKey") instanceof String nameKey) || doc.getDate("timestamp") == null) {
+                continue;
+            }
+            Set<Subscriber> targets = subscribers.get(nameKey);
+            if (targets == null || targets.isEmpty()) {
+                continue;
+            }
+            StockRow row = SeriesQueryService.toRow(doc);
+            for (Subscriber subscriber : targets) {
+                subscriber.offer(nameKey, row);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        for (Subscriber subscriber : all) {
+            subscriber.emitter.complete();
+        }
+        senders.shutdownNow();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!all.remove(subscriber)) {
+            return;
+        }
+        for (String key : subscriber.keys) {
+            subscribers.computeIfPresent(key, (k, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    // 定期发送注释行，及时发现已断开的连接
+    private void startHeartbeat() {
+        if (heartbeatSeconds > 0 && heartbeatStarted.compareAndSet(false, true)) {
+            heartbeat.scheduleAtFixedRate(() -> {
+                for (Subscriber subscriber : all) {
+                    subscriber.ping();
+                }
+            }, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private final class Subscriber {
+
+        final SseEmitter emitter;
+        final Set<String> keys;
+        final int capacity;
+
+        final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger queued = new AtomicInteger();
+        // 队列满后按股票合并，只保留最新一行
+        final Map<String, StockRow> latest = new ConcurrentHashMap<>();
+        final AtomicBoolean draining = new AtomicBoolean();
+        // 只在发送任务中访问（同一时刻只有一个），保证同一股票不会推送比已发送更早的行
+        final Map<String, Long> sentUntil = new HashMap<>();
+
+        Subscriber(SseEmitter emitter, Set<String> keys, int capacity) {
+            this.emitter = emitter;
+            this.keys = keys;
+            this.capacity = capacity;
+        }
+
+        void offer(String nameKey, StockRow row) {
+            if (queued.incrementAndGet() <= capacity) {
+                queue.add(new Pending(nameKey, row));
+            } else {
+                queued.decrementAndGet();
+                // 保留较新的一行；被替换或丢弃的一行计为合并
+                latest.merge(nameKey, row, (old, fresh) -> {
+                    coalesced.incrementAndGet();
+                    return fresh.t() >= old.t() ? fresh : old;
+                });
+            }
+            schedule();
+        }
+
+        void ping() {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                fail(e);
+            }
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RuntimeException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    Pending pending;
+                    while ((pending = queue.poll()) != null) {
+                        queued.decrementAndGet();
+                        send(pending.nameKey(), pending.row());
+                    }
+                    for (String nameKey : latest.keySet()) {
+                        StockRow row = latest.remove(nameKey);
+                        if (row != null) {
+                            send(nameKey, row);
+                        }
+                    }
+                    draining.set(false);
+                    // 释放标记后又有新数据且没有其他发送任务接手时继续发送
+                    if ((queue.isEmpty() && latest.isEmpty()) || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                draining.set(false);
+                fail(e);
+            }
+        }
+
+        private void send(String nameKey, StockRow row) throws IOException {
+            Long last = sentUntil.get(nameKey);
+            if (last != null && row.t() < last) {
+                return;
+            }
+            sentUntil.put(nameKey, row.t());
+            emitter.send(SseEmitter.event()
+                    .name("tick")
+                    .id(Long.toString(row.t()))
+                    .data(row, MediaType.APPLICATION_JSON));
+            sent.incrementAndGet();
+        }
+
+        // 客户端已断开：结束连接并取消订阅，丢弃尚未发送的数据
+        private void fail(Exception e) {
+            unsubscribe(this);
+            queue.clear();
+            latest.clear();
+            emitter.completeWithError(e);
+        }
+    }
+
+    private record Pending(String nameKey, StockRow row) {
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.test1.service;
+
+import com.example.test1.model.Candle;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 1 分钟 / 1 小时 / 1 天 OHLCV 预聚合集合（candles_1m、candles_1h、candles_1d）。
+ * 每个文档对应一只股票的一个时间桶，以 (nameKey, time) 唯一；openTs/closeTs 记录开盘、收盘价对应的原始时间，
+ * 因此增量合并与数据到达顺序无关，重复导入同一批数据结果不变。
+ * 导入和单条保存后增量更新；rebuild 从 stock_data 重新生成 1m，再由 1m 汇总 1h、由 1h 汇总 1d。
+ */
+@Service
+public class RollupService implements IngestListener {
+
+    public enum Level {
+        MINUTE("candles_1m", "minute", ChronoUnit.MINUTES),
+        HOUR("candles_1h", "hour", ChronoUnit.HOURS),
+        DAY("candles_1d", "day", ChronoUnit.DAYS);
+
+        private final String collection;
+        private final String unit;
+        private final ChronoUnit chronoUnit;
+
+        Level(String collection, String unit, ChronoUnit chronoUnit) {
+            this.collection = collection;
+            this.unit = unit;
+            this.chronoUnit = chronoUnit;
+        }
+
+        public String collection() { return collection; }
+
+        // 与 $dateTrunc 在同一时区下的截断结果一致
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(chronoUnit);
+        }
+    }
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${stock.rollups.enabled:true}")
+    private boolean enabled;
+
+    // 已排队或正在执行的全量重建数；重建用 $merge 分批写入，完成前 candles_* 只有部分数据
+    private final AtomicInteger pendingRebuilds = new AtomicInteger();
+    // 上一次全量重建失败，预聚合可能不完整，直到下一次重建成功
+    private volatile boolean rebuildFailed;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 预聚合完整可读：没有排队或进行中的重建，且上一次重建没有失败；否则 K 线接口应直接聚合原始数据
+    public boolean isReadable() {
+        return enabled && pendingRebuilds.get() == 0 && !rebuildFailed;
+    }
+
+    // 提交重建任务时调用，从排队起 isReadable 即为 false，由 rebuild 结束时清除
+    public void markRebuildPending() {
+        pendingRebuilds.incrementAndGet();
+    }
+
+    public void ensureIndexes() {
+        for (Level level : Level.values()) {
+            mongoTemplate.indexOps(level.collection).createIndex(new Index()
+                    .on("nameKey", Sort.Direction.ASC)
+                    .on("time", Sort.Direction.ASC)
+                    .unique()
+                    .named("nameKey_time"));
+        }
+    }
+
+    // 能无损拼出该周期的最粗一级：日/周/月用日线，1h/4h 用小时线，其余用分钟线
+    public static Level coarsestFor(CandleInterval interval) {
+        return switch (interval) {
+            case D1, W1, MN1 -> Level.DAY;
+            case H1, H4 -> Level.HOUR;
+            default -> Level.MINUTE;
+        };
+    }
+
+    // 有原始数据但日线为空（升级前导入的数据），需要回填
+    public boolean needsBackfill() {
+        return enabled
+                && mongoTemplate.getCollection(Level.DAY.collection).estimatedDocumentCount() == 0
+                && mongoTemplate.getCollection(StockIndexService.COLLECTION).estimatedDocumentCount() > 0;
+    }
+
+    @Override
+    public void onIngested(List<Document> docs) {
+        if (!enabled || docs.isEmpty()) {
+            return;
+        }
+        for (Level level : Level.values()) {
+            merge(level, docs);
+        }
+    }
+
+    // 先在内存中把同一批内同一桶的行合并，每个桶只发一条 upsert
+    private void merge(Level level, List<Document> docs) {
+        Map<BucketKey, Partial> buckets = new HashMap<>();
+        for (Document doc : docs) {
+            Date timestamp = doc.getDate("timestamp");
+            Double price = CandleService.toDouble(doc.get("last"));
+            if (timestamp == null || price == null || !(doc.get("nameKey") instanceof String nameKey)) {
+                continue;
+            }
+            LocalDateTime local = LocalDateTime.ofInstant(timestamp.toInstant(), ZONE);
+            Date time = Date.from(level.truncate(local).atZone(ZONE).toInstant());
+            buckets.computeIfAbsent(new BucketKey(nameKey, time), k -> new Partial(doc.getString("name")))
+                    .add(timestamp, price, CandleService.toLong(doc.get("vol")));
+        }
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        List<WriteModel<Document>> models = new ArrayList<>(buckets.size());
+        buckets.forEach((key, partial) -> models.add(new UpdateOneModel<>(
+                Filters.and(Filters.eq("nameKey", key.nameKey()), Filters.eq("time", key.time())),
+                partial.toUpdate(), UPSERT)));
+        mongoTemplate.getCollection(level.collection).bulkWrite(models, new BulkWriteOptions().ordered(false));
+    }
+
+    // 从预聚合集合读取并按请求周期再聚合；周期与集合粒度相同时每桶只有一条
+    public List<Candle> candles(Level level, String nameKey, CandleInterval interval, LocalDateTime from, LocalDateTime to) {
+        Document bucket = new Document("$dateTrunc", new Document("date", "$time")
+                .append("unit", interval.unit())
+                .append("binSize", interval.binSize())
+                .append("timezone", ZONE.getId()));
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("nameKey", nameKey)
+                        .append("time", new Document("$gte", toDate(level.truncate(from))).append("$lte", toDate(to)))),
+                new Document("$sort", new Document("time", 1)),
+                new Document("$group", new Document("_id", bucket)
+                        .append("open", new Document("$first", "$open"))
+                        .append("high", new Document("$max", "$high"))
+                        .append("low", new Document("$min", "$low"))
+                        .append("close", new Document("$last", "$close"))
+                        .append("volume", new Document("$max", "$volume"))),
+                new Document("$sort", new Document("_id", 1)));
+
+        List<Candle> candles = new ArrayList<>();
+        for (Document doc : mongoTemplate.getCollection(level.collection).aggregate(pipeline)) {
+            candles.add(new Candle(
+                    doc.getDate("_id").toInstant(),
+                    CandleService.toDouble(doc.get("open")),
+                    CandleService.toDouble(doc.get("high")),
+                    CandleService.toDouble(doc.get("low")),
+                    CandleService.toDouble(doc.get("close")),
+                    CandleService.toLong(doc.get("volume")),
+                    null));
+        }
+        return candles;
+    }
+
+    // 全量重建：stock_data -> 1m -> 1h -> 1d，结果按 (nameKey, time) 合并覆盖
+    public void rebuild() {
+        try {
+            rebuildAll();
+            rebuildFailed = false;
+        } catch (RuntimeException e) {
+            rebuildFailed = true;
+            throw e;
+        } finally {
+            pendingRebuilds.updateAndGet(n -> Math.max(0, n - 1));
+        }
+    }
+
+    private void rebuildAll() {
+        long start = System.currentTimeMillis();
+        System.out.println("开始重建预聚合K线...");
+
+        List<Document> fromRaw = new ArrayList<>();
+        // 走 (nameKey, timestamp) 索引顺序，$first/$last 依赖该顺序
+        fromRaw.add(new Document("$sort", new Document("nameKey", 1).append("timestamp", 1)));
+        fromRaw.add(new Document("$project", new Document("nameKey", 1)
+                .append("name", 1)
+                .append("timestamp", 1)
+                .append("price", convert("$last", "double"))
+                .append("vol", convert("$vol", "long"))));
+        fromRaw.add(new Document("$match", new Document("price", new Document("$ne", null))
+                .append("nameKey", new Document("$type", "string"))));
+        fromRaw.add(new Document("$group", new Document("_id", bucketId("$timestamp", Level.MINUTE))
+                .append("name", new Document("$last", "$name"))
+                .append("open", new Document("$first", "$price"))
+                .append("openTs", new Document("$first", "$timestamp"))
+                .append("high", new Document("$max", "$price"))
+                .append("low", new Document("$min", "$price"))
+                .append("close", new Document("$last", "$price"))
+                .append("closeTs", new Document("$last", "$timestamp"))
+                .append("volume", new Document("$max", "$vol"))));
+        aggregateInto(StockIndexService.COLLECTION, fromRaw, Level.MINUTE);
+
+        rollUp(Level.MINUTE, Level.HOUR);
+        rollUp(Level.HOUR, Level.DAY);
+        System.out.println("预聚合K线重建完成，耗时 " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private void rollUp(Level source, Level target) {
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$sort", new Document("nameKey", 1).append("time", 1)));
+        pipeline.add(new Document("$group", new Document("_id", bucketId("$time", target))
+                .append("name", new Document("$last", "$name"))
+                .append("open", new Document("$first", "$open"))
+                .append("openTs", new Document("$first", "$openTs"))
+                .append("high", new Document("$max", "$high"))
+                .append("low", new Document("$min", "$low"))
+                .append("close", new Document("$last", "$close"))
+                .append("closeTs", new Document("$last", "$closeTs"))
+                .append("volume", new Document("$max", "$volume"))));
+        aggregateInto(source.collection, pipeline, target);
+    }
+
+    private void aggregateInto(String source, List<Document> pipeline, Level target) {
+        pipeline.add(new Document("$set", new Document("nameKey", "$_id.nameKey").append("time", "$_id.time")));
+        pipeline.add(new Document("$unset", "_id"));
+        pipeline.add(new Document("$merge", new Document("into", target.collection)
+                .append("on", List.of("nameKey", "time"))
+                .append("whenMatched", "replace")
+                .append("whenNotMatched", "insert")));
+        // $merge 只有在遍历结果时才执行
+        mongoTemplate.getCollection(source).aggregate(pipeline).allowDiskUse(true).toCollection();
+    }
+
+    private static Document bucketId(String field, Level level) {
+        return new Document("nameKey", "$nameKey")
+                .append("time", new Document("$dateTrunc", new Document("date", field)
+                        .append("unit", level.unit)
+                        .append("timezone", ZONE.getId())));
+    }
+
+    // 旧数据中的数值列可能是字符串，无法转换时为 null
+    private static Document convert(String field, String type) {
+        return new Document("$convert", new Document("input", field)
+                .append("to", type)
+                .append("onError", null)
+                .append("onNull", null));
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZONE).toInstant());
+    }
+
+    private record BucketKey(String nameKey, Date time) {
+    }
+
+    // 同一批数据中落在同一桶内的行
+    private static final class Partial {
+        private final String name;
+        private Date openTs;
+        private double open;
+        private Date closeTs;
+        private double close;
+        private double high = Double.NEGATIVE_INFINITY;
+        private double low = Double.POSITIVE_INFINITY;
+        private Long volume;
+
+        Partial(String name) {
+            this.name = name;
+        }
+
+        void add(Date timestamp, double price, Long vol) {
+            if (openTs == null || timestamp.before(openTs)) {
+                openTs = timestamp;
+                open = price;
+            }
+            if (closeTs == null || !timestamp.before(closeTs)) {
+                closeTs = timestamp;
+                close = price;
+            }
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+            if (vol != null && (volume == null || vol > volume)) {
+                volume = vol;
+            }
+        }
+
+        // 管道式更新：同一个 $set 中的字段引用读取的都是更新前的值
+        List<Document> toUpdate() {
+            Document set = new Document()
+                    .append("name", new Document("$literal", name))
+                    .append("open", new Document("$cond", List.of(
+                            new Document("$or", List.of(new Document("$not", List.of("$openTs")),
+                                    new Document("$lt", List.of(openTs, "$openTs")))),
+                            open, "$open")))
+                    .append("openTs", new Document("$min", List.of("$openTs", openTs)))
+                    .append("close", new Document("$cond", List.of(
+                            new Document("$or", List.of(new Document("$not", List.of("$closeTs")),
+                                    new Document("$gte", List.of(closeTs, "$closeTs")))),
+                            close, "$close")))
+                    .append("closeTs", new Document("$max", List.of("$closeTs", closeTs)))
+                    .append("high", new Document("$max", List.of("$high", high)))
+                    .append("low", new Document("$min", List.of("$low", low)));
+            if (volume != null) {
+                set.append("volume", new Document("$max", List.of("$volume", volume)));
+            }
+            return List.of(new Document("$set", set));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.test1.service;
+
+import com.example.test1.model.StockData;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 把 stock_data 中旧形态的文档原地改写为当前存储形态（{@link StockData#SCHEMA_VERSION}）。
+ * 单个游标顺序读取 schemaVersion 不是当前版本的文档，按批交给线程池转换后以无序 bulkWrite 更新，
+ * 同时在途的批次数有上限；转换规则与 {@link StockDataReadConverter} 相同，重复执行只处理剩余的旧文档。
+ * 全部成功后在 schema_migrations 中记录版本，之后启动时不再扫描。
+ */
+@Service
+public class SchemaMigrationService {
+
+    private static final String MIGRATIONS = "schema_migrations";
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final List<String> DROPPED_FIELDS = List.of("timestamp_iso", "historicalPrices");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${stock.migration.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${stock.migration.threads:4}")
+    private int threads;
+
+    // 尚未记录当前版本时需要迁移；空库迁移时只是记录版本
+    public boolean needsMigration() {
+        Document state = mongoTemplate.getCollection(MIGRATIONS)
+                .find(Filters.eq("_id", StockIndexService.COLLECTION)).first();
+        return state == null || state.getInteger("version", 0) < StockData.SCHEMA_VERSION;
+    }
+
+    // 返回改写的文档数
+    public synchronized long migrate() {
+        long start = System.currentTimeMillis();
+        MongoCollection<Document> collection = mongoTemplate.getCollection(StockIndexService.COLLECTION);
+        int parallelism = Math.max(1, threads);
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "schema-migration-" + THREAD_COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // 在途批次最多为线程数的两倍，读取不会无限领先于写入
+        int permits = parallelism * 2;
+        Semaphore inFlight = new Semaphore(permits);
+        AtomicLong migrated = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        System.out.println("开始迁移 " + StockIndexService.COLLECTION + " 到存储版本 " + StockData.SCHEMA_VERSION);
+        try (MongoCursor<Document> cursor = collection.find(Filters.ne("schemaVersion", StockData.SCHEMA_VERSION))
+                .batchSize(batchSize)
+                .iterator()) {
+            List<Document> batch = new ArrayList<>(batchSize);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize) {
+                    submit(pool, inFlight, collection, batch, migrated, failed);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(pool, inFlight, collection, batch, migrated, failed);
+            }
+            // 等待所有在途批次完成
+            inFlight.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.incrementAndGet();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (failed.get() == 0) {
+            mongoTemplate.getCollection(MIGRATIONS).replaceOne(
+                    Filters.eq("_id", StockIndexService.COLLECTION),
+                    new Document("_id", StockIndexService.COLLECTION)
+                            .append("version", StockData.SCHEMA_VERSION)
+                            .append("migratedAt", new Date()),
+                    new ReplaceOptions().upsert(true));
+        }
+        System.out.println("存储迁移结束: 改写 " + migrated.get() + " 条, 失败 " + failed.get()
+                + " 条, 耗时 " + (System.currentTimeMillis() - start) + " ms");
+        return migrated.get();
+    }
+
+    private static void submit(ExecutorService pool, Semaphore inFlight, MongoCollection<Document> collection,
+                               List<Document> batch, AtomicLong migrated, AtomicLong failed) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            pool.execute(() -> {
+                try {
+                    collection.bulkWrite(updates(batch), new BulkWriteOptions().ordered(false));
+                    migrated.addAndGet(batch.size());
+                } catch (RuntimeException e) {
+                    System.out.println("存储迁移批次失败: " + e.getMessage());
+                    failed.addAndGet(batch.size());
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    // 只改写转换后的列，去掉冗余的 timestamp_iso 和已改存价格分桶的 historicalPrices，其余字段保持不变
+    private static List<WriteModel<Document>> updates(List<Document> batch) {
+        List<WriteModel<Document>> models = new ArrayList<>(batch.size());
+        for (Document doc : batch) {
+            List<Bson> changes = new ArrayList<>();
+            for (Map.Entry<String, Object> field : StockDataReadConverter.typed(doc).entrySet()) {
+                changes.add(Updates.set(field.getKey(), field.getValue()));
+            }
+            for (String dropped : DROPPED_FIELDS) {
+                if (doc.containsKey(dropped)) {
+                    changes.add(Updates.unset(dropped));
+                }
+            }
+            models.add(new UpdateOneModel<>(Filters.eq("_id", doc.get("_id")), Updates.combine(changes)));
+        }
+        return models;
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.test1.service;
+
+import com.example.test1.model.StockData;
+import com.example.test1.model.StockRow;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按需投影的行情查询：只从 Mongo 取回请求的列，直接由 BSON 文档构造紧凑结果，
+ * 不经过 StockData 实体和 BigDecimal。支持逐行（{@link StockRow}）和按列两种输出。
+ */
+@Service
+public class SeriesQueryService {
+
+    // 可通过 fields 选择的列，timestamp 总是返回
+    public static final List<String> FIELDS = List.of("name", "last", "high", "low", "chg", "chgPercent", "vol", "time");
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SymbolResolver symbolResolver;
+
+    // "last,vol" -> [last, vol]；为空时返回全部列，含未知列名时返回 null
+    public static Set<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return new LinkedHashSet<>(FIELDS);
+        }
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String trimmed = field.trim();
+            if (!trimmed.isEmpty()) {
+                if (!FIELDS.contains(trimmed)) {
+                    return null;
+                }
+                parsed.add(trimmed);
+            }
+        }
+        return parsed;
+    }
+
+    public List<StockRow> rows(String name, LocalDateTime from, LocalDateTime to, Set<String> fields) {
+        List<StockRow> rows = new ArrayList<>();
+        Bson filter = nameFilter(name, from, to);
+        if (filter != null) {
+            for (Document doc : find(filter, fields)) {
+                rows.add(toRow(doc));
+            }
+        }
+        return rows;
+    }
+
+    public List<StockRow> rowsByTime(LocalDateTime from, LocalDateTime to, Set<String> fields) {
+        List<StockRow> rows = new ArrayList<>();
+        for (Document doc : find(timeFilter(from, to), fields)) {
+            rows.add(toRow(doc));
+        }
+        return rows;
+    }
+
+    // {t:[...], last:[...], vol:[...]}：数值列为原始类型数组，缺失的价格为 NaN、成交量为 -1
+    public Map<String, Object> columns(String name, LocalDateTime from, LocalDateTime to, Set<String> fields) {
+        Columns columns = new Columns(List.copyOf(fields));
+        Bson filter = nameFilter(name, from, to);
+        if (filter != null) {
+            for (Document doc : find(filter, fields)) {
+                columns.add(doc);
+            }
+        }
+        return columns.toMap();
+    }
+
+    private Bson nameFilter(String name, LocalDateTime from, LocalDateTime to) {
+        List<String> keys = symbolResolver.resolveKeys(name);
+        return keys.isEmpty() ? null : Filters.and(Filters.in("nameKey", keys), timeFilter(from, to));
+    }
+
+    private static Bson timeFilter(LocalDateTime from, LocalDateTime to) {
+        return Filters.and(
+                Filters.gte("timestamp", Date.from(from.atZone(ZONE).toInstant())),
+                Filters.lte("timestamp", Date.from(to.atZone(ZONE).toInstant())));
+    }
+
+    private FindIterable<Document> find(Bson filter, Set<String> fields) {
+        List<String> include = new ArrayList<>(fields);
+        include.add("timestamp");
+        return mongoTemplate.getCollection(StockIndexService.COLLECTION)
+                .find(filter)
+                .projection(Projections.fields(Projections.include(include), Projections.excludeId()))
+                .sort(Sorts.ascending("timestamp"))
+                .batchSize(BATCH_SIZE);
+    }
+
+    // 未投影的列在文档中不存在，对应字段为 null
+    static StockRow toRow(Document doc) {
+        return new StockRow(
+                doc.getDate("timestamp").getTime(),
+                doc.getString("name"),
+                CandleService.toDouble(doc.get("last")),
+                CandleService.toDouble(doc.get("high")),
+                CandleService.toDouble(doc.get("low")),
+                CandleService.toDouble(doc.get("chg")),
+                CandleService.toPercent(doc.get("chgPercent")),
+                CandleService.toLong(doc.get("vol")),
+                doc.get("time") == null ? null : doc.get("time").toString());
+    }
+
+    // advanced-search、batch-search 的行：由实体转换，格式与投影查询的行相同，t 为 epoch 毫秒
+    public static StockRow toRow(StockData sd) {
+        return new StockRow(
+                sd.getTimestamp().atZone(ZONE).toInstant().toEpochMilli(),
+                sd.getName(),
+                sd.getLast(),
+                sd.getHigh(),
+                sd.getLow(),
+                sd.getChg(),
+                sd.getChgPercent(),
+                sd.getVol(),
+                sd.getTime());
+    }
+
+    private static final class Columns {
+
+        private final List<String> fields;
+        private final Object[] data;
+        private long[] t = new long[256];
+        private int size;
+
+        Columns(List<String> fields) {
+            this.fields = fields;
+            this.data = new Object[fields.size()];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = switch (fields.get(i)) {
+                    case "name", "time" -> new String[t.length];
+                    case "vol" -> new long[t.length];
+                    default -> new double[t.length];
+                };
+            }
+        }
+
+        void add(Document doc) {
+            if (size == t.length) {
+                grow(size * 2);
+            }
+            t[size] = doc.getDate("timestamp").getTime();
+            for (int i = 0; i < data.length; i++) {
+                String field = fields.get(i);
+                Object value = doc.get(field);
+                switch (data[i]) {
+                    case String[] strings -> strings[size] = value == null ? null : value.toString();
+                    case long[] longs -> {
+                        Long parsed = CandleService.toLong(value);
+                        longs[size] = parsed == null ? StockTickBatch.VOL_MISSING : parsed;
+                    }
+                    case double[] doubles -> {
+                        Double parsed = field.equals("chgPercent") ? CandleService.toPercent(value) : CandleService.toDouble(value);
+                        doubles[size] = parsed == null ? Double.NaN : parsed;
+                    }
+                    default -> throw new IllegalStateException(field);
+                }
+            }
+            size++;
+        }
+
+        Map<String, Object> toMap() {
+            grow(size);
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("t", t);
+            for (int i = 0; i < data.length; i++) {
+                map.put(fields.get(i), data[i]);
+            }
+            return map;
+        }
+
+        private void grow(int capacity) {
+            t = Arrays.copyOf(t, capacity);
+            for (int i = 0; i < data.length; i++) {
+                data[i] = switch (data[i]) {
+                    case String[] strings -> Arrays.copyOf(strings, capacity);
+                    case long[] longs -> Arrays.copyOf(longs, capacity);
+                    case double[] doubles -> Arrays.copyOf(doubles, capacity);
+                    default -> throw new IllegalStateException(fields.get(i));
+                };
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.test1.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动时的后台任务：索引创建、存储迁移检查、导入提交和数据预热。
+ * 任务按提交顺序在单个后台线程上执行，端口打开和 ApplicationReadyEvent 不再等待它们。
+ * 本类同时是 readiness 健康组的一员（见 application.properties），任务全部完成前
+ * /actuator/health/readiness 为 OUT_OF_SERVICE，有任务失败时为 DOWN。
+ * 每个任务记录为一个 ApplicationStartup 步骤（stock.startup.&lt;name&gt;），耗时见 /actuator/startup。
+ */
+@Service
+public class StartupTasks implements HealthIndicator, MeterBinder {
+
+    private enum Status { PENDING, RUNNING, DONE, FAILED }
+
+    private static final class Task {
+        private volatile Status status = Status.PENDING;
+        private volatile long durationMillis;
+        private volatile String error;
+    }
+
+    @Autowired
+    private ApplicationStartup applicationStartup;
+
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "startup-tasks");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // JVM 启动到全部任务完成（readiness 可以转为 UP）的毫秒数，未完成时为 -1
+    private volatile long readyMillis = -1;
+
+    // 排队执行一个启动任务；同名任务只保留最后一次的状态
+    public void submit(String name, Runnable task) {
+        Task state = new Task();
+        synchronized (tasks) {
+            tasks.put(name, state);
+            readyMillis = -1;
+        }
+        executor.submit(() -> run(name, state, task));
+    }
+
+    private void run(String name, Task state, Runnable task) {
+        state.status = Status.RUNNING;
+        StartupStep step = applicationStartup.start("stock.startup." + name);
+        long start = System.nanoTime();
+        try {
+            task.run();
+            state.status = Status.DONE;
+        } catch (RuntimeException e) {
+            state.error = e.getMessage();
+            state.status = Status.FAILED;
+            step.tag("error", String.valueOf(e.getMessage()));
+            System.out.println("启动任务 " + name + " 失败: " + e.getMessage());
+        } finally {
+            state.durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            step.end();
+        }
+        System.out.println("启动任务 " + name + " 结束，耗时 " + state.durationMillis + "ms");
+        synchronized (tasks) {
+            if (tasks.values().stream().allMatch(t -> t.status == Status.DONE || t.status == Status.FAILED)) {
+                readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+                System.out.println("启动任务全部完成，距 JVM 启动 " + readyMillis + "ms");
+            }
+        }
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        boolean pending = false;
+        boolean failed = false;
+        synchronized (tasks) {
+            for (Map.Entry<String, Task> e : tasks.entrySet()) {
+                Task task = e.getValue();
+                Map<String, Object> detail = new LinkedHashMap<>();
+                detail.put("status", task.status.name());
+                if (task.status == Status.DONE || task.status == Status.FAILED) {
+                    detail.put("durationMs", task.durationMillis);
+                }
+                if (task.error != null) {
+                    detail.put("error", task.error);
+                }
+                details.put(e.getKey(), detail);
+                pending |= task.status == Status.PENDING || task.status == Status.RUNNING;
+                failed |= task.status == Status.FAILED;
+            }
+        }
+        Health.Builder builder = failed ? Health.down() : pending ? Health.outOfService() : Health.up();
+        if (readyMillis >= 0) {
+            details.put("readyMs", readyMillis);
+        }
+        return builder.withDetails(details).build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        TimeGauge.builder("stock.startup.ready.time", this, TimeUnit.MILLISECONDS,
+                        s -> s.readyMillis < 0 ? Double.NaN : s.readyMillis)
+                .description("JVM 启动到启动任务全部完成的耗时")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
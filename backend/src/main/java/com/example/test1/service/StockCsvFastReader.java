@@ -0,0 +1,579 @@
+package com.example.test1.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * stocks.csv 标准布局（timestamp,name,last,high,low,chg,chg%,vol,time）的快速读取器。
+ * 文件通过 NIO 内存映射，按字节直接解析为 long/double 列，单元格不产生中间 String；
+ * 名称和 time 列经过小型驻留表复用同一个 String 实例。
+ * 文件可在行边界处切分为多个分片，由多个线程并行解析。
+ * 含引号、列数不符或数值格式异常的行交给调用方用 commons-csv 兜底解析。
+ */
+public final class StockCsvFastReader implements Closeable {
+
+    public static final List<String> LAYOUT = List.of(
+            "timestamp", "name", "last", "high", "low", "chg", "chgPercent", "vol", "time");
+
+    private static final int COLUMNS = LAYOUT.size();
+    // 单个映射区域不超过 1GB，远小于 MappedByteBuffer 的 2GB 上限
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+    private static final int HEADER_PROBE_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long dataStart;
+    private final List<String> headerNames;
+    private final boolean supportsLayout;
+
+    /** 文件中一段以完整行开头、以完整行结束的字节区间 [start, end)。 */
+    public record Chunk(long start, long end) {
+    }
+
+    /** 解析结果回调，同一分片内按文件顺序调用。 */
+    public interface Handler {
+        void onBatch(StockTickBatch batch);
+
+        void onMalformedLine(String line);
+    }
+
+    public static StockCsvFastReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new StockCsvFastReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private StockCsvFastReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(size, HEADER_PROBE_BYTES));
+        while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+            // 读满探测缓冲区或到达文件末尾
+        }
+        int read = head.position();
+        int eol = -1;
+        for (int i = 0; i < read; i++) {
+            if (head.get(i) == '\n') {
+                eol = i;
+                break;
+            }
+        }
+        int headerEnd = eol < 0 ? read : eol;
+        this.dataStart = eol < 0 ? size : eol + 1;
+
+        String header = new String(head.array(), 0, headerEnd, StandardCharsets.UTF_8);
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        List<String> names = new ArrayList<>();
+        boolean matches = true;
+        for (String column : header.split(",", -1)) {
+            String name = column.trim();
+            if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+                name = name.substring(1, name.length() - 1).trim();
+            }
+            int index = names.size();
+            names.add(name);
+            matches &= index < COLUMNS && CsvRowMapper.normalizeHeader(name).equalsIgnoreCase(LAYOUT.get(index));
+        }
+        this.headerNames = List.copyOf(names);
+        this.supportsLayout = matches && names.size() == COLUMNS;
+    }
+
+    public List<String> headerNames() {
+        return headerNames;
+    }
+
+    public boolean supportsLayout() {
+        return supportsLayout;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long dataStart() {
+        return dataStart;
+    }
+
+    /**
+     * 从 {@code from}（不早于数据区起点）到文件末尾，切分为约 {@code parts} 个按行对齐的分片。
+     */
+    public List<Chunk> split(long from, int parts) throws IOException {
+        return split(from, size, parts);
+    }
+
+    /**
+     * 把 [from, to) 切分为约 {@code parts} 个按行对齐的分片，{@code to} 应为行首或文件末尾。
+     */
+    public List<Chunk> split(long from, long to, int parts) throws IOException {
+        long begin = Math.max(from, dataStart);
+        long limit = Math.min(to, size);
+        List<Chunk> chunks = new ArrayList<>();
+        if (begin >= limit) {
+            return chunks;
+        }
+        long length = limit - begin;
+        long count = Math.max(Math.max(1, parts), (length + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        long start = begin;
+        for (long k = 1; k <= count && start < limit; k++) {
+            long end = k == count ? limit : Math.min(limit, alignToLineStart(Math.max(start, begin + length * k / count)));
+            if (end > start) {
+                chunks.add(new Chunk(start, end));
+                start = end;
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * 最后一个换行符之后的位置。文件末尾没有换行时，最后一行可能仍在追加中，不计入已完成部分。
+     */
+    public long completeLinesEnd() throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        long end = size;
+        while (end > dataStart) {
+            long start = Math.max(dataStart, end - buf.capacity());
+            buf.clear().limit((int) (end - start));
+            int n = channel.read(buf, start);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                if (buf.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return dataStart;
+    }
+
+    /**
+     * 文件前 {@code length} 字节的 SHA-256，用于判断文件是否仍是同一个（只追加）文件。
+     */
+    public String headFingerprint(long length) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        long pos = 0;
+        long limit = Math.min(length, size);
+        while (pos < limit) {
+            buf.clear().limit((int) Math.min(buf.capacity(), limit - pos));
+            int n = channel.read(buf, pos);
+            if (n <= 0) {
+                break;
+            }
+            buf.flip();
+            digest.update(buf);
+            pos += n;
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 读取 [from, to) 区间的输入流，供 commons-csv 兜底路径从检查点位置续读。
+     */
+    public InputStream newInputStream(long from, long to) {
+        return new InputStream() {
+            private final byte[] single = new byte[1];
+            private long pos = from;
+
+            @Override
+            public int read() throws IOException {
+                return read(single, 0, 1) <= 0 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (pos >= to) {
+                    return -1;
+                }
+                int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, to - pos)), pos);
+                if (n > 0) {
+                    pos += n;
+                }
+                return n;
+            }
+        };
+    }
+
+    // 返回位置 pos 之后（含）第一个行首，pos 本身即行首时原样返回
+    private long alignToLineStart(long pos) throws IOException {
+        if (pos <= dataStart || pos >= size) {
+            return Math.min(Math.max(pos, dataStart), size);
+        }
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        long offset = pos - 1;
+        while (offset < size) {
+            buf.clear();
+            int n = channel.read(buf, offset);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += n;
+        }
+        return size;
+    }
+
+    /**
+     * 解析一个分片，每满 {@code batchSize} 行回调一次 {@link Handler#onBatch}。
+     */
+    public void parse(Chunk chunk, int batchSize, Handler handler) throws IOException {
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.end() - chunk.start());
+        new ChunkParser(buf, batchSize, handler).run();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 单个分片的解析状态，只被一个线程使用。
+     */
+    private static final class ChunkParser {
+        private static final ZoneRules ZONE_RULES = ZoneId.systemDefault().getRules();
+
+        private final ByteBuffer buf;
+        private final int batchSize;
+        private final Handler handler;
+        private final StringTable names = new StringTable();
+        private final StringTable times = new StringTable();
+        private final int[] fieldStart = new int[COLUMNS];
+        private final int[] fieldEnd = new int[COLUMNS];
+
+        private StockTickBatch batch;
+        // 时间解析游标
+        private int cursor;
+        // 数值解析失败标记，避免为每个单元格抛异常
+        private boolean bad;
+        // 时区偏移缓存：同一本地小时内偏移不变
+        private long cachedLocalHour = Long.MIN_VALUE;
+        private long cachedOffsetSeconds;
+
+        ChunkParser(ByteBuffer buf, int batchSize, Handler handler) {
+            this.buf = buf;
+            this.batchSize = batchSize;
+            this.handler = handler;
+            this.batch = new StockTickBatch(batchSize);
+        }
+
+        void run() {
+            int limit = buf.limit();
+            int pos = 0;
+            while (pos < limit) {
+                int lineEnd = pos;
+                while (lineEnd < limit && buf.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd;
+                if (contentEnd > pos && buf.get(contentEnd - 1) == '\r') {
+                    contentEnd--;
+                }
+                if (contentEnd > pos && !parseLine(pos, contentEnd)) {
+                    handler.onMalformedLine(decode(pos, contentEnd));
+                }
+                pos = lineEnd + 1;
+            }
+            if (batch.size() > 0) {
+                handler.onBatch(batch);
+            }
+        }
+
+        private boolean parseLine(int start, int end) {
+            int field = 0;
+            int fieldBegin = start;
+            for (int i = start; i <= end; i++) {
+                byte b = i < end ? buf.get(i) : (byte) ',';
+                if (b == '"') {
+                    return false;
+                }
+                if (b == ',') {
+                    if (field == COLUMNS) {
+                        return false;
+                    }
+                    int s = fieldBegin;
+                    int e = i;
+                    while (s < e && buf.get(s) == ' ') {
+                        s++;
+                    }
+                    while (e > s && buf.get(e - 1) == ' ') {
+                        e--;
+                    }
+                    fieldStart[field] = s;
+                    fieldEnd[field] = e;
+                    field++;
+                    fieldBegin = i + 1;
+                }
+            }
+            if (field != COLUMNS) {
+                return false;
+            }
+
+            bad = false;
+            long timestamp = parseTimestamp(fieldStart[0], fieldEnd[0]);
+            double last = parseDecimal(fieldStart[2], fieldEnd[2], false);
+            double high = parseDecimal(fieldStart[3], fieldEnd[3], false);
+            double low = parseDecimal(fieldStart[4], fieldEnd[4], false);
+            double chg = parseDecimal(fieldStart[5], fieldEnd[5], false);
+            double chgPercent = parseDecimal(fieldStart[6], fieldEnd[6], true);
+            long vol = parseVolume(fieldStart[7], fieldEnd[7]);
+            if (bad || fieldStart[1] == fieldEnd[1]) {
+                return false;
+            }
+            String name = names.intern(buf, fieldStart[1], fieldEnd[1]);
+            String time = fieldStart[8] == fieldEnd[8] ? null : times.intern(buf, fieldStart[8], fieldEnd[8]);
+
+            batch.add(timestamp, name, last, high, low, chg, chgPercent, vol, time);
+            if (batch.isFull()) {
+                handler.onBatch(batch);
+                batch = new StockTickBatch(batchSize);
+            }
+            return true;
+        }
+
+        // 仅接受 yyyy-M-d H:mm:ss（'@' 视为 '0'，小时大于 23 截断为 23），其他写法交给兜底路径
+        private long parseTimestamp(int s, int e) {
+            cursor = s;
+            int year = readDigits(e, 4, 4);
+            expect(e, '-');
+            int month = readDigits(e, 1, 2);
+            expect(e, '-');
+            int day = readDigits(e, 1, 2);
+            expect(e, ' ');
+            int hour = readDigits(e, 1, 2);
+            expect(e, ':');
+            int minute = readDigits(e, 2, 2);
+            expect(e, ':');
+            int second = readDigits(e, 2, 2);
+            if (bad || cursor != e || month < 1 || month > 12 || day < 1 || day > monthLength(year, month)
+                    || minute > 59 || second > 59) {
+                bad = true;
+                return 0L;
+            }
+            if (hour > 23) {
+                hour = 23;
+            }
+
+            long localSeconds = daysFromCivil(year, month, day) * 86_400L + hour * 3_600L + minute * 60L + second;
+            long localHour = Math.floorDiv(localSeconds, 3_600L);
+            if (localHour != cachedLocalHour) {
+                LocalDateTime ldt = LocalDateTime.ofEpochSecond(localSeconds, 0, ZoneOffset.UTC);
+                cachedOffsetSeconds = ZONE_RULES.getOffset(ldt).getTotalSeconds();
+                cachedLocalHour = localHour;
+            }
+            return (localSeconds - cachedOffsetSeconds) * 1000L;
+        }
+
+        private int readDigits(int end, int min, int max) {
+            int value = 0;
+            int count = 0;
+            int i = cursor;
+            while (i < end && count < max) {
+                int b = buf.get(i);
+                if (b == '@') {
+                    b = '0';
+                }
+                if (b < '0' || b > '9') {
+                    break;
+                }
+                value = value * 10 + (b - '0');
+                count++;
+                i++;
+            }
+            if (count < min) {
+                bad = true;
+            }
+            cursor = i;
+            return value;
+        }
+
+        private void expect(int end, char c) {
+            if (cursor < end && buf.get(cursor) == c) {
+                cursor++;
+            } else {
+                bad = true;
+            }
+        }
+
+        // [+-]digits[.digits][%]，空单元格返回 NaN
+        private double parseDecimal(int s, int e, boolean allowPercent) {
+            if (allowPercent && e > s && buf.get(e - 1) == '%') {
+                e--;
+            }
+            if (s == e) {
+                return Double.NaN;
+            }
+            boolean negative = false;
+            byte first = buf.get(s);
+            if (first == '-' || first == '+') {
+                negative = first == '-';
+                s++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int fraction = -1;
+            for (int i = s; i < e; i++) {
+                byte b = buf.get(i);
+                if (b == '.' && fraction < 0) {
+                    fraction = 0;
+                    continue;
+                }
+                if (b < '0' || b > '9') {
+                    bad = true;
+                    return Double.NaN;
+                }
+                if (digits >= 18) {
+                    // 超出 long 精度的极端情况，退回 JDK 解析
+                    return parseSlow(negative ? s - 1 : s, e);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            }
+            if (digits == 0 || fraction == 0) {
+                bad = true;
+                return Double.NaN;
+            }
+            double value = fraction > 0 ? mantissa / POWERS_OF_TEN[fraction] : mantissa;
+            return negative ? -value : value;
+        }
+
+        private double parseSlow(int s, int e) {
+            try {
+                return Double.parseDouble(decode(s, e));
+            } catch (NumberFormatException ex) {
+                bad = true;
+                return Double.NaN;
+            }
+        }
+
+        // 支持 12345、12.5K、3.2M、1.1B，"-" 或空表示缺失
+        private long parseVolume(int s, int e) {
+            if (s == e || (e - s == 1 && buf.get(s) == '-')) {
+                return StockTickBatch.VOL_MISSING;
+            }
+            double multiplier = switch (buf.get(e - 1)) {
+                case 'K', 'k' -> 1e3;
+                case 'M', 'm' -> 1e6;
+                case 'B', 'b' -> 1e9;
+                default -> 1;
+            };
+            if (multiplier != 1) {
+                e--;
+            }
+            double value = parseDecimal(s, e, false);
+            return bad ? StockTickBatch.VOL_MISSING : Math.round(value * multiplier);
+        }
+
+        private String decode(int s, int e) {
+            byte[] bytes = new byte[e - s];
+            buf.get(s, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+        1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097 + doe - 719_468;
+    }
+
+    private static int monthLength(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * 按字节内容驻留字符串的开放寻址表，容量满后直接解码不再缓存。
+     */
+    private static final class StringTable {
+        private static final int CAPACITY = 1024;
+        private final byte[][] keys = new byte[CAPACITY][];
+        private final String[] values = new String[CAPACITY];
+        private int count;
+
+        String intern(ByteBuffer buf, int s, int e) {
+            int len = e - s;
+            int hash = 1;
+            for (int i = s; i < e; i++) {
+                hash = 31 * hash + buf.get(i);
+            }
+            int idx = (hash ^ (hash >>> 16)) & (CAPACITY - 1);
+            for (int probe = 0; probe < CAPACITY; probe++) {
+                byte[] key = keys[idx];
+                if (key == null) {
+                    byte[] bytes = new byte[len];
+                    buf.get(s, bytes);
+                    String value = new String(bytes, StandardCharsets.UTF_8);
+                    if (count < CAPACITY / 2) {
+                        keys[idx] = bytes;
+                        values[idx] = value;
+                        count++;
+                    }
+                    return value;
+                }
+                if (key.length == len && matches(key, buf, s)) {
+                    return values[idx];
+                }
+                idx = (idx + 1) & (CAPACITY - 1);
+            }
+            byte[] bytes = new byte[len];
+            buf.get(s, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static boolean matches(byte[] key, ByteBuffer buf, int s) {
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buf.get(s + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
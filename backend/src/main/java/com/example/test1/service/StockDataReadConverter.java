@@ -0,0 +1,77 @@
+package com.example.test1.service;
+
+import com.example.test1.model.StockData;
+import org.bson.Document;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 读取 stock_data 文档时兼容新旧两种存储形态（见 {@link StockData#SCHEMA_VERSION}）。
+ * 旧文档中价格可能是字符串、成交量为 "12.5M"、涨跌幅为 "1.23%"，统一转换为数值；
+ * 迁移任务用同一套规则生成新形态的字段。
+ */
+@ReadingConverter
+public class StockDataReadConverter implements Converter<Document, StockData> {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    static final List<String> PRICE_FIELDS = List.of("last", "high", "low", "chg");
+
+    @Override
+    public StockData convert(Document source) {
+        Document typed = typed(source);
+        StockData data = new StockData();
+        data.setId(source.get("_id") == null ? null : source.get("_id").toString());
+        Date timestamp = typed.getDate("timestamp");
+        data.setTimestamp(timestamp == null ? null : LocalDateTime.ofInstant(timestamp.toInstant(), ZONE));
+        String name = source.get("name") == null ? null : source.get("name").toString();
+        data.setName(name);
+        data.setNameKey(source.get("nameKey") instanceof String nameKey ? nameKey : StockData.nameKeyOf(name));
+        data.setLast(typed.getDouble("last"));
+        data.setHigh(typed.getDouble("high"));
+        data.setLow(typed.getDouble("low"));
+        data.setChg(typed.getDouble("chg"));
+        data.setChgPercent(typed.getDouble("chgPercent"));
+        data.setVol(typed.getLong("vol"));
+        data.setTime(source.get("time") == null ? null : source.get("time").toString());
+        return data;
+    }
+
+    // 按当前存储形态转换各数值列和 timestamp；无法识别的值为 null，原文档没有的列不出现
+    static Document typed(Document source) {
+        Document typed = new Document();
+        Date timestamp = toDate(source.get("timestamp"));
+        if (timestamp != null) {
+            typed.put("timestamp", timestamp);
+        }
+        for (String field : PRICE_FIELDS) {
+            if (source.containsKey(field)) {
+                typed.put(field, CandleService.toDouble(source.get(field)));
+            }
+        }
+        if (source.containsKey("chgPercent")) {
+            typed.put("chgPercent", CandleService.toPercent(source.get("chgPercent")));
+        }
+        if (source.containsKey("vol")) {
+            typed.put("vol", CandleService.toLong(source.get("vol")));
+        }
+        typed.put("schemaVersion", StockData.SCHEMA_VERSION);
+        return typed;
+    }
+
+    private static Date toDate(Object value) {
+        if (value instanceof Date date) {
+            return date;
+        }
+        if (value instanceof String text && !text.isBlank()) {
+            LocalDateTime parsed = CsvRowMapper.parseTimestamp(CsvRowMapper.cleanTimestamp(text.trim()));
+            return Date.from(parsed.atZone(ZONE).toInstant());
+        }
+        return null;
+    }
+}
@@ -1,20 +1,40 @@
 package com.example.test1.service;
 
 import com.example.test1.model.StockData;
+import com.example.test1.model.StockDataSlice;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public interface StockDataService {
     Page<StockData> getAllStockData(Pageable pageable);
 
+    // 键集分页：按 (timestamp, _id) 倒序，从 cursor 之后取 size 条，深页与第一页代价相同；
+    // cursor 为 null 时从最新一条开始，无法识别时抛出 IllegalArgumentException
+    StockDataSlice scroll(String cursor, int size, boolean withTotal);
+
     List<StockData> searchByName(String name);
 
     List<StockData> filterByTimeRange(LocalDateTime startTime, LocalDateTime endTime);
 
+    // 与 filterByTimeRange 相同的条件，以游标流的形式逐条返回，调用方负责关闭
+    Stream<StockData> streamByTimeRange(LocalDateTime startTime, LocalDateTime endTime);
+
     List<StockData> searchByNameAndTimeRange(String name, LocalDateTime startTime, LocalDateTime endTime);
 
+    // 与 searchByNameAndTimeRange 相同的条件，但以游标流的形式逐条返回，调用方负责关闭
+    Stream<StockData> streamByNameAndTimeRange(String name, LocalDateTime startTime, LocalDateTime endTime);
+
+    // 一次查询多个已解析的 nameKey，按 (nameKey, timestamp) 升序以游标流返回，调用方负责关闭
+    Stream<StockData> streamByNameKeys(Collection<String> nameKeys, LocalDateTime startTime, LocalDateTime endTime);
+
+    // 调试：返回 searchByNameAndTimeRange 实际执行计划的摘要
+    Map<String, Object> explainSearchByNameAndTimeRange(String name, LocalDateTime startTime, LocalDateTime endTime);
+
     StockData saveStockData(StockData stockData);
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.example.test1.service;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * stock_data 的索引维护。
+ * (name, timestamp) 是导入 upsert 的幂等键；(nameKey, timestamp) 支撑按名称+时间范围的查询；
+ * (timestamp, _id) 支撑按时间范围的查询和键集分页。
+ * 旧数据缺少 nameKey 时在建索引前先回填。
+ */
+@Service
+public class StockIndexService {
+
+    public static final String COLLECTION = "stock_data";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private volatile boolean ensured;
+
+    public synchronized void ensureIndexes() {
+        if (ensured) {
+            return;
+        }
+        backfillNameKeys();
+
+        IndexOperations ops = mongoTemplate.indexOps(COLLECTION);
+        try {
+            ops.createIndex(nameTimestampIndex().unique());
+        } catch (RuntimeException e) {
+            // 历史数据中已有重复记录时无法建唯一索引，退回普通索引保证 upsert 查询走索引
+            System.out.println("无法创建 (name, timestamp) 唯一索引，改用普通索引: " + e.getMessage());
+            ops.createIndex(nameTimestampIndex());
+        }
+        ops.createIndex(new Index()
+                .on("nameKey", Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.ASC)
+                .named("nameKey_timestamp"));
+        // 按时间范围查询和键集分页的 (timestamp, _id) 排序共用；它覆盖了旧的单列 timestamp 索引
+        ops.createIndex(new Index()
+                .on("timestamp", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named("timestamp_id"));
+        dropIndexIfExists(ops, "timestamp");
+        ensured = true;
+        System.out.println("stock_data 索引已就绪: " + ops.getIndexInfo().stream().map(i -> i.getName()).toList());
+    }
+
+    private static void dropIndexIfExists(IndexOperations ops, String name) {
+        if (ops.getIndexInfo().stream().anyMatch(i -> i.getName().equals(name))) {
+            ops.dropIndex(name);
+        }
+    }
+
+    private static Index nameTimestampIndex() {
+        return new Index().on("name", Sort.Direction.ASC).on("timestamp", Sort.Direction.ASC).named("name_timestamp");
+    }
+
+    // nameKey = toLower(trim(name))，用服务端管道更新一次性回填
+    private void backfillNameKeys() {
+        UpdateResult result = mongoTemplate.getCollection(COLLECTION).updateMany(
+                Filters.and(Filters.exists("nameKey", false), Filters.type("name", "string")),
+                List.of(new Document("$set", new Document("nameKey",
+                        new Document("$toLower", new Document("$trim", new Document("input", "$name")))))));
+        if (result.getModifiedCount() > 0) {
+            System.out.println("已为 " + result.getModifiedCount() + " 条旧数据回填 nameKey");
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.test1.service;
+
+import com.example.test1.model.StockData;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一批按列存放的行情记录，由 {@link StockCsvFastReader} 直接从字节填充。
+ * 缺失的价格用 NaN 表示，缺失的成交量用 {@link #VOL_MISSING} 表示。
+ */
+public final class StockTickBatch {
+
+    public static final long VOL_MISSING = -1L;
+
+    private final long[] timestamps;
+    private final String[] names;
+    private final double[] last;
+    private final double[] high;
+    private final double[] low;
+    private final double[] chg;
+    private final double[] chgPercent;
+    private final long[] vol;
+    private final String[] time;
+    private int size;
+
+    public StockTickBatch(int capacity) {
+        this.timestamps = new long[capacity];
+        this.names = new String[capacity];
+        this.last = new double[capacity];
+        this.high = new double[capacity];
+        this.low = new double[capacity];
+        this.chg = new double[capacity];
+        this.chgPercent = new double[capacity];
+        this.vol = new long[capacity];
+        this.time = new String[capacity];
+    }
+
+    public void add(long timestamp, String name, double last, double high, double low,
+                    double chg, double chgPercent, long vol, String time) {
+        int i = size++;
+        this.timestamps[i] = timestamp;
+        this.names[i] = name;
+        this.last[i] = last;
+        this.high[i] = high;
+        this.low[i] = low;
+        this.chg[i] = chg;
+        this.chgPercent[i] = chgPercent;
+        this.vol[i] = vol;
+        this.time[i] = time;
+    }
+
+    public int size() { return size; }
+    public boolean isFull() { return size == timestamps.length; }
+
+    public long timestamp(int i) { return timestamps[i]; }
+    public String name(int i) { return names[i]; }
+    public double last(int i) { return last[i]; }
+    public double high(int i) { return high[i]; }
+    public double low(int i) { return low[i]; }
+    public double chg(int i) { return chg[i]; }
+    public double chgPercent(int i) { return chgPercent[i]; }
+    public long vol(int i) { return vol[i]; }
+    public String time(int i) { return time[i]; }
+
+    // 转换为与 commons-csv 路径一致字段名的 BSON 文档
+    public List<Document> toDocuments() {
+        List<Document> docs = new ArrayList<>(size);
+        // 名称已驻留，按实例缓存归一化键
+        Map<String, String> nameKeys = new IdentityHashMap<>();
+        for (int i = 0; i < size; i++) {
+            Document doc = new Document();
+            doc.put("timestamp", new Date(timestamps[i]));
+            doc.put("name", names[i]);
+            doc.put("nameKey", nameKeys.computeIfAbsent(names[i], StockData::nameKeyOf));
+            doc.put("last", boxed(last[i]));
+            doc.put("high", boxed(high[i]));
+            doc.put("low", boxed(low[i]));
+            doc.put("chg", boxed(chg[i]));
+            doc.put("chgPercent", boxed(chgPercent[i]));
+            doc.put("vol", vol[i] == VOL_MISSING ? null : vol[i]);
+            doc.put("time", time[i]);
+            doc.put("schemaVersion", StockData.SCHEMA_VERSION);
+            docs.add(doc);
+        }
+        return docs;
+    }
+
+    private static Double boxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
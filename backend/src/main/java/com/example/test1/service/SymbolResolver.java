@@ -0,0 +1,78 @@
+package com.example.test1.service;
+
+import com.example.test1.model.StockData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把用户输入的模糊名称解析为库中实际存在的名称键（nameKey）。
+ * 名称列表来自 name 的 distinct（走 name_timestamp 索引），本地缓存一分钟；
+ * 之后的范围查询只对解析出的精确键做 $in，能够使用 (nameKey, timestamp) 索引。
+ */
+@Service
+public class SymbolResolver {
+
+    private static final long REFRESH_MILLIS = 60_000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private volatile Map<String, String> symbols = Map.of();
+    private volatile long loadedAt;
+
+    // 精确匹配优先，否则返回名称中包含输入的所有股票（与原先不区分大小写的包含匹配语义一致）
+    public List<String> resolveKeys(String query) {
+        String key = StockData.nameKeyOf(query);
+        if (key == null || key.isEmpty()) {
+            return List.of();
+        }
+        Map<String, String> known = symbols();
+        if (known.containsKey(key)) {
+            return List.of(key);
+        }
+        List<String> matches = new ArrayList<>();
+        for (String candidate : known.keySet()) {
+            if (candidate.contains(key)) {
+                matches.add(candidate);
+            }
+        }
+        return matches;
+    }
+
+    // nameKey -> 原始名称
+    public Map<String, String> symbols() {
+        if (System.currentTimeMillis() - loadedAt > REFRESH_MILLIS) {
+            refresh();
+        }
+        return symbols;
+    }
+
+    // 新股票写入后可主动刷新
+    public synchronized void refresh() {
+        Map<String, String> loaded = new LinkedHashMap<>();
+        for (String name : mongoTemplate.findDistinct(new Query(), "name", StockIndexService.COLLECTION, String.class)) {
+            loaded.putIfAbsent(StockData.nameKeyOf(name), name);
+        }
+        symbols = Map.copyOf(loaded);
+        loadedAt = System.currentTimeMillis();
+    }
+
+    // 写入路径调用：未知名称出现时加入缓存，避免等到下次刷新
+    public void register(String name) {
+        String key = StockData.nameKeyOf(name);
+        if (key != null && !symbols.containsKey(key)) {
+            synchronized (this) {
+                Map<String, String> updated = new LinkedHashMap<>(symbols);
+                updated.putIfAbsent(key, name);
+                symbols = Map.copyOf(updated);
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.test1.service;
+
+import com.example.test1.model.StockData;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 实时行情的批量写入缓冲（write-behind）。
+ * 接口线程只把转换好的文档放入内存队列后立即返回；后台刷写线程凑满 flush-size 条或等待超过 flush-interval-ms
+ * 后以无序 bulkWrite 落库，与 CSV 导入相同按 (name, timestamp) 幂等 upsert，成功后通知 {@link IngestListener}。
+ * 队列容量固定，一次请求要么全部入队要么全部拒绝，满时由调用方返回 429 让客户端稍后重试。
+ * 已接受但尚未落库的数据在进程异常退出时会丢失，关闭时会先把队列刷完。
+ */
+@Service
+public class TickIngestBuffer implements MeterBinder {
+
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SymbolResolver symbolResolver;
+
+    @Autowired(required = false)
+    private List<IngestListener> ingestListeners = List.of();
+
+    @Value("${stock.ingest.capacity:100000}")
+    private int capacity;
+
+    @Value("${stock.ingest.flush-size:1000}")
+    private int flushSize;
+
+    @Value("${stock.ingest.flush-interval-ms:50}")
+    private long flushIntervalMillis;
+
+    @Value("${stock.ingest.flush-threads:2}")
+    private int flushThreads;
+
+    // acknowledged / w1 / w2 / majority / unacknowledged 等，见 WriteConcern.valueOf
+    @Value("${stock.ingest.write-concern:acknowledged}")
+    private String writeConcernName;
+
+    private final BlockingQueue<Document> queue = new LinkedBlockingQueue<>();
+    // 剩余容量；入队前一次性申请整个请求的条数，刷写线程取出后归还
+    private Semaphore free;
+    private WriteConcern writeConcern;
+    private final List<Thread> flushers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+    private volatile int lastBatchSize;
+    private volatile Timer flushTimer;
+
+    @PostConstruct
+    void start() {
+        free = new Semaphore(Math.max(1, capacity));
+        writeConcern = WriteConcern.valueOf(writeConcernName);
+        if (writeConcern == null) {
+            System.out.println("无法识别的写关注 " + writeConcernName + "，改用 acknowledged");
+            writeConcern = WriteConcern.ACKNOWLEDGED;
+        }
+        for (int i = 0; i < Math.max(1, flushThreads); i++) {
+            Thread t = new Thread(this::flushLoop, "tick-ingest-flush-" + (i + 1));
+            t.setDaemon(true);
+            t.start();
+            flushers.add(t);
+        }
+    }
+
+    public int capacity() {
+        return Math.max(1, capacity);
+    }
+
+    // 全部入队返回 true；剩余容量不足时一条都不入队，返回 false
+    public boolean offer(List<StockData> rows) {
+        if (rows.isEmpty()) {
+            return true;
+        }
+        if (!running || !free.tryAcquire(rows.size())) {
+            rejected.addAndGet(rows.size());
+            return false;
+        }
+        Set<String> names = new HashSet<>();
+        for (StockData row : rows) {
+            queue.add(toDocument(row));
+            names.add(row.getName());
+        }
+        names.forEach(symbolResolver::register);
+        accepted.addAndGet(rows.size());
+        return true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("stock.ingest.queue.depth", queue, BlockingQueue::size).register(registry);
+        Gauge.builder("stock.ingest.queue.capacity", this, TickIngestBuffer::capacity).register(registry);
+        FunctionCounter.builder("stock.ingest.rows", accepted, AtomicLong::get).tag("result", "accepted").register(registry);
+        FunctionCounter.builder("stock.ingest.rows", rejected, AtomicLong::get).tag("result", "rejected").register(registry);
+        FunctionCounter.builder("stock.ingest.rows", written, AtomicLong::get).tag("result", "written").register(registry);
+        FunctionCounter.builder("stock.ingest.rows", failed, AtomicLong::get).tag("result", "failed").register(registry);
+        flushTimer = Timer.builder("stock.ingest.flush")
+                .description("每批 bulkWrite 的耗时")
+                .register(registry);
+    }
+
+    public Map<String, Object> stats() {
+        long count = flushes.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("capacity", capacity());
+        stats.put("accepted", accepted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("written", written.get());
+        stats.put("failed", failed.get());
+        stats.put("flushes", count);
+        stats.put("lastBatchSize", lastBatchSize);
+        stats.put("lastFlushMillis", lastFlushNanos / 1_000_000.0);
+        stats.put("avgFlushMillis", count == 0 ? 0.0 : flushNanos.get() / 1_000_000.0 / count);
+        stats.put("maxFlushMillis", maxFlushNanos.get() / 1_000_000.0);
+        stats.put("writeConcern", writeConcernName);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread flusher : flushers) {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (!queue.isEmpty()) {
+            System.out.println("关闭时仍有 " + queue.size() + " 条行情未写入");
+        }
+    }
+
+    // 与 saveStockData 写入的文档形态一致；去掉 _id，让 (name, timestamp) 相同的行覆盖原文档
+    private Document toDocument(StockData row) {
+        row.setNameKey(StockData.nameKeyOf(row.getName()));
+        row.setSchemaVersion(StockData.SCHEMA_VERSION);
+        Document doc = new Document();
+        mongoTemplate.getConverter().write(row, doc);
+        doc.remove("_id");
+        doc.remove("_class");
+        return doc;
+    }
+
+    // 停止后仍把队列中剩余的数据写完再退出
+    private void flushLoop() {
+        int size = Math.max(1, flushSize);
+        long interval = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        while (running || !queue.isEmpty()) {
+            try {
+                Document first = queue.poll(interval, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Document> batch = new ArrayList<>(size);
+                batch.add(first);
+                // 从第一条开始计时，最多再等一个间隔凑满一批
+                long deadline = System.nanoTime() + interval;
+                while (batch.size() < size) {
+                    queue.drainTo(batch, size - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= size || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Document next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                free.release(batch.size());
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("行情批量写入线程异常: " + e.getMessage());
+            }
+        }
+    }
+
+    private void flush(List<Document> batch) {
+        List<WriteModel<Document>> models = new ArrayList<>(batch.size());
+        for (Document doc : batch) {
+            models.add(new ReplaceOneModel<>(
+                    Filters.and(Filters.eq("name", doc.get("name")), Filters.eq("timestamp", doc.get("timestamp"))),
+                    doc, UPSERT));
+        }
+        long start = System.nanoTime();
+        try {
+            mongoTemplate.getCollection(StockIndexService.COLLECTION)
+                    .withWriteConcern(writeConcern)
+                    .bulkWrite(models, new BulkWriteOptions().ordered(false));
+            written.addAndGet(batch.size());
+        } catch (MongoBulkWriteException e) {
+            // 无序写入时其余文档已写入，只有出错的几条失败
+            int errors = e.getWriteErrors().size();
+            written.addAndGet(batch.size() - errors);
+            failed.addAndGet(errors);
+            System.out.println("行情批量写入部分失败: " + errors + "/" + batch.size() + " 条, " + e.getMessage());
+        } catch (RuntimeException e) {
+            failed.addAndGet(batch.size());
+            System.out.println("行情批量写入失败 (" + batch.size() + " 条): " + e.getMessage());
+            return;
+        } finally {
+            record(System.nanoTime() - start, batch.size());
+        }
+        for (IngestListener listener : ingestListeners) {
+            try {
+                listener.onIngested(batch);
+            } catch (RuntimeException e) {
+                System.out.println("写入后处理失败 (" + listener.getClass().getSimpleName() + "): " + e.getMessage());
+            }
+        }
+    }
+
+    private void record(long nanos, int batchSize) {
+        flushes.incrementAndGet();
+        flushNanos.addAndGet(nanos);
+        maxFlushNanos.accumulateAndGet(nanos, Math::max);
+        lastFlushNanos = nanos;
+        lastBatchSize = batchSize;
+        Timer timer = flushTimer;
+        if (timer != null) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
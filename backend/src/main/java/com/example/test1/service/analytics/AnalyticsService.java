@@ -0,0 +1,312 @@
+package com.example.test1.service.analytics;
+
+import com.example.test1.model.Candle;
+import com.example.test1.model.CorrelationMatrix;
+import com.example.test1.model.MarketBreadth;
+import com.example.test1.model.SectorPerformance;
+import com.example.test1.model.StockData;
+import com.example.test1.model.TopMovers;
+import com.example.test1.service.CandleInterval;
+import com.example.test1.service.CandleService;
+import com.example.test1.service.IngestListener;
+import com.example.test1.service.SymbolResolver;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * 跨股票分析：收益率相关系数矩阵、行业等权指数与滚动波动率、市场宽度和区间涨跌幅排行。
+ * 各股票的日 K 线在专用 ForkJoinPool 上用并行流并发读取，对齐为 {@link Panel} 的原始类型数组后计算，
+ * 相关系数矩阵同样在该池内按行并行，浏览器不再需要下载每只股票的原始行情。
+ * 结束时间早于今天的区间结果不再变化，按请求缓存；补录已收盘日期的数据时清空缓存。
+ * 行业划分来自 classpath 下的 analytics/sectors.json，未列出的股票归入“其他”。
+ */
+@Service
+public class AnalyticsService implements IngestListener, MeterBinder {
+
+    private static final String SECTORS = "analytics/sectors.json";
+    private static final String OTHER_SECTOR = "其他";
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Autowired
+    private CandleService candleService;
+
+    @Autowired
+    private SymbolResolver symbolResolver;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 0 表示 CPU 核数
+    @Value("${stock.analytics.parallelism:0}")
+    private int parallelism;
+
+    @Value("${stock.analytics.cache-size:100}")
+    private int cacheSize;
+
+    // 计算相关系数至少需要的共同交易日数
+    @Value("${stock.analytics.min-overlap:20}")
+    private int minOverlap;
+
+    private ForkJoinPool pool;
+    // 行业 -> 成分股名称，按文件中的顺序
+    private Map<String, List<String>> sectors = Map.of();
+    // nameKey -> 行业
+    private Map<String, String> sectorOf = Map.of();
+
+    // 访问顺序，超出 cache-size 时淘汰最久未访问的
+    private final Map<String, Object> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+            return size() > cacheSize;
+        }
+    };
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    // 每次清空缓存时加一；计算期间发生过清空时结果不放入缓存
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("analytics-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+        readSectors();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // names 为空时使用全部股票
+    public CorrelationMatrix correlation(List<String> names, LocalDateTime from, LocalDateTime to) {
+        List<String> keys = universe(names);
+        return cached("correlation|" + String.join(",", keys) + "|" + from + "|" + to, to, () -> {
+            Panel panel = panel(keys, from, to);
+            return new CorrelationMatrix(panel.names, panel.length(),
+                    CrossSection.correlation(panel.returns(), minOverlap));
+        });
+    }
+
+    // 行业 -> 成分股名称（库中的显示名），只按 sectors.json 和已知股票划分，不读取行情
+    public Map<String, List<String>> sectorMembers() {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        sectors.keySet().forEach(sector -> groups.put(sector, new ArrayList<>()));
+        symbolResolver.symbols().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> groups.computeIfAbsent(sectorOf.getOrDefault(e.getKey(), OTHER_SECTOR), k -> new ArrayList<>())
+                        .add(e.getValue()));
+        groups.values().removeIf(List::isEmpty);
+        return groups;
+    }
+
+    public SectorPerformance sectors(LocalDateTime from, LocalDateTime to, int window) {
+        List<String> keys = universe(null);
+        return cached("sectors|" + String.join(",", keys) + "|" + from + "|" + to + "|" + window, to, () -> {
+            Panel panel = panel(keys, from, to);
+            double[][] returns = panel.returns();
+            Map<String, List<Integer>> groups = new LinkedHashMap<>();
+            sectors.keySet().forEach(sector -> groups.put(sector, new ArrayList<>()));
+            for (int i = 0; i < panel.symbols(); i++) {
+                groups.computeIfAbsent(sectorOf.getOrDefault(panel.nameKeys.get(i), OTHER_SECTOR), k -> new ArrayList<>()).add(i);
+            }
+            List<SectorPerformance.Sector> result = new ArrayList<>();
+            groups.forEach((sector, members) -> {
+                if (members.isEmpty()) {
+                    return;
+                }
+                int[] indices = members.stream().mapToInt(Integer::intValue).toArray();
+                double[] index = CrossSection.equalWeightIndex(panel.close, returns, indices, 100);
+                double[] volatility = CrossSection.rollingVolatility(CrossSection.returns(index), window);
+                result.add(new SectorPerformance.Sector(sector, members.stream().map(panel.names::get).toList(),
+                        index, volatility, CrossSection.changePercent(index), CrossSection.lastValid(volatility)));
+            });
+            return new SectorPerformance(panel.times(), window, result);
+        });
+    }
+
+    public MarketBreadth breadth(List<String> names, LocalDateTime from, LocalDateTime to, int window) {
+        List<String> keys = universe(names);
+        return cached("breadth|" + String.join(",", keys) + "|" + from + "|" + to + "|" + window, to, () -> {
+            Panel panel = panel(keys, from, to);
+            double[][] returns = panel.returns();
+            CrossSection.Breadth breadth = CrossSection.breadth(panel.close, returns, window);
+            double[] market = CrossSection.equalWeightIndex(panel.close, returns,
+                    IntStream.range(0, panel.symbols()).toArray(), 100);
+            return new MarketBreadth(panel.times(), window, panel.symbols(), breadth.advancers(), breadth.decliners(),
+                    breadth.adLine(), breadth.pctAboveMa(), CrossSection.rollingVolatility(CrossSection.returns(market), window));
+        });
+    }
+
+    public TopMovers movers(List<String> names, LocalDateTime from, LocalDateTime to, int limit) {
+        List<String> keys = universe(names);
+        return cached("movers|" + String.join(",", keys) + "|" + from + "|" + to + "|" + limit, to, () -> {
+            Panel panel = panel(keys, from, to);
+            List<TopMovers.Mover> movers = IntStream.range(0, panel.symbols()).parallel()
+                    .mapToObj(i -> {
+                        double[] close = panel.close[i];
+                        return new TopMovers.Mover(panel.names.get(i),
+                                sectorOf.getOrDefault(panel.nameKeys.get(i), OTHER_SECTOR),
+                                CrossSection.firstValid(close), CrossSection.lastValid(close),
+                                CrossSection.changePercent(close), CrossSection.volatility(CrossSection.returns(close)));
+                    })
+                    .filter(m -> !Double.isNaN(m.changePercent()))
+                    .sorted(Comparator.comparingDouble(TopMovers.Mover::changePercent).reversed())
+                    .toList();
+            int n = Math.min(limit, movers.size());
+            List<TopMovers.Mover> losers = new ArrayList<>(movers.subList(movers.size() - n, movers.size()));
+            Collections.reverse(losers);
+            return new TopMovers(movers.subList(0, n), losers);
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("stock.cache.requests", hits, AtomicLong::get)
+                .tags("cache", "analytics", "result", "hit").register(registry);
+        FunctionCounter.builder("stock.cache.requests", misses, AtomicLong::get)
+                .tags("cache", "analytics", "result", "miss").register(registry);
+        Gauge.builder("stock.cache.size", this, AnalyticsService::entryCount)
+                .tag("cache", "analytics").register(registry);
+    }
+
+    @Override
+    public void onIngested(List<Document> docs) {
+        // 只有写入已收盘日期的数据会改变已缓存的结果；这种补录较少，直接清空
+        long today = LocalDate.now(ZONE).atStartOfDay(ZONE).toInstant().toEpochMilli();
+        for (Document doc : docs) {
+            if (doc.get("timestamp") instanceof Date timestamp && timestamp.getTime() < today) {
+                synchronized (results) {
+                    generation.incrementAndGet();
+                    results.clear();
+                }
+                return;
+            }
+        }
+    }
+
+    private int entryCount() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    // 解析请求中的名称，保持请求顺序；为空时取全部股票，按 nameKey 排序使缓存键稳定
+    private List<String> universe(Collection<String> names) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (names == null || names.stream().allMatch(n -> n == null || n.isBlank())) {
+            keys.addAll(symbolResolver.symbols().keySet().stream().sorted().toList());
+        } else {
+            for (String name : names) {
+                if (name != null && !name.isBlank()) {
+                    keys.addAll(symbolResolver.resolveKeys(name));
+                }
+            }
+        }
+        return List.copyOf(keys);
+    }
+
+    // 已收盘区间先查缓存；计算在分析线程池内执行，其中的并行流也使用该池
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String key, LocalDateTime to, Supplier<T> compute) {
+        if (!to.isBefore(LocalDate.now(ZONE).atStartOfDay())) {
+            return run(compute);
+        }
+        long startGeneration;
+        synchronized (results) {
+            Object cached = results.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return (T) cached;
+            }
+            startGeneration = generation.get();
+        }
+        misses.incrementAndGet();
+        T value = run(compute);
+        synchronized (results) {
+            if (generation.get() == startGeneration) {
+                results.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    private <T> T run(Supplier<T> task) {
+        try {
+            return pool.submit(task::get).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("分析计算被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // 各股票的日 K 线并行读取（优先读 candles_1d 预聚合），再按交易日对齐
+    private Panel panel(List<String> keys, LocalDateTime from, LocalDateTime to) {
+        Map<String, String> symbols = symbolResolver.symbols();
+        List<List<Candle>> series = keys.parallelStream()
+                .map(key -> candleService.candles(key, CandleInterval.D1, from, to, Integer.MAX_VALUE))
+                .toList();
+        List<String> names = keys.stream().map(key -> symbols.getOrDefault(key, key)).toList();
+        return Panel.align(keys, names, series);
+    }
+
+    private void readSectors() {
+        ClassPathResource resource = new ClassPathResource(SECTORS);
+        if (!resource.exists()) {
+            return;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            Map<String, List<String>> loaded = objectMapper.readValue(in, new TypeReference<LinkedHashMap<String, List<String>>>() {
+            });
+            Map<String, String> byKey = new HashMap<>();
+            loaded.forEach((sector, members) -> members.forEach(member -> byKey.putIfAbsent(StockData.nameKeyOf(member), sector)));
+            sectors = Collections.unmodifiableMap(loaded);
+            sectorOf = Map.copyOf(byKey);
+        } catch (IOException e) {
+            System.out.println("读取行业划分失败: " + e.getMessage());
+        }
+    }
+}
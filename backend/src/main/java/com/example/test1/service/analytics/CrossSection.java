@@ -0,0 +1,238 @@
+package com.example.test1.service.analytics;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * 截面统计，输入为按交易日对齐的原始类型数组（见 {@link Panel}），NaN 表示缺失。
+ * 相关系数矩阵按行并行计算，其余按日单次遍历。
+ */
+final class CrossSection {
+
+    // 年化波动率使用的年交易日数
+    static final int TRADING_DAYS = 252;
+
+    private CrossSection() {
+    }
+
+    // 与上一个有收盘价的交易日相比的收益率
+    static double[] returns(double[] close) {
+        double[] returns = new double[close.length];
+        double previous = Double.NaN;
+        for (int d = 0; d < close.length; d++) {
+            double value = close[d];
+            returns[d] = Double.isNaN(value) || Double.isNaN(previous) ? Double.NaN : value / previous - 1;
+            if (!Double.isNaN(value)) {
+                previous = value;
+            }
+        }
+        return returns;
+    }
+
+    // 两两相关系数；只用双方都有收益率的交易日，少于 minOverlap 天时为 NaN。
+    // 每行由一个任务计算上三角并对称写入，不同任务写入的单元格互不重叠
+    static double[][] correlation(double[][] returns, int minOverlap) {
+        int n = returns.length;
+        double[][] matrix = new double[n][n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            matrix[i][i] = 1.0;
+            for (int j = i + 1; j < n; j++) {
+                double c = pearson(returns[i], returns[j], minOverlap);
+                matrix[i][j] = c;
+                matrix[j][i] = c;
+            }
+        });
+        return matrix;
+    }
+
+    static double pearson(double[] x, double[] y, int minOverlap) {
+        int n = 0;
+        double sx = 0, sy = 0, sxx = 0, syy = 0, sxy = 0;
+        for (int k = 0; k < x.length; k++) {
+            double a = x[k];
+            double b = y[k];
+            if (Double.isNaN(a) || Double.isNaN(b)) {
+                continue;
+            }
+            n++;
+            sx += a;
+            sy += b;
+            sxx += a * a;
+            syy += b * b;
+            sxy += a * b;
+        }
+        if (n < Math.max(2, minOverlap)) {
+            return Double.NaN;
+        }
+        double vx = sxx - sx * sx / n;
+        double vy = syy - sy * sy / n;
+        if (vx <= 0 || vy <= 0) {
+            return Double.NaN;
+        }
+        double c = (sxy - sx * sy / n) / Math.sqrt(vx * vy);
+        return Math.max(-1, Math.min(1, c));
+    }
+
+    // 成分股等权指数：每日取有收益率的成分股的平均收益率链接，起点为 base；第一只成分股有数据之前为 NaN
+    static double[] equalWeightIndex(double[][] close, double[][] returns, int[] members, double base) {
+        int length = close.length == 0 ? 0 : close[0].length;
+        double[] index = new double[length];
+        double level = base;
+        boolean started = false;
+        for (int d = 0; d < length; d++) {
+            double sum = 0;
+            int count = 0;
+            for (int i : members) {
+                if (!Double.isNaN(returns[i][d])) {
+                    sum += returns[i][d];
+                    count++;
+                }
+                started |= !Double.isNaN(close[i][d]);
+            }
+            if (count > 0) {
+                level *= 1 + sum / count;
+            }
+            index[d] = started ? level : Double.NaN;
+        }
+        return index;
+    }
+
+    // window 个交易日的滚动年化波动率（%）；窗口内有效收益率不足一半时为 NaN
+    static double[] rollingVolatility(double[] returns, int window) {
+        double[] volatility = new double[returns.length];
+        int minCount = Math.max(2, window / 2);
+        double sum = 0;
+        double sumSquares = 0;
+        int count = 0;
+        for (int d = 0; d < returns.length; d++) {
+            double r = returns[d];
+            if (!Double.isNaN(r)) {
+                sum += r;
+                sumSquares += r * r;
+                count++;
+            }
+            if (d >= window) {
+                double old = returns[d - window];
+                if (!Double.isNaN(old)) {
+                    sum -= old;
+                    sumSquares -= old * old;
+                    count--;
+                }
+            }
+            volatility[d] = count < minCount ? Double.NaN : annualize(sum, sumSquares, count);
+        }
+        return volatility;
+    }
+
+    // 全部有效收益率的年化波动率（%）
+    static double volatility(double[] returns) {
+        double sum = 0;
+        double sumSquares = 0;
+        int count = 0;
+        for (double r : returns) {
+            if (!Double.isNaN(r)) {
+                sum += r;
+                sumSquares += r * r;
+                count++;
+            }
+        }
+        return count < 2 ? Double.NaN : annualize(sum, sumSquares, count);
+    }
+
+    private static double annualize(double sum, double sumSquares, int count) {
+        double variance = Math.max(0, (sumSquares - sum * sum / count) / (count - 1));
+        return Math.sqrt(variance * TRADING_DAYS) * 100;
+    }
+
+    // 区间首末有效值的涨跌幅（%）
+    static double changePercent(double[] series) {
+        double first = firstValid(series);
+        double last = lastValid(series);
+        return Double.isNaN(first) || Double.isNaN(last) || first == 0 ? Double.NaN : (last / first - 1) * 100;
+    }
+
+    static double firstValid(double[] series) {
+        for (double value : series) {
+            if (!Double.isNaN(value)) {
+                return value;
+            }
+        }
+        return Double.NaN;
+    }
+
+    static double lastValid(double[] series) {
+        for (int d = series.length - 1; d >= 0; d--) {
+            if (!Double.isNaN(series[d])) {
+                return series[d];
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * 市场宽度。advancers/decliners 为当日收益率为正/负的家数，adLine 为二者之差的累计；
+     * pctAboveMa 为当日有收盘价且 window 日均线已形成的股票中，收盘价高于均线的占比（%）。
+     */
+    record Breadth(int[] advancers, int[] decliners, int[] adLine, double[] pctAboveMa) {
+    }
+
+    static Breadth breadth(double[][] close, double[][] returns, int window) {
+        int length = close.length == 0 ? 0 : close[0].length;
+        int[] advancers = new int[length];
+        int[] decliners = new int[length];
+        int[] adLine = new int[length];
+        int[] above = new int[length];
+        int[] eligible = new int[length];
+        for (int i = 0; i < close.length; i++) {
+            double[] ma = movingAverage(close[i], window);
+            for (int d = 0; d < length; d++) {
+                double r = returns[i][d];
+                if (r > 0) {
+                    advancers[d]++;
+                } else if (r < 0) {
+                    decliners[d]++;
+                }
+                if (!Double.isNaN(ma[d])) {
+                    eligible[d]++;
+                    if (close[i][d] > ma[d]) {
+                        above[d]++;
+                    }
+                }
+            }
+        }
+        double[] pctAboveMa = new double[length];
+        int line = 0;
+        for (int d = 0; d < length; d++) {
+            line += advancers[d] - decliners[d];
+            adLine[d] = line;
+            pctAboveMa[d] = eligible[d] == 0 ? Double.NaN : 100.0 * above[d] / eligible[d];
+        }
+        return new Breadth(advancers, decliners, adLine, pctAboveMa);
+    }
+
+    // 最近 window 个有效收盘价的均线，只在当天有收盘价且已攒够 window 个时有值
+    static double[] movingAverage(double[] close, int window) {
+        double[] ma = new double[close.length];
+        Arrays.fill(ma, Double.NaN);
+        double[] ring = new double[Math.max(1, window)];
+        int count = 0;
+        double sum = 0;
+        for (int d = 0; d < close.length; d++) {
+            double value = close[d];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            int slot = count % ring.length;
+            if (count >= ring.length) {
+                sum -= ring[slot];
+            }
+            ring[slot] = value;
+            sum += value;
+            count++;
+            if (count >= ring.length) {
+                ma[d] = sum / ring.length;
+            }
+        }
+        return ma;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.test1.service.analytics;
+
+import com.example.test1.model.Candle;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按交易日对齐的多只股票收盘价面板。
+ * days 为所有股票交易日的并集（epoch day，升序），close[i][d] 为第 i 只股票在 days[d] 的收盘价，
+ * 当天没有数据时为 NaN；之后的计算全部在这些原始类型数组上进行。
+ */
+final class Panel {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    final List<String> nameKeys;
+    final List<String> names;
+    final int[] days;
+    final double[][] close;
+
+    private Panel(List<String> nameKeys, List<String> names, int[] days, double[][] close) {
+        this.nameKeys = nameKeys;
+        this.names = names;
+        this.days = days;
+        this.close = close;
+    }
+
+    // series.get(i) 为 nameKeys.get(i) 的日 K 线，按时间升序
+    static Panel align(List<String> nameKeys, List<String> names, List<List<Candle>> series) {
+        int[][] symbolDays = new int[series.size()][];
+        int total = 0;
+        for (int i = 0; i < series.size(); i++) {
+            List<Candle> candles = series.get(i);
+            symbolDays[i] = new int[candles.size()];
+            for (int k = 0; k < candles.size(); k++) {
+                symbolDays[i][k] = (int) LocalDate.ofInstant(candles.get(k).time(), ZONE).toEpochDay();
+            }
+            total += candles.size();
+        }
+        // 并集：拼接后排序去重
+        int[] all = new int[total];
+        int pos = 0;
+        for (int[] d : symbolDays) {
+            System.arraycopy(d, 0, all, pos, d.length);
+            pos += d.length;
+        }
+        Arrays.sort(all);
+        int n = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (n == 0 || all[i] != all[n - 1]) {
+                all[n++] = all[i];
+            }
+        }
+        int[] days = Arrays.copyOf(all, n);
+
+        double[][] close = new double[series.size()][n];
+        for (int i = 0; i < series.size(); i++) {
+            Arrays.fill(close[i], Double.NaN);
+            List<Candle> candles = series.get(i);
+            for (int k = 0; k < candles.size(); k++) {
+                Double value = candles.get(k).close();
+                if (value != null && value > 0) {
+                    close[i][Arrays.binarySearch(days, symbolDays[i][k])] = value;
+                }
+            }
+        }
+        return new Panel(List.copyOf(nameKeys), List.copyOf(names), days, close);
+    }
+
+    int symbols() {
+        return close.length;
+    }
+
+    int length() {
+        return days.length;
+    }
+
+    // 日收益率：与同一只股票上一个有数据的交易日相比，当天或之前没有数据时为 NaN
+    double[][] returns() {
+        double[][] returns = new double[close.length][];
+        for (int i = 0; i < close.length; i++) {
+            returns[i] = CrossSection.returns(close[i]);
+        }
+        return returns;
+    }
+
+    // 交易日开始时刻（epoch 毫秒），与 K 线接口的 t 一致
+    long[] times() {
+        long[] t = new long[days.length];
+        for (int d = 0; d < days.length; d++) {
+            t[d] = LocalDate.ofEpochDay(days[d]).atStartOfDay(ZONE).toInstant().toEpochMilli();
+        }
+        return t;
+    }
+}
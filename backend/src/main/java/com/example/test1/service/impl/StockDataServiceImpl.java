@@ -1,27 +1,94 @@
 package com.example.test1.service.impl;
 
 import com.example.test1.model.StockData;
+import com.example.test1.model.StockDataSlice;
 import com.example.test1.repository.StockDataRepository;
+import com.example.test1.service.HotSeriesCache;
+import com.example.test1.service.IngestListener;
+import com.example.test1.service.QueryExplainer;
 import com.example.test1.service.StockDataService;
+import com.example.test1.service.SymbolResolver;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndReplaceOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 public class StockDataServiceImpl implements StockDataService {
-    
+
+    // 流式查询每次从服务端取回的文档数，决定单个请求在内存中最多缓冲多少行
+    private static final int STREAM_BATCH_SIZE = 1000;
+
     @Autowired
     private StockDataRepository stockDataRepository;
 
+    @Autowired
+    private SymbolResolver symbolResolver;
+
+    @Autowired
+    private QueryExplainer queryExplainer;
+
+    @Autowired
+    private HotSeriesCache hotSeriesCache;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired(required = false)
+    private List<IngestListener> ingestListeners = List.of();
+
     @Override
     public Page<StockData> getAllStockData(Pageable pageable) {
         return stockDataRepository.findAll(pageable);
     }
 
+    @Override
+    public StockDataSlice scroll(String cursor, int size, boolean withTotal) {
+        // 没有 timestamp 的文档无法定位续页位置，不参与分页
+        Query query = new Query(Criteria.where("timestamp").ne(null))
+                .with(Sort.by(Sort.Direction.DESC, "timestamp").and(Sort.by(Sort.Direction.DESC, "_id")))
+                // 多取一条判断是否还有下一页
+                .limit(size + 1);
+        if (cursor != null && !cursor.isBlank()) {
+            Position after = Position.decode(cursor);
+            // 走 (timestamp, _id) 索引直接定位到上一页最后一条之后，不需要 skip
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("timestamp").lt(after.timestamp()),
+                    new Criteria().andOperator(Criteria.where("timestamp").is(after.timestamp()), idBefore(after.id()))));
+        }
+        List<StockData> rows = mongoTemplate.find(query, StockData.class);
+        boolean hasNext = rows.size() > size;
+        if (hasNext) {
+            rows = rows.subList(0, size);
+        }
+        String next = hasNext ? Position.encode(rows.get(rows.size() - 1)) : null;
+        // 估计值来自集合元数据，不扫描文档
+        Long total = withTotal ? mongoTemplate.estimatedCount(StockData.class) : null;
+        return new StockDataSlice(rows, size, hasNext, next, total);
+    }
+
     @Override
     public List<StockData> searchByName(String name) {
         return stockDataRepository.findByName(name);
@@ -32,13 +99,136 @@ public class StockDataServiceImpl implements StockDataService {
         return stockDataRepository.findByTimestampBetween(startTime, endTime);
     }
 
+    @Override
+    public Stream<StockData> streamByTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
+        Query query = new Query(Criteria.where("timestamp").gte(startTime).lte(endTime))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp"))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, StockData.class);
+    }
+
     @Override
     public List<StockData> searchByNameAndTimeRange(String name, LocalDateTime startTime, LocalDateTime endTime) {
-        return stockDataRepository.findByNameContainingAndTimestampBetween(name, startTime, endTime);
+        List<String> keys = symbolResolver.resolveKeys(name);
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        List<StockData> cached = fromCache(keys, startTime, endTime);
+        if (cached != null) {
+            return cached;
+        }
+        return stockDataRepository.findByNameKeyInAndTimestampBetween(keys, startTime, endTime);
+    }
+
+    @Override
+    public Stream<StockData> streamByNameAndTimeRange(String name, LocalDateTime startTime, LocalDateTime endTime) {
+        List<String> keys = symbolResolver.resolveKeys(name);
+        if (keys.isEmpty()) {
+            return Stream.empty();
+        }
+        List<StockData> cached = fromCache(keys, startTime, endTime);
+        if (cached != null) {
+            return cached.stream();
+        }
+        Query query = new Query(Criteria.where("nameKey").in(keys)
+                .and("timestamp").gte(startTime).lte(endTime))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp"))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, StockData.class);
+    }
+
+    // 只有精确解析为单只股票时走热缓存，模糊匹配到多只时直接查库，避免把缓存挤满
+    private List<StockData> fromCache(List<String> keys, LocalDateTime startTime, LocalDateTime endTime) {
+        return keys.size() == 1 ? hotSeriesCache.range(keys.get(0), startTime, endTime) : null;
+    }
+
+    @Override
+    public Stream<StockData> streamByNameKeys(Collection<String> nameKeys, LocalDateTime startTime, LocalDateTime endTime) {
+        if (nameKeys.isEmpty()) {
+            return Stream.empty();
+        }
+        // 与 (nameKey, timestamp) 索引顺序一致，$in 的各个区间按顺序扫描，无需内存排序
+        Query query = new Query(Criteria.where("nameKey").in(nameKeys)
+                .and("timestamp").gte(startTime).lte(endTime))
+                .with(Sort.by(Sort.Direction.ASC, "nameKey", "timestamp"))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, StockData.class);
+    }
+
+    @Override
+    public Map<String, Object> explainSearchByNameAndTimeRange(String name, LocalDateTime startTime, LocalDateTime endTime) {
+        List<String> keys = symbolResolver.resolveKeys(name);
+        ZoneId zone = ZoneId.systemDefault();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("resolvedNameKeys", keys);
+        summary.putAll(queryExplainer.explain("stock_data",
+                Filters.and(
+                        Filters.in("nameKey", keys),
+                        Filters.gte("timestamp", Date.from(startTime.atZone(zone).toInstant())),
+                        Filters.lte("timestamp", Date.from(endTime.atZone(zone).toInstant()))),
+                Sorts.ascending("timestamp")));
+        return summary;
     }
 
     @Override
     public StockData saveStockData(StockData stockData) {
-        return stockDataRepository.save(stockData);
+        stockData.setNameKey(StockData.nameKeyOf(stockData.getName()));
+        stockData.setSchemaVersion(StockData.SCHEMA_VERSION);
+        // 与导入路径相同按 (name, timestamp) upsert：重复提交同一时间的行覆盖原文档，而不是违反唯一索引；
+        // 不使用请求中的 id，已有文档保留原 _id，新文档由服务端生成 ObjectId
+        Document doc = new Document();
+        mongoTemplate.getConverter().write(stockData, doc);
+        doc.remove("_id");
+        doc.remove("_class");
+        Document stored = mongoTemplate.getCollection("stock_data").findOneAndReplace(
+                Filters.and(Filters.eq("name", doc.get("name")), Filters.eq("timestamp", doc.get("timestamp"))),
+                doc, new FindOneAndReplaceOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+        StockData saved = mongoTemplate.getConverter().read(StockData.class, stored);
+        symbolResolver.register(saved.getName());
+        // 按 stock_data 中的文档形态通知派生数据
+        for (IngestListener listener : ingestListeners) {
+            listener.onIngested(List.of(stored));
+        }
+        return saved;
+    }
+
+    // 同一 timestamp 内排在 id 之后（降序）的文档。_id 有两种类型：导入和保存接口生成的 ObjectId，
+    // 以及早期保存接口按请求原样写入的字符串 id。BSON 按类型排序时字符串排在 ObjectId 之前，降序时在其后，
+    // 而 $lt 只在同类型内比较，所以从 ObjectId 往后翻页时要把字符串 _id 单独包含进来
+    private static Criteria idBefore(Object id) {
+        if (id instanceof ObjectId) {
+            return new Criteria().orOperator(
+                    Criteria.where("_id").lt(id),
+                    Criteria.where("_id").type(JsonSchemaObject.Type.STRING));
+        }
+        return Criteria.where("_id").lt(id);
+    }
+
+    // 续页令牌：上一页最后一条的 timestamp（epoch 毫秒）和 _id，Base64 编码后对客户端不透明
+    private record Position(Date timestamp, Object id) {
+
+        static String encode(StockData last) {
+            long millis = last.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            // 保留 _id 的类型，解码后按原类型比较，见 idBefore
+            String id = ObjectId.isValid(last.getId()) ? "o" + last.getId() : "s" + last.getId();
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((millis + ":" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Position decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int colon = raw.indexOf(':');
+                Date timestamp = new Date(Long.parseLong(raw.substring(0, colon)));
+                String id = raw.substring(colon + 2);
+                return switch (raw.charAt(colon + 1)) {
+                    case 'o' -> new Position(timestamp, new ObjectId(id));
+                    case 's' -> new Position(timestamp, id);
+                    default -> throw new IllegalArgumentException("无法识别的分页令牌: " + cursor);
+                };
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("无法识别的分页令牌: " + cursor, e);
+            }
+        }
     }
-}
\ No newline at end of file
+}
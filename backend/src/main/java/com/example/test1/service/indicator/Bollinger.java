@@ -0,0 +1,44 @@
+package com.example.test1.service.indicator;
+
+import java.util.List;
+
+// 布林带：中轨为 SMA，上下轨为中轨 ± k 倍标准差
+final class Bollinger implements Indicator {
+
+    private final RollingWindow window;
+    private final double k;
+
+    Bollinger(int period, double k) {
+        this.window = new RollingWindow(period);
+        this.k = k;
+    }
+
+    private Bollinger(Bollinger other) {
+        this.window = new RollingWindow(other.window);
+        this.k = other.k;
+    }
+
+    @Override
+    public List<String> outputs() {
+        return List.of("middle", "upper", "lower");
+    }
+
+    @Override
+    public void update(double high, double low, double close, double volume, double[] out, int offset) {
+        window.add(close);
+        if (!window.isFull()) {
+            out[offset] = out[offset + 1] = out[offset + 2] = Double.NaN;
+            return;
+        }
+        double middle = window.mean();
+        double band = k * window.stdDev();
+        out[offset] = middle;
+        out[offset + 1] = middle + band;
+        out[offset + 2] = middle - band;
+    }
+
+    @Override
+    public Indicator copy() {
+        return new Bollinger(this);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.test1.service.indicator;
+
+import java.util.List;
+
+/**
+ * 异常值过滤：收盘价同时偏离前一根、后一根收盘价以及 5 根均线超过阈值（百分比）时视为异常，
+ * 收盘价用前后两根收盘价的均值代替，最高/最低价取两者的较大/较小值，后续指标按替换后的价格计算。
+ * 判定需要后一根 K 线，因此只作用于已收盘的 K 线；均线按原始收盘价计算，未满 5 根时不判定。
+ */
+final class Despike {
+
+    static final List<String> OUTPUTS = List.of("anomaly", "close", "high", "low");
+
+    private static final int AVERAGE_PERIOD = 5;
+
+    private final double threshold;
+    private final RollingWindow window = new RollingWindow(AVERAGE_PERIOD);
+    // 上一根 K 线过滤后的收盘价
+    private double previous = Double.NaN;
+
+    Despike(double threshold) {
+        this.threshold = threshold;
+    }
+
+    // 返回结果中的键，如 despike:15
+    static String key(double threshold) {
+        return "despike:" + (threshold == Math.rint(threshold) ? String.valueOf((long) threshold) : String.valueOf(threshold));
+    }
+
+    // bar 为 {high, low, close}，异常时就地替换并返回 true；next 为后一根 K 线的收盘价
+    boolean apply(double[] bar, double next) {
+        double close = bar[2];
+        window.add(close);
+        boolean anomaly = !Double.isNaN(previous) && window.isFull()
+                && deviates(close, previous) && deviates(close, next) && deviates(close, window.mean());
+        if (anomaly) {
+            bar[2] = (previous + next) / 2;
+            bar[0] = Math.max(previous, next);
+            bar[1] = Math.min(previous, next);
+        }
+        previous = bar[2];
+        return anomaly;
+    }
+
+    private boolean deviates(double value, double base) {
+        return Math.abs((value - base) / base * 100) > threshold;
+    }
+}
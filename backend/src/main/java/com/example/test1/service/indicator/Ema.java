@@ -0,0 +1,54 @@
+package com.example.test1.service.indicator;
+
+import java.util.List;
+
+// 指数移动平均，以前 period 个值的简单平均作为初值
+final class Ema implements Indicator {
+
+    private final int period;
+    private final double alpha;
+    private int seen;
+    private double seedSum;
+    private double value = Double.NaN;
+
+    Ema(int period) {
+        this.period = period;
+        this.alpha = 2.0 / (period + 1);
+    }
+
+    private Ema(Ema other) {
+        this.period = other.period;
+        this.alpha = other.alpha;
+        this.seen = other.seen;
+        this.seedSum = other.seedSum;
+        this.value = other.value;
+    }
+
+    // 预热期内返回 NaN
+    double next(double x) {
+        if (seen < period) {
+            seedSum += x;
+            if (++seen == period) {
+                value = seedSum / period;
+            }
+            return value;
+        }
+        value += alpha * (x - value);
+        return value;
+    }
+
+    @Override
+    public List<String> outputs() {
+        return List.of("value");
+    }
+
+    @Override
+    public void update(double high, double low, double close, double volume, double[] out, int offset) {
+        out[offset] = next(close);
+    }
+
+    @Override
+    public Ema copy() {
+        return new Ema(this);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.test1.service.indicator;
+
+import java.util.List;
+
+/**
+ * 流式技术指标：每输入一根 K 线以 O(1) 更新内部状态并写出当前值。
+ * 实现类只保存滚动所需的原始类型状态，可以复制后继续计算而不影响原对象。
+ */
+public interface Indicator {
+
+    // 输出列名，如 MACD 为 macd/signal/histogram
+    List<String> outputs();
+
+    // 输入一根 K 线，按 outputs 的顺序把结果写入 out[offset...]；预热期内写 NaN
+    void update(double high, double low, double close, double volume, double[] out, int offset);
+
+    // 复制当前状态，用于计算尚未收盘的最后一根 K 线而不提交
+    Indicator copy();
+}
@@ -0,0 +1,332 @@
+package com.example.test1.service.indicator;
+
+import com.example.test1.model.Candle;
+import com.example.test1.model.IndicatorSeries;
+import com.example.test1.service.CandleInterval;
+import com.example.test1.service.CandleService;
+import com.example.test1.service.IngestListener;
+import com.example.test1.service.SymbolResolver;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 服务端技术指标计算。
+ * 指标在 K 线上逐根流式计算，每根 O(1)。按（股票、周期、指标组合）缓存已收盘 K 线的结果和计算器状态，
+ * 再次请求时只从最后一根已收盘 K 线之后取 K 线并续算；最后一根 K 线视为未收盘，在状态副本上计算、不提交。
+ * 导入了比已收盘 K 线更早的数据时丢弃对应缓存，下次请求时重新计算。
+ * 指定 despike 阈值时先按 {@link Despike} 过滤异常收盘价，再在过滤后的价格上计算指标。
+ */
+@Service
+public class IndicatorService implements IngestListener, MeterBinder {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Autowired
+    private CandleService candleService;
+
+    @Autowired
+    private SymbolResolver symbolResolver;
+
+    @Value("${stock.indicators.cache-size:200}")
+    private int cacheSize;
+
+    // 访问顺序，超出 cache-size 时淘汰最久未访问的
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // despike 为异常值过滤阈值（百分比），为 null 时不过滤
+    public IndicatorSeries compute(String name, CandleInterval interval, LocalDateTime from, LocalDateTime to,
+                                   List<IndicatorSpec> specs, Double despike) {
+        // 与 K 线接口一致：模糊名称匹配到多只时取第一只
+        List<String> keys = symbolResolver.resolveKeys(name);
+        if (keys.isEmpty() || !from.isBefore(to)) {
+            return new Entry(keys.isEmpty() ? "" : keys.get(0), interval, from, specs, despike)
+                    .slice(Long.MIN_VALUE, Long.MIN_VALUE, null);
+        }
+        String nameKey = keys.get(0);
+        int warmup = specs.stream().mapToInt(IndicatorSpec::warmup).max().orElse(0);
+        // 多取一根：起点落在桶中间时第一根 K 线不完整
+        LocalDateTime anchor = from.minus(interval.duration().multipliedBy(warmup + 1L));
+        String cacheKey = nameKey + "|" + interval.code() + "|"
+                + specs.stream().map(IndicatorSpec::key).collect(Collectors.joining(","))
+                + (despike == null ? "" : "|" + Despike.key(despike));
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(cacheKey);
+            // 缓存的起点晚于本次所需的预热起点时无法复用，从头计算
+            if (entry == null || entry.anchor.isAfter(anchor)) {
+                entry = new Entry(nameKey, interval, anchor, specs, despike);
+                entries.put(cacheKey, entry);
+                misses.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+            }
+        }
+        synchronized (entry) {
+            LocalDateTime fetchFrom = entry.size == 0 ? entry.anchor : toLocal(entry.lastClosed());
+            List<Candle> candles = to.isAfter(fetchFrom)
+                    ? candleService.candles(nameKey, interval, fetchFrom, to, Integer.MAX_VALUE)
+                    : List.of();
+            List<Candle> fresh = new ArrayList<>(candles.size());
+            for (Candle candle : candles) {
+                if (candle.close() != null && candle.time().toEpochMilli() > entry.lastClosed()) {
+                    fresh.add(candle);
+                }
+            }
+            Candle open = null;
+            if (!fresh.isEmpty()) {
+                for (int i = 0; i < fresh.size() - 1; i++) {
+                    entry.commit(fresh.get(i), fresh.get(i + 1));
+                }
+                open = fresh.get(fresh.size() - 1);
+                entry.openTime = open.time().toEpochMilli();
+            }
+            return entry.slice(toMillis(from), toMillis(to), open);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("stock.cache.requests", hits, AtomicLong::get)
+                .tags("cache", "indicators", "result", "hit").register(registry);
+        FunctionCounter.builder("stock.cache.requests", misses, AtomicLong::get)
+                .tags("cache", "indicators", "result", "miss").register(registry);
+        Gauge.builder("stock.cache.hit.ratio", this, IndicatorService::hitRatio)
+                .tag("cache", "indicators").register(registry);
+        Gauge.builder("stock.cache.size", this, IndicatorService::entryCount)
+                .tag("cache", "indicators").register(registry);
+    }
+
+    @Override
+    public void onIngested(List<Document> docs) {
+        // 每只股票本批最早的时间
+        Map<String, Long> earliest = new HashMap<>();
+        for (Document doc : docs) {
+            if (doc.get("nameKey") instanceof String nameKey && doc.get("timestamp") instanceof Date timestamp) {
+                earliest.merge(nameKey, timestamp.getTime(), Math::min);
+            }
+        }
+        if (earliest.isEmpty()) {
+            return;
+        }
+        synchronized (entries) {
+            // 只有落进已提交 K 线的数据才需要重算，之后的数据下次请求时续算即可
+            entries.values().removeIf(entry -> {
+                Long ts = earliest.get(entry.nameKey);
+                return ts != null && entry.size > 0 && ts < entry.closedUntil();
+            });
+        }
+    }
+
+    private double hitRatio() {
+        long hit = hits.get();
+        long miss = misses.get();
+        return hit + miss == 0 ? 0.0 : (double) hit / (hit + miss);
+    }
+
+    private int entryCount() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocal(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZONE);
+    }
+
+    // 单个缓存项：已收盘 K 线的时间与各指标输出（按列），以及最后一根已收盘 K 线之后的计算器状态
+    private static final class Entry {
+
+        final String nameKey;
+        final CandleInterval interval;
+        final LocalDateTime anchor;
+        final List<IndicatorSpec> specs;
+        final List<Indicator> indicators = new ArrayList<>();
+        final int[] offsets;
+        final double[] scratch;
+        // 异常值过滤，输出列排在所有指标之后；不过滤时为 null
+        final Double threshold;
+        final Despike despike;
+
+        long[] t = new long[256];
+        double[][] columns;
+        int size;
+        // 最近一次取到的未收盘 K 线开始时间，用于判断新数据是否落进已提交的 K 线
+        long openTime = Long.MIN_VALUE;
+
+        // 成交量为当日累计值，K 线成交量取与上一根（同一天）的差
+        long lastVolume;
+        LocalDate lastDay;
+
+        Entry(String nameKey, CandleInterval interval, LocalDateTime anchor, List<IndicatorSpec> specs, Double threshold) {
+            this.nameKey = nameKey;
+            this.interval = interval;
+            this.anchor = anchor;
+            this.specs = specs;
+            this.threshold = threshold;
+            this.despike = threshold == null ? null : new Despike(threshold);
+            this.offsets = new int[specs.size() + 1];
+            for (int i = 0; i < specs.size(); i++) {
+                Indicator indicator = specs.get(i).create();
+                indicators.add(indicator);
+                offsets[i + 1] = offsets[i] + indicator.outputs().size();
+            }
+            this.scratch = new double[offsets[specs.size()] + (despike == null ? 0 : Despike.OUTPUTS.size())];
+            this.columns = new double[scratch.length][t.length];
+        }
+
+        long lastClosed() {
+            return size == 0 ? Long.MIN_VALUE : t[size - 1];
+        }
+
+        // 已提交部分覆盖到的时间（不含）
+        long closedUntil() {
+            return openTime > lastClosed() ? openTime : lastClosed() + interval.duration().toMillis();
+        }
+
+        // next 为后一根 K 线，用于异常值判定
+        void commit(Candle candle, Candle next) {
+            if (size == t.length) {
+                t = Arrays.copyOf(t, size * 2);
+                for (int c = 0; c < columns.length; c++) {
+                    columns[c] = Arrays.copyOf(columns[c], size * 2);
+                }
+            }
+            t[size] = candle.time().toEpochMilli();
+            double[] bar = bar(candle);
+            if (despike != null) {
+                writeDespike(despike.apply(bar, next.close()), bar);
+            }
+            double volume = barVolume(candle, true);
+            for (int i = 0; i < indicators.size(); i++) {
+                indicators.get(i).update(bar[0], bar[1], bar[2], volume, scratch, offsets[i]);
+            }
+            for (int c = 0; c < columns.length; c++) {
+                columns[c][size] = scratch[c];
+            }
+            size++;
+        }
+
+        // 取 [fromMs, toMs] 内的已收盘结果，open 不为 null 且在范围内时追加在状态副本上算出的未收盘 K 线
+        IndicatorSeries slice(long fromMs, long toMs, Candle open) {
+            int start = lowerBound(fromMs);
+            int end = lowerBound(toMs == Long.MAX_VALUE ? toMs : toMs + 1);
+            boolean withOpen = open != null
+                    && open.time().toEpochMilli() >= fromMs && open.time().toEpochMilli() <= toMs;
+            int count = end - start + (withOpen ? 1 : 0);
+            long[] times = new long[count];
+            double[][] out = new double[columns.length][count];
+            System.arraycopy(t, start, times, 0, end - start);
+            for (int c = 0; c < columns.length; c++) {
+                System.arraycopy(columns[c], start, out[c], 0, end - start);
+            }
+            if (withOpen) {
+                times[count - 1] = open.time().toEpochMilli();
+                double[] bar = bar(open);
+                if (despike != null) {
+                    writeDespike(false, bar);
+                }
+                double volume = barVolume(open, false);
+                for (int i = 0; i < indicators.size(); i++) {
+                    indicators.get(i).copy().update(bar[0], bar[1], bar[2], volume, scratch, offsets[i]);
+                }
+                for (int c = 0; c < columns.length; c++) {
+                    out[c][count - 1] = scratch[c];
+                }
+            }
+            Map<String, Map<String, double[]>> values = new LinkedHashMap<>();
+            for (int i = 0; i < specs.size(); i++) {
+                Map<String, double[]> outputs = new LinkedHashMap<>();
+                List<String> names = indicators.get(i).outputs();
+                for (int o = 0; o < names.size(); o++) {
+                    outputs.put(names.get(o), out[offsets[i] + o]);
+                }
+                values.put(specs.get(i).key(), outputs);
+            }
+            if (despike != null) {
+                Map<String, double[]> outputs = new LinkedHashMap<>();
+                for (int o = 0; o < Despike.OUTPUTS.size(); o++) {
+                    outputs.put(Despike.OUTPUTS.get(o), out[offsets[specs.size()] + o]);
+                }
+                values.put(Despike.key(threshold), outputs);
+            }
+            return new IndicatorSeries(interval.code(), times, values);
+        }
+
+        // {high, low, close}，缺失的最高/最低价用收盘价代替
+        private static double[] bar(Candle candle) {
+            double close = candle.close();
+            double high = candle.high() != null ? candle.high() : close;
+            double low = candle.low() != null ? candle.low() : close;
+            return new double[] {high, low, close};
+        }
+
+        // 异常标记为 1/0，价格列为过滤后的值
+        private void writeDespike(boolean anomaly, double[] bar) {
+            int offset = offsets[specs.size()];
+            scratch[offset] = anomaly ? 1 : 0;
+            scratch[offset + 1] = bar[2];
+            scratch[offset + 2] = bar[0];
+            scratch[offset + 3] = bar[1];
+        }
+
+        // 同一天内取累计成交量之差，跨天或周期不小于一天时直接用 K 线的成交量
+        private double barVolume(Candle candle, boolean advance) {
+            if (candle.volume() == null) {
+                return 0;
+            }
+            long volume = candle.volume();
+            LocalDate day = LocalDate.ofInstant(candle.time(), ZONE);
+            double bar = day.equals(lastDay) ? Math.max(0, volume - lastVolume) : volume;
+            if (advance) {
+                lastDay = day;
+                lastVolume = volume;
+            }
+            return bar;
+        }
+
+        // 第一个 t >= time 的下标
+        private int lowerBound(long time) {
+            int index = Arrays.binarySearch(t, 0, size, time);
+            if (index < 0) {
+                return -index - 1;
+            }
+            while (index > 0 && t[index - 1] == time) {
+                index--;
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.test1.service.indicator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 指标规格，如 sma:20、macd:12:26:9、bollinger:20:2。省略参数时使用 DEFAULTS 中的默认值。
+ *
+ * @param type   指标类型
+ * @param params 参数，个数与默认参数一致
+ */
+public record IndicatorSpec(String type, List<Double> params) {
+
+    // 每种指标的默认参数
+    public static final Map<String, List<Double>> DEFAULTS = Map.of(
+            "sma", List.of(20.0),
+            "ema", List.of(20.0),
+            "rsi", List.of(14.0),
+            "macd", List.of(12.0, 26.0, 9.0),
+            "bollinger", List.of(20.0, 2.0),
+            "vwap", List.of(20.0),
+            "volatility", List.of(20.0));
+
+    // 周期参数的上限，避免一次请求拉取过长的预热数据
+    private static final int MAX_PERIOD = 1000;
+
+    // "sma:20,macd:12:26:9" -> [sma:20, macd:12:26:9]；为空、未知类型或参数非法时返回 null
+    public static List<IndicatorSpec> parse(String specs) {
+        if (specs == null || specs.isBlank()) {
+            return null;
+        }
+        List<IndicatorSpec> parsed = new ArrayList<>();
+        for (String spec : specs.split(",")) {
+            String trimmed = spec.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            String[] parts = trimmed.split(":");
+            String type = parts[0].trim().toLowerCase();
+            List<Double> defaults = DEFAULTS.get(type);
+            if (defaults == null || parts.length - 1 > defaults.size()) {
+                return null;
+            }
+            List<Double> params = new ArrayList<>(defaults);
+            for (int i = 1; i < parts.length; i++) {
+                try {
+                    params.set(i - 1, Double.parseDouble(parts[i].trim()));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            IndicatorSpec indicator = new IndicatorSpec(type, List.copyOf(params));
+            if (!indicator.isValid()) {
+                return null;
+            }
+            if (!parsed.contains(indicator)) {
+                parsed.add(indicator);
+            }
+        }
+        return parsed.isEmpty() ? null : parsed;
+    }
+
+    // 返回结果中的键，如 macd:12:26:9
+    public String key() {
+        StringBuilder key = new StringBuilder(type);
+        for (double param : params) {
+            key.append(':');
+            key.append(param == Math.rint(param) ? String.valueOf((long) param) : String.valueOf(param));
+        }
+        return key.toString();
+    }
+
+    public Indicator create() {
+        return switch (type) {
+            case "sma" -> new Sma(period(0));
+            case "ema" -> new Ema(period(0));
+            case "rsi" -> new Rsi(period(0));
+            case "macd" -> new Macd(period(0), period(1), period(2));
+            case "bollinger" -> new Bollinger(period(0), params.get(1));
+            case "vwap" -> new Vwap(period(0));
+            case "volatility" -> new Volatility(period(0));
+            default -> throw new IllegalStateException(type);
+        };
+    }
+
+    // 第一个有效值之前需要的 K 线数；EMA 类按 3 倍周期预热，使初值的影响衰减到可以忽略
+    public int warmup() {
+        return switch (type) {
+            case "ema" -> 3 * period(0);
+            case "rsi" -> 3 * period(0) + 1;
+            case "macd" -> 3 * Math.max(period(0), period(1)) + 3 * period(2);
+            case "volatility" -> period(0) + 1;
+            default -> period(0);
+        };
+    }
+
+    private int period(int index) {
+        return params.get(index).intValue();
+    }
+
+    private boolean isValid() {
+        for (int i = 0; i < params.size(); i++) {
+            double param = params.get(i);
+            // 布林带的第二个参数是倍数，其余参数都是周期
+            if (type.equals("bollinger") && i == 1) {
+                if (!(param > 0 && param <= 10)) {
+                    return false;
+                }
+            } else if (param != Math.rint(param) || param < 1 || param > MAX_PERIOD) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.test1.service.indicator;
+
+import java.util.List;
+
+// MACD：快慢 EMA 之差，signal 为其 EMA，histogram 为两者之差
+final class Macd implements Indicator {
+
+    private final Ema fast;
+    private final Ema slow;
+    private final Ema signal;
+
+    Macd(int fast, int slow, int signal) {
+        this.fast = new Ema(fast);
+        this.slow = new Ema(slow);
+        this.signal = new Ema(signal);
+    }
+
+    private Macd(Macd other) {
+        this.fast = other.fast.copy();
+        this.slow = other.slow.copy();
+        this.signal = other.signal.copy();
+    }
+
+    @Override
+    public List<String> outputs() {
+        return List.of("macd", "signal", "histogram");
+    }
+
+    @Override
+    public void update(double high, double low, double close, double volume, double[] out, int offset) {
+        double macd = fast.next(close) - slow.next(close);
+        double sig = Double.isNaN(macd) ? Double.NaN : signal.next(macd);
+        out[offset] = macd;
+        out[offset + 1] = sig;
+        out[offset + 2] = macd - sig;
+    }
+
+    @Override
+    public Indicator copy() {
+        return new Macd(this);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.test1.service.indicator;
+
+/**
+ * 定长滑动窗口，维护窗口内的和与平方和，均值和标准差都是 O(1)。
+ */
+final class RollingWindow {
+
+    private final double[] values;
+    private int count;
+    private int next;
+    private double sum;
+    private double sumSquares;
+
+    RollingWindow(int size) {
+        this.values = new double[size];
+    }
+
+    RollingWindow(RollingWindow other) {
+        this.values = other.values.clone();
+        this.count = other.count;
+        this.next = other.next;
+        this.sum = other.sum;
+        this.sumSquares = other.sumSquares;
+    }
+
+    void add(double value) {
+        if (count == values.length) {
+            double old = values[next];
+            sum -= old;
+            sumSquares -= old * old;
+        } else {
+            count++;
+        }
+        values[next] = value;
+        next = next + 1 == values.length ? 0 : next + 1;
+        sum += value;
+        sumSquares += value * value;
+    }
+
+    boolean isFull() {
+        return count == values.length;
+    }
+
+    double sum() {
+        return sum;
+    }
+
+    double mean() {
+        return sum / count;
+    }
+
+    // 总体标准差；累加误差可能让方差略小于 0，按 0 处理
+    double stdDev() {
+        double mean = mean();
+        return Math.sqrt(Math.max(0, sumSquares / count - mean * mean));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.test1.service.indicator;
+
+import java.util.List;
+
+// 相对强弱指数，Wilder 平滑
+final class Rsi implements Indicator {
+
+    private final int period;
+    private double previous = Double.NaN;
+    private int seen;
+    private double avgGain;
+    private double avgLoss;
+
+    Rsi(int period) {
+        this.period = period;
+    }
+
+    private Rsi(Rsi other) {
+        this.period = other.period;
+        this.previous = other.previous;
+        this.seen = other.seen;
+        this.avgGain = other.avgGain;
+        this.avgLoss = other.avgLoss;
+    }
+
+    @Override
+    public List<String> outputs() {
+        return List.of("value");
+    }
+
+    @Override
+    public void update(double high, double low, double close, double volume, double[] out, int offset) {
+        if (Double.isNaN(previous)) {
+            previous = close;
+            out[offset] = Double.NaN;
+            return;
+        }
+        double change = close - previous;
+        previous = close;
+        double gain = Math.max(change, 0);
+        double loss = Math.max(-change, 0);
+        if (seen < period) {
+            // 前 period 个变化取简单平均
+            avgGain += gain / period;
+            avgLoss += loss / period;
+            if (++seen < period) {
+                out[offset] = Double.NaN;
+                return;
+            }
+        } else {
+            avgGain = (avgGain * (period - 1) + gain) / period;
+            avgLoss = (avgLoss * (period - 1) + loss) / period;
+        }
+        out[offset] = avgLoss == 0 ? 100.0 : 100.0 - 100.0 / (1 + avgGain / avgLoss);
+    }
+
+    @Override
+    public Indicator copy() {
+        return new Rsi(this);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.test1.service.indicator;
+
+import java.util.List;
+
+// 简单移动平均
+final class Sma implements Indicator {
+
+    private final RollingWindow window;
+
+    Sma(int period) {
+        this.window = new RollingWindow(period);
+    }
+
+    private Sma(Sma other) {
+        this.window = new RollingWindow(other.window);
+    }
+
+    @Override
+    public List<String> outputs() {
+        return List.of("value");
+    }
+
+    @Override
+    public void update(double high, double low, double close, double volume, double[] out, int offset) {
+        window.add(close);
+        out[offset] = window.isFull() ? window.mean() : Double.NaN;
+    }
+
+    @Override
+    public Indicator copy() {
+        return new Sma(this);
+    }
+}
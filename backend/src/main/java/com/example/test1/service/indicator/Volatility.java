@@ -0,0 +1,38 @@
+package com.example.test1.service.indicator;
+
+import java.util.List;
+
+// 波动率：最近 period 个对数收益率（%）的标准差，未年化
+final class Volatility implements Indicator {
+
+    private final RollingWindow returns;
+    private double previous = Double.NaN;
+
+    Volatility(int period) {
+        this.returns = new RollingWindow(period);
+    }
+
+    private Volatility(Volatility other) {
+        this.returns = new RollingWindow(other.returns);
+        this.previous = other.previous;
+    }
+
+    @Override
+    public List<String> outputs() {
+        return List.of("value");
+    }
+
+    @Override
+    public void update(double high, double low, double close, double volume, double[] out, int offset) {
+        if (!Double.isNaN(previous) && previous > 0 && close > 0) {
+            returns.add(Math.log(close / previous) * 100);
+        }
+        previous = close;
+        out[offset] = returns.isFull() ? returns.stdDev() : Double.NaN;
+    }
+
+    @Override
+    public Indicator copy() {
+        return new Volatility(this);
+    }
+}
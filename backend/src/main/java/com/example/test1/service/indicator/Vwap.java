@@ -0,0 +1,38 @@
+package com.example.test1.service.indicator;
+
+import java.util.List;
+
+// 滚动成交量加权均价：最近 period 根 K 线的典型价 (H+L+C)/3 按成交量加权
+final class Vwap implements Indicator {
+
+    private final RollingWindow priceVolume;
+    private final RollingWindow volumes;
+
+    Vwap(int period) {
+        this.priceVolume = new RollingWindow(period);
+        this.volumes = new RollingWindow(period);
+    }
+
+    private Vwap(Vwap other) {
+        this.priceVolume = new RollingWindow(other.priceVolume);
+        this.volumes = new RollingWindow(other.volumes);
+    }
+
+    @Override
+    public List<String> outputs() {
+        return List.of("value");
+    }
+
+    @Override
+    public void update(double high, double low, double close, double volume, double[] out, int offset) {
+        double typical = (high + low + close) / 3;
+        priceVolume.add(typical * volume);
+        volumes.add(volume);
+        out[offset] = volumes.isFull() && volumes.sum() > 0 ? priceVolume.sum() / volumes.sum() : Double.NaN;
+    }
+
+    @Override
+    public Indicator copy() {
+        return new Vwap(this);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.test1.service.prediction;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * 由日收盘价计算的基线预测：阻尼趋势的 Holt 线性指数平滑（水平 + 趋势两条 EMA，趋势按 PHI 逐日衰减，
+ * 避免长预测期内把短期趋势无限外推）。
+ * 准确率为留出最后一段收盘价做回测的 100 - MAPE；置信度按日收益率波动在预测期末的 95% 区间宽度换算。
+ */
+final class BaselineModel {
+
+    static final String MODEL = "holt";
+    static final String MODEL_TYPE = "Holt线性趋势";
+    // 至少需要的日收盘价个数
+    static final int MIN_POINTS = 20;
+
+    private static final double ALPHA = 0.3;
+    private static final double BETA = 0.1;
+    private static final double PHI = 0.9;
+
+    private BaselineModel() {
+    }
+
+    // 用 closes 拟合后预测之后 horizon 天的价格
+    static double[] forecast(double[] closes, int length, int horizon) {
+        double level = closes[0];
+        double trend = length > 1 ? closes[1] - closes[0] : 0;
+        for (int i = 1; i < length; i++) {
+            double previous = level;
+            level = ALPHA * closes[i] + (1 - ALPHA) * (level + PHI * trend);
+            trend = BETA * (level - previous) + (1 - BETA) * PHI * trend;
+        }
+        double[] out = new double[horizon];
+        double damping = 0;
+        double factor = 1;
+        for (int h = 0; h < horizon; h++) {
+            factor *= PHI;
+            damping += factor;
+            out[h] = level + damping * trend;
+        }
+        return out;
+    }
+
+    // 日收益率标准差（百分比）
+    static double dailyVolatility(double[] closes) {
+        int n = closes.length - 1;
+        if (n < 2) {
+            return 0;
+        }
+        double sum = 0;
+        double sumSq = 0;
+        for (int i = 1; i < closes.length; i++) {
+            double r = closes[i] / closes[i - 1] - 1;
+            sum += r;
+            sumSq += r * r;
+        }
+        double mean = sum / n;
+        return Math.sqrt(Math.max(0, sumSq / n - mean * mean) * n / (n - 1)) * 100;
+    }
+
+    // 用除最后 holdout 个以外的收盘价预测最后 holdout 个，返回 100 - 平均绝对百分比误差
+    static int accuracy(double[] closes, int holdout) {
+        int h = Math.min(holdout, closes.length - MIN_POINTS / 2);
+        if (h <= 0) {
+            return 0;
+        }
+        int fit = closes.length - h;
+        double[] predicted = forecast(closes, fit, h);
+        double ape = 0;
+        for (int i = 0; i < h; i++) {
+            ape += Math.abs(predicted[i] - closes[fit + i]) / closes[fit + i];
+        }
+        return clamp(100 - ape / h * 100);
+    }
+
+    // 预测期末 95% 区间的相对宽度越大置信度越低
+    static int confidence(double dailyVolatilityPercent, int horizon) {
+        return clamp(100 - 1.96 * dailyVolatilityPercent * Math.sqrt(horizon));
+    }
+
+    static String riskLevel(double dailyVolatilityPercent) {
+        if (dailyVolatilityPercent < 1.5) {
+            return "低";
+        }
+        return dailyVolatilityPercent < 3 ? "中" : "高";
+    }
+
+    // last 之后的 n 个工作日（不含周末）
+    static int[] tradingDays(LocalDate last, int n) {
+        int[] days = new int[n];
+        LocalDate day = last;
+        for (int i = 0; i < n; i++) {
+            do {
+                day = day.plusDays(1);
+            } while (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY);
+            days[i] = (int) day.toEpochDay();
+        }
+        return days;
+    }
+
+    private static int clamp(double value) {
+        return (int) Math.round(Math.max(0, Math.min(100, value)));
+    }
+}
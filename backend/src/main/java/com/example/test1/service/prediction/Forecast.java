@@ -0,0 +1,82 @@
+package com.example.test1.service.prediction;
+
+import com.example.test1.model.Prediction;
+import org.bson.Document;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一只股票、一个模型的完整预测期。日期存为 epoch day、价格存为原始数组，截取时只复制请求的前 n 天。
+ * generatedAt 为生成时间（epoch 毫秒），同一股票有多个模型时默认取最新生成的。
+ */
+record Forecast(String nameKey, String name, String model, String modelType, double currentPrice,
+                int[] days, double[] prices, int confidenceLevel, int accuracyRate, double volatility,
+                String riskLevel, String lastUpdated, long dataPoints, long generatedAt) {
+
+    int horizon() {
+        return prices.length;
+    }
+
+    // n 超出预测期时返回完整预测期
+    Prediction slice(int n) {
+        int count = Math.max(1, Math.min(n, prices.length));
+        List<LocalDate> dates = new ArrayList<>(count);
+        double[] slice = new double[count];
+        for (int i = 0; i < count; i++) {
+            dates.add(LocalDate.ofEpochDay(days[i]));
+            slice[i] = prices[i];
+        }
+        double predicted = slice[count - 1];
+        double change = predicted - currentPrice;
+        double changePercent = currentPrice == 0 ? 0 : change / currentPrice * 100;
+        return new Prediction(name, model, modelType, currentPrice, predicted, change, changePercent,
+                dates, slice, confidenceLevel, accuracyRate, volatility, riskLevel, lastUpdated, dataPoints);
+    }
+
+    Document toDocument() {
+        List<Integer> dayList = new ArrayList<>(days.length);
+        List<Double> priceList = new ArrayList<>(prices.length);
+        for (int i = 0; i < prices.length; i++) {
+            dayList.add(days[i]);
+            priceList.add(prices[i]);
+        }
+        return new Document("_id", nameKey + "|" + model)
+                .append("nameKey", nameKey)
+                .append("name", name)
+                .append("model", model)
+                .append("modelType", modelType)
+                .append("currentPrice", currentPrice)
+                .append("days", dayList)
+                .append("prices", priceList)
+                .append("confidenceLevel", confidenceLevel)
+                .append("accuracyRate", accuracyRate)
+                .append("volatility", volatility)
+                .append("riskLevel", riskLevel)
+                .append("lastUpdated", lastUpdated)
+                .append("dataPoints", dataPoints)
+                .append("generatedAt", generatedAt);
+    }
+
+    static Forecast fromDocument(Document doc) {
+        List<?> dayList = doc.get("days", List.class);
+        List<?> priceList = doc.get("prices", List.class);
+        int n = Math.min(dayList.size(), priceList.size());
+        int[] days = new int[n];
+        double[] prices = new double[n];
+        for (int i = 0; i < n; i++) {
+            days[i] = ((Number) dayList.get(i)).intValue();
+            prices[i] = ((Number) priceList.get(i)).doubleValue();
+        }
+        return new Forecast(doc.getString("nameKey"), doc.getString("name"), doc.getString("model"),
+                doc.getString("modelType"), number(doc, "currentPrice"), days, prices,
+                (int) number(doc, "confidenceLevel"), (int) number(doc, "accuracyRate"), number(doc, "volatility"),
+                doc.getString("riskLevel"), doc.getString("lastUpdated"),
+                (long) number(doc, "dataPoints"), (long) number(doc, "generatedAt"));
+    }
+
+    private static double number(Document doc, String key) {
+        return doc.get(key) instanceof Number n ? n.doubleValue() : 0;
+    }
+}
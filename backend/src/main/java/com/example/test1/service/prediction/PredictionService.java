@@ -0,0 +1,313 @@
+package com.example.test1.service.prediction;
+
+import com.example.test1.model.Candle;
+import com.example.test1.model.Prediction;
+import com.example.test1.model.PredictionSummary;
+import com.example.test1.model.StockData;
+import com.example.test1.service.CandleInterval;
+import com.example.test1.service.CandleService;
+import com.example.test1.service.StockIndexService;
+import com.example.test1.service.SymbolResolver;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 价格预测。预测按（股票、模型）保存在 predictions 集合，启动后整体装入内存，按 nameKey 索引，
+ * 请求只截取需要的天数返回。
+ * 离线训练的 LSTM 预测来自 classpath 下的 stock_predictions.json，集合中还没有时导入一次；
+ * 基线预测（{@link BaselineModel}）定时按日 K 线为每只股票并行重算，写回集合后替换内存中的对应项。
+ */
+@Service
+public class PredictionService {
+
+    private static final String COLLECTION = "predictions";
+    private static final String SEED = "predictions/stock_predictions.json";
+    private static final String SEED_MODEL = "lstm";
+    private static final String SEED_MODEL_TYPE = "LSTM神经网络";
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final DateTimeFormatter UPDATED = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CandleService candleService;
+
+    @Autowired
+    private SymbolResolver symbolResolver;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 基线模型的预测天数（工作日）与参与拟合的历史天数
+    @Value("${stock.predictions.horizon-days:30}")
+    private int horizonDays;
+
+    @Value("${stock.predictions.history-days:180}")
+    private int historyDays;
+
+    @Value("${stock.predictions.threads:4}")
+    private int threads;
+
+    // nameKey -> model -> 预测；整体替换，读取无需加锁
+    private volatile Map<String, Map<String, Forecast>> forecasts = Map.of();
+    private volatile boolean loaded;
+
+    // model 为空时取该股票最新生成的预测；没有预测时返回 null
+    public Prediction predict(String name, int days, String model) {
+        Map<String, Forecast> byModel = lookup(name);
+        if (byModel == null) {
+            return null;
+        }
+        Forecast forecast = model == null || model.isBlank() ? latest(byModel) : byModel.get(model);
+        return forecast == null ? null : forecast.slice(days);
+    }
+
+    public List<PredictionSummary> summaries() {
+        List<PredictionSummary> result = new ArrayList<>();
+        for (Map<String, Forecast> byModel : ensureLoaded().values()) {
+            Forecast main = latest(byModel);
+            List<String> models = new ArrayList<>();
+            models.add(main.model());
+            byModel.keySet().stream().filter(m -> !m.equals(main.model())).sorted().forEach(models::add);
+            Prediction full = main.slice(main.horizon());
+            result.add(new PredictionSummary(main.name(), models, main.horizon(), full.currentPrice(),
+                    full.predictedPrice(), full.priceChangePercent(), main.confidenceLevel(), main.lastUpdated()));
+        }
+        result.sort(Comparator.comparing(PredictionSummary::companyName));
+        return result;
+    }
+
+    @Scheduled(initialDelayString = "${stock.predictions.initial-delay:PT1M}",
+            fixedDelayString = "${stock.predictions.refresh-interval:PT1H}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            System.out.println("定时重算预测失败: " + e.getMessage());
+        }
+    }
+
+    // 为所有股票重算基线预测，返回生成的预测数；历史不足的股票跳过
+    public synchronized int refresh() {
+        ensureLoaded();
+        long start = System.currentTimeMillis();
+        Map<String, String> symbols = symbolResolver.symbols();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "prediction-" + THREAD_COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        List<Forecast> computed = new ArrayList<>();
+        try {
+            List<Callable<Forecast>> tasks = new ArrayList<>();
+            symbols.forEach((nameKey, name) -> tasks.add(() -> baseline(nameKey, name)));
+            for (Future<Forecast> future : pool.invokeAll(tasks)) {
+                try {
+                    Forecast forecast = future.get();
+                    if (forecast != null) {
+                        computed.add(forecast);
+                    }
+                } catch (ExecutionException e) {
+                    System.out.println("预测计算失败: " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        store(computed);
+        System.out.println("基线预测已更新: " + computed.size() + "/" + symbols.size() + " 只股票, 耗时 "
+                + (System.currentTimeMillis() - start) + " ms");
+        return computed.size();
+    }
+
+    private Map<String, Forecast> lookup(String name) {
+        Map<String, Map<String, Forecast>> all = ensureLoaded();
+        for (String key : symbolResolver.resolveKeys(name)) {
+            Map<String, Forecast> byModel = all.get(key);
+            if (byModel != null) {
+                return byModel;
+            }
+        }
+        // 只有预测、库中没有行情的股票
+        String key = StockData.nameKeyOf(name);
+        return key == null ? null : all.get(key);
+    }
+
+    private static Forecast latest(Map<String, Forecast> byModel) {
+        return byModel.values().stream().max(Comparator.comparingLong(Forecast::generatedAt)).orElse(null);
+    }
+
+    private Forecast baseline(String nameKey, String name) {
+        Document last = mongoTemplate.getCollection(StockIndexService.COLLECTION)
+                .find(Filters.eq("nameKey", nameKey))
+                .sort(Sorts.descending("timestamp"))
+                .projection(new Document("timestamp", 1))
+                .first();
+        if (last == null || last.getDate("timestamp") == null) {
+            return null;
+        }
+        // 以该股票最后一条行情为终点，不依赖当前日期，历史数据同样可以预测
+        LocalDateTime to = LocalDateTime.ofInstant(last.getDate("timestamp").toInstant(), ZONE);
+        List<Candle> candles = candleService.candles(nameKey, CandleInterval.D1, to.minusDays(historyDays), to, Integer.MAX_VALUE);
+        double[] closes = new double[candles.size()];
+        int n = 0;
+        for (Candle candle : candles) {
+            if (candle.close() != null && candle.close() > 0) {
+                closes[n++] = candle.close();
+            }
+        }
+        if (n < BaselineModel.MIN_POINTS) {
+            return null;
+        }
+        closes = Arrays.copyOf(closes, n);
+        int horizon = Math.max(1, horizonDays);
+        double volatility = BaselineModel.dailyVolatility(closes);
+        LocalDate lastDay = LocalDate.ofInstant(candles.get(candles.size() - 1).time(), ZONE);
+        return new Forecast(nameKey, name, BaselineModel.MODEL, BaselineModel.MODEL_TYPE, closes[n - 1],
+                BaselineModel.tradingDays(lastDay, horizon), BaselineModel.forecast(closes, n, horizon),
+                BaselineModel.confidence(volatility, horizon), BaselineModel.accuracy(closes, Math.min(horizon, 20)),
+                Math.round(volatility * 100) / 100.0, BaselineModel.riskLevel(volatility),
+                LocalDateTime.now().format(UPDATED), n, System.currentTimeMillis());
+    }
+
+    // 写回集合并替换内存中的对应项
+    private void store(List<Forecast> updated) {
+        if (updated.isEmpty()) {
+            return;
+        }
+        List<WriteModel<Document>> models = new ArrayList<>(updated.size());
+        for (Forecast forecast : updated) {
+            Document doc = forecast.toDocument();
+            models.add(new ReplaceOneModel<>(Filters.eq("_id", doc.get("_id")), doc, UPSERT));
+        }
+        mongoTemplate.getCollection(COLLECTION).bulkWrite(models, new BulkWriteOptions().ordered(false));
+        synchronized (this) {
+            Map<String, Map<String, Forecast>> next = new HashMap<>();
+            forecasts.forEach((key, byModel) -> next.put(key, new HashMap<>(byModel)));
+            for (Forecast forecast : updated) {
+                next.computeIfAbsent(forecast.nameKey(), k -> new HashMap<>()).put(forecast.model(), forecast);
+            }
+            forecasts = freeze(next);
+        }
+    }
+
+    private Map<String, Map<String, Forecast>> ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    load();
+                    loaded = true;
+                }
+            }
+        }
+        return forecasts;
+    }
+
+    private void load() {
+        if (mongoTemplate.getCollection(COLLECTION).countDocuments(Filters.eq("model", SEED_MODEL)) == 0) {
+            List<Forecast> seeded = readSeed();
+            if (!seeded.isEmpty()) {
+                List<WriteModel<Document>> models = new ArrayList<>(seeded.size());
+                for (Forecast forecast : seeded) {
+                    Document doc = forecast.toDocument();
+                    models.add(new ReplaceOneModel<>(Filters.eq("_id", doc.get("_id")), doc, UPSERT));
+                }
+                mongoTemplate.getCollection(COLLECTION).bulkWrite(models, new BulkWriteOptions().ordered(false));
+                System.out.println("已从 " + SEED + " 导入 " + seeded.size() + " 条预测");
+            }
+        }
+        Map<String, Map<String, Forecast>> next = new HashMap<>();
+        for (Document doc : mongoTemplate.getCollection(COLLECTION).find()) {
+            Forecast forecast = Forecast.fromDocument(doc);
+            if (forecast.nameKey() != null && forecast.horizon() > 0) {
+                next.computeIfAbsent(forecast.nameKey(), k -> new HashMap<>()).put(forecast.model(), forecast);
+            }
+        }
+        forecasts = freeze(next);
+    }
+
+    // stock_predictions.json：{ "公司名": { currentPrice, predictionDates[], predictedPrices[], confidenceLevel, ... } }
+    private List<Forecast> readSeed() {
+        ClassPathResource resource = new ClassPathResource(SEED);
+        if (!resource.exists()) {
+            return List.of();
+        }
+        List<Forecast> seeded = new ArrayList<>();
+        try (InputStream in = resource.getInputStream()) {
+            JsonNode root = objectMapper.readTree(in);
+            for (Map.Entry<String, JsonNode> entry : root.properties()) {
+                JsonNode node = entry.getValue();
+                JsonNode dates = node.path("predictionDates");
+                JsonNode prices = node.path("predictedPrices");
+                int n = Math.min(dates.size(), prices.size());
+                int[] days = new int[n];
+                double[] values = new double[n];
+                for (int i = 0; i < n; i++) {
+                    days[i] = (int) LocalDate.parse(dates.get(i).asText()).toEpochDay();
+                    values[i] = prices.get(i).asDouble();
+                }
+                String lastUpdated = node.path("lastUpdated").asText(null);
+                seeded.add(new Forecast(StockData.nameKeyOf(entry.getKey()), entry.getKey(),
+                        SEED_MODEL, SEED_MODEL_TYPE, node.path("currentPrice").asDouble(), days, values,
+                        node.path("confidenceLevel").asInt(), node.path("accuracyRate").asInt(),
+                        node.path("volatility").asDouble(), node.path("riskLevel").asText(null),
+                        lastUpdated, node.path("dataPoints").asLong(), toMillis(lastUpdated)));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("读取预测文件失败: " + e.getMessage());
+            return List.of();
+        }
+        return seeded;
+    }
+
+    private static long toMillis(String lastUpdated) {
+        try {
+            return LocalDateTime.parse(lastUpdated, UPDATED).atZone(ZONE).toInstant().toEpochMilli();
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static Map<String, Map<String, Forecast>> freeze(Map<String, Map<String, Forecast>> source) {
+        Map<String, Map<String, Forecast>> frozen = new HashMap<>();
+        source.forEach((key, byModel) -> frozen.put(key, Map.copyOf(byModel)));
+        return Map.copyOf(frozen);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.test1.service.reactive;
+
+import com.example.test1.model.StockData;
+import com.example.test1.repository.ReactiveStockDataRepository;
+import com.example.test1.service.SymbolResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 非阻塞读路径：查询经响应式 Mongo 驱动执行，等待数据库时不占用请求线程；
+ * 结果以 Flux 逐条发出，下游（响应写出）消费多少才向游标请求多少。
+ * 名称解析仍由内存中的 SymbolResolver 完成，不涉及 IO。
+ */
+@Profile("reactive")
+@Service
+public class ReactiveStockDataService {
+
+    @Autowired
+    private ReactiveStockDataRepository reactiveStockDataRepository;
+
+    @Autowired
+    private SymbolResolver symbolResolver;
+
+    public Flux<StockData> searchByNameAndTimeRange(String name, LocalDateTime startTime, LocalDateTime endTime) {
+        List<String> keys = symbolResolver.resolveKeys(name);
+        if (keys.isEmpty()) {
+            return Flux.empty();
+        }
+        return reactiveStockDataRepository.findByNameKeyInAndTimestampBetween(keys, startTime, endTime);
+    }
+
+    public Flux<StockData> filterByTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
+        return reactiveStockDataRepository.findByTimestampBetween(startTime, endTime);
+    }
+
+    // 模糊名称匹配到多只时取第一只
+    public Mono<StockData> latest(String name) {
+        List<String> keys = symbolResolver.resolveKeys(name);
+        if (keys.isEmpty()) {
+            return Mono.empty();
+        }
+        return reactiveStockDataRepository.findFirstByNameKeyOrderByTimestampDesc(keys.get(0));
+    }
+}
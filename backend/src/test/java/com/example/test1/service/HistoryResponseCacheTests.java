@@ -0,0 +1,71 @@
+package com.example.test1.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HistoryResponseCacheTests {
+
+	@Test
+	void evictsLeastRecentlyUsedByBytes() {
+		HistoryResponseCache.Lru lru = new HistoryResponseCache.Lru(250);
+		lru.put("a", entry("a", 100, null));
+		lru.put("b", entry("b", 100, null));
+		lru.get("a");
+		lru.put("c", entry("c", 100, null));
+
+		assertNotNull(lru.get("a"));
+		assertNull(lru.get("b"));
+		assertEquals(200, lru.bytes());
+
+		// 单个条目超过上限时不缓存
+		lru.put("d", entry("d", 300, null));
+		assertNull(lru.get("d"));
+		assertEquals(2, lru.size());
+	}
+
+	@Test
+	void invalidatesOverlappingRanges() {
+		HistoryResponseCache.Lru lru = new HistoryResponseCache.Lru(10_000);
+		lru.put("apple", entry("apple", 10, Set.of("apple")));
+		lru.put("tesla", entry("tesla", 10, Set.of("tesla")));
+		lru.put("all", entry("all", 10, null));
+
+		// 时间范围不重叠（查询区间两端都包含）
+		assertEquals(0, lru.invalidate(Map.of("apple", new long[]{2001, 3000})));
+		// apple 的条目和包含所有股票的条目失效
+		assertEquals(2, lru.invalidate(Map.of("apple", new long[]{500, 1500})));
+		assertNotNull(lru.get("tesla"));
+		assertEquals(10, lru.bytes());
+	}
+
+	@Test
+	void etagFollowsContentAndGzipRoundTrips() throws IOException {
+		byte[] json = "[{\"name\":\"Apple\",\"last\":\"189.5\"}]".repeat(100).getBytes(StandardCharsets.UTF_8);
+		assertEquals(HistoryResponseCache.etagOf(json), HistoryResponseCache.etagOf(json.clone()));
+		assertNotEquals(HistoryResponseCache.etagOf(json), HistoryResponseCache.etagOf("[]".getBytes(StandardCharsets.UTF_8)));
+
+		byte[] gzip = HistoryResponseCache.gzip(json);
+		assertNotNull(gzip);
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+			assertArrayEquals(json, in.readAllBytes());
+		}
+		// 压缩后没有变小时不保存
+		assertNull(HistoryResponseCache.gzip("[]".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static HistoryResponseCache.Entry entry(String tag, int size, Set<String> nameKeys) {
+		return new HistoryResponseCache.Entry(tag, new byte[size], null, nameKeys, 1000, 2000);
+	}
+}
@@ -0,0 +1,53 @@
+package com.example.test1.service;
+
+import com.example.test1.model.StockData;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HotSeriesCacheTests {
+
+	@Test
+	void servesRangesInsideCoveredWindow() {
+		HotSeriesCache.Series series = new HotSeriesCache.Series(5, 1_000_000);
+		assertNull(series.range(0, 5000));
+
+		// 达到行数上限的装载：最旧时间点之后才保证完整
+		series.load(List.of(tick(1090, 9), tick(1080, 8), tick(1070, 7), tick(1060, 6), tick(1050, 5)), 0, true);
+		assertNull(series.range(1050, 5000));
+		assertEquals(4, series.range(1051, 5000).size());
+
+		// 写满后追加淘汰最旧的行，乱序写入插到对应位置，同一时间点原地替换
+		series.upsert(tick(1100, 10));
+		series.upsert(tick(1075, 7.5));
+		series.upsert(tick(1075, 99));
+		List<StockData> rows = series.range(1061, 5000);
+		assertEquals(List.of(7.0, 99.0, 8.0, 9.0, 10.0), rows.stream().map(StockData::getLast).toList());
+		assertEquals(500L, rows.get(0).getVol());
+	}
+
+	@Test
+	void wrapsAndTrimsToWindow() {
+		HotSeriesCache.Series series = new HotSeriesCache.Series(1000, 100);
+		series.load(List.of(), Long.MIN_VALUE, false);
+		for (int i = 0; i < 50; i++) {
+			series.upsert(tick(i * 10L, i));
+		}
+		assertEquals(11, series.size());
+		assertNull(series.range(389, 500));
+		assertEquals(11, series.range(390, 500).size());
+	}
+
+	private static Document tick(long timestamp, double last) {
+		return new Document("timestamp", new Date(timestamp))
+				.append("name", "Apple")
+				.append("nameKey", "apple")
+				.append("last", last)
+				.append("vol", 500L);
+	}
+}
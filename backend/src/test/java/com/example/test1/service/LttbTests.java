@@ -0,0 +1,50 @@
+package com.example.test1.service;
+
+import com.example.test1.model.Candle;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LttbTests {
+
+	@Test
+	void keepsEndpointsAndPeaks() {
+		List<Candle> data = new ArrayList<>();
+		Instant start = Instant.parse("2025-11-03T09:30:00Z");
+		for (int i = 0; i < 1000; i++) {
+			double close = i == 500 ? 400 : 100 + Math.sin(i / 50.0);
+			data.add(new Candle(start.plusSeconds(60L * i), close, close, close, close, 0L, 1L));
+		}
+
+		List<Candle> sampled = Lttb.downsample(data, 100);
+
+		assertEquals(100, sampled.size());
+		assertSame(data.get(0), sampled.get(0));
+		assertSame(data.get(999), sampled.get(99));
+		assertTrue(sampled.contains(data.get(500)));
+		for (int i = 1; i < sampled.size(); i++) {
+			assertTrue(sampled.get(i - 1).time().isBefore(sampled.get(i).time()));
+		}
+	}
+
+	@Test
+	void returnsInputWhenUnderThreshold() {
+		List<Candle> data = List.of(new Candle(Instant.EPOCH, 1.0, 1.0, 1.0, 1.0, 0L, 1L));
+		assertSame(data, Lttb.downsample(data, 100));
+	}
+
+	@Test
+	void fitsIntervalToPointBudget() {
+		assertEquals(CandleInterval.M1, CandleInterval.fit(Duration.ofHours(6), 1000));
+		assertEquals(CandleInterval.H1, CandleInterval.fit(Duration.ofDays(30), 1000));
+		assertEquals(CandleInterval.D1, CandleInterval.fit(Duration.ofDays(365), 1000));
+		assertEquals(CandleInterval.MN1, CandleInterval.of("1M"));
+	}
+}
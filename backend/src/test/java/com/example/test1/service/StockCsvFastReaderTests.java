@@ -0,0 +1,81 @@
+package com.example.test1.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockCsvFastReaderTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void parsesStandardLayoutAcrossChunks() throws Exception {
+		Path csv = dir.resolve("stocks.csv");
+		Files.writeString(csv, String.join("\n",
+				"timestamp,name,last,high,low,chg_,chg_%,vol_,time",
+				"2025-11-03 09:30:00,Apple,270.5,271.2,268.9,+1.25,+0.46%,12.5M,09:30:00",
+				"2025-11-03 09:31:00,Apple,270.6,271.2,268.9,1.35,0.50%,13M,09:31:00",
+				"2025-11-03 09:31:00,\"Goldman Sachs\",790.1,795,788,-2.1,-0.27%,1.2K,09:31:00",
+				"2025-11-03 25:31:00,Walmart,101,102,100,0,0.00%,-,09:31:00",
+				""), StandardCharsets.UTF_8);
+
+		List<StockTickBatch> batches = new ArrayList<>();
+		List<String> malformed = new ArrayList<>();
+		try (StockCsvFastReader reader = StockCsvFastReader.open(csv)) {
+			assertTrue(reader.supportsLayout());
+			for (StockCsvFastReader.Chunk chunk : reader.split(0, 3)) {
+				reader.parse(chunk, 2, new StockCsvFastReader.Handler() {
+					@Override
+					public void onBatch(StockTickBatch batch) {
+						batches.add(batch);
+					}
+
+					@Override
+					public void onMalformedLine(String line) {
+						malformed.add(line);
+					}
+				});
+			}
+		}
+
+		assertEquals(3, batches.stream().mapToInt(StockTickBatch::size).sum());
+		assertEquals(1, malformed.size());
+		assertTrue(malformed.get(0).contains("Goldman Sachs"));
+
+		StockTickBatch first = batches.get(0);
+		long expected = LocalDateTime.of(2025, 11, 3, 9, 30).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		assertEquals(expected, first.timestamp(0));
+		assertEquals("Apple", first.name(0));
+		assertEquals(270.5, first.last(0));
+		assertEquals(0.46, first.chgPercent(0));
+		assertEquals(12_500_000L, first.vol(0));
+
+		StockTickBatch lastBatch = batches.get(batches.size() - 1);
+		int i = lastBatch.size() - 1;
+		assertEquals("Walmart", lastBatch.name(i));
+		assertEquals(StockTickBatch.VOL_MISSING, lastBatch.vol(i));
+		long clamped = LocalDateTime.of(2025, 11, 3, 23, 31).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		assertEquals(clamped, lastBatch.timestamp(i));
+	}
+
+	@Test
+	void rejectsUnknownHeader() throws Exception {
+		Path csv = dir.resolve("other.csv");
+		Files.writeString(csv, "date,symbol,close\n2025-11-03,AAPL,1\n", StandardCharsets.UTF_8);
+		try (StockCsvFastReader reader = StockCsvFastReader.open(csv)) {
+			assertFalse(reader.supportsLayout());
+		}
+	}
+}
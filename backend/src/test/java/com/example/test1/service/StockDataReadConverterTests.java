@@ -0,0 +1,49 @@
+package com.example.test1.service;
+
+import com.example.test1.model.StockData;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StockDataReadConverterTests {
+
+	@Test
+	void readsLegacyShape() {
+		// 旧保存接口写入的形态：BigDecimal 为字符串，涨跌幅、成交量带单位
+		Document legacy = new Document("_id", "a1")
+				.append("timestamp", new Date(1_000))
+				.append("name", " Apple ")
+				.append("last", "101.50")
+				.append("high", 102L)
+				.append("low", "-")
+				.append("chgPercent", "+1.23%")
+				.append("vol", "12.5M")
+				.append("timestamp_iso", "1970-01-01T00:00:01Z");
+
+		StockData data = new StockDataReadConverter().convert(legacy);
+
+		assertEquals("a1", data.getId());
+		assertEquals("apple", data.getNameKey());
+		assertEquals(101.5, data.getLast());
+		assertEquals(102.0, data.getHigh());
+		assertNull(data.getLow());
+		assertNull(data.getChg());
+		assertEquals(1.23, data.getChgPercent());
+		assertEquals(12_500_000L, data.getVol());
+	}
+
+	@Test
+	void typedKeepsOnlyPresentColumns() {
+		Document typed = StockDataReadConverter.typed(new Document("timestamp", new Date(1_000)).append("vol", "3K"));
+
+		assertEquals(3_000L, typed.get("vol"));
+		assertEquals(StockData.SCHEMA_VERSION, typed.get("schemaVersion"));
+		assertFalse(typed.containsKey("last"));
+		assertFalse(typed.containsKey("chgPercent"));
+	}
+}
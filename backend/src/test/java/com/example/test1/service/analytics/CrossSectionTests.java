@@ -0,0 +1,116 @@
+package com.example.test1.service.analytics;
+
+import com.example.test1.model.Candle;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrossSectionTests {
+
+	private static final double NaN = Double.NaN;
+
+	@Test
+	void alignsOnUnionOfTradingDays() {
+		Panel panel = Panel.align(List.of("a", "b"), List.of("A", "B"), List.of(
+				List.of(candle(1, 10), candle(2, 11), candle(4, 12)),
+				List.of(candle(2, 20), candle(3, 22))));
+
+		assertEquals(4, panel.length());
+		assertArrayEquals(new double[]{10, 11, NaN, 12}, panel.close[0]);
+		assertArrayEquals(new double[]{NaN, 20, 22, NaN}, panel.close[1]);
+		// 缺失的交易日跳过，与上一个有数据的交易日比较
+		assertArrayEquals(new double[]{NaN, 0.1, NaN, 12.0 / 11 - 1}, panel.returns()[0], 1e-12);
+	}
+
+	@Test
+	void correlationIsSymmetricAndBounded() {
+		double[] x = {NaN, 0.01, -0.02, 0.03, 0.00, -0.01};
+		double[] scaled = {NaN, 0.02, -0.04, 0.06, 0.00, -0.02};
+		double[] inverse = {NaN, -0.01, 0.02, -0.03, 0.00, 0.01};
+		double[][] matrix = CrossSection.correlation(new double[][]{x, scaled, inverse}, 3);
+
+		assertEquals(1.0, matrix[0][1], 1e-12);
+		assertEquals(-1.0, matrix[0][2], 1e-12);
+		assertEquals(matrix[2][1], matrix[1][2]);
+		// 共同交易日不足
+		assertTrue(Double.isNaN(CrossSection.correlation(new double[][]{x, scaled}, 10)[0][1]));
+	}
+
+	@Test
+	void equalWeightIndexChainsMeanReturns() {
+		double[][] close = {{10, 11, 11}, {NaN, 20, 18}};
+		double[][] returns = {CrossSection.returns(close[0]), CrossSection.returns(close[1])};
+		double[] index = CrossSection.equalWeightIndex(close, returns, new int[]{0, 1}, 100);
+
+		// 第二天只有第一只有收益率 +10%；第三天 (0% - 10%) / 2
+		assertArrayEquals(new double[]{100, 110, 104.5}, index, 1e-9);
+		assertEquals(4.5, CrossSection.changePercent(index), 1e-9);
+	}
+
+	@Test
+	void breadthCountsAdvancersAndMovingAverage() {
+		double[][] close = {{10, 11, 12, 11}, {10, 9, 9, 10}};
+		double[][] returns = {CrossSection.returns(close[0]), CrossSection.returns(close[1])};
+		CrossSection.Breadth breadth = CrossSection.breadth(close, returns, 2);
+
+		assertArrayEquals(new int[]{0, 1, 1, 1}, breadth.advancers());
+		assertArrayEquals(new int[]{0, 1, 0, 1}, breadth.decliners());
+		assertArrayEquals(new int[]{0, 0, 1, 1}, breadth.adLine());
+		assertArrayEquals(new double[]{NaN, 50, 50, 50}, breadth.pctAboveMa(), 1e-9);
+	}
+
+	@Test
+	void rollingVolatilityMatchesFullWindow() {
+		Random random = new Random(7);
+		double[] returns = new double[60];
+		for (int d = 0; d < returns.length; d++) {
+			returns[d] = random.nextGaussian() * 0.01;
+		}
+		double[] rolling = CrossSection.rollingVolatility(returns, 20);
+		double[] last = new double[20];
+		System.arraycopy(returns, 40, last, 0, 20);
+
+		assertTrue(Double.isNaN(rolling[8]));
+		assertEquals(CrossSection.volatility(last), rolling[59], 1e-9);
+	}
+
+	@Test
+	void correlatesFiftySymbolsOverAYear() {
+		Random random = new Random(42);
+		List<String> keys = new ArrayList<>();
+		List<List<Candle>> series = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			keys.add("s" + i);
+			List<Candle> candles = new ArrayList<>();
+			double price = 100;
+			for (int d = 0; d < 365; d++) {
+				price *= 1 + random.nextGaussian() * 0.01;
+				candles.add(candle(d, price));
+			}
+			series.add(candles);
+		}
+		Panel panel = Panel.align(keys, keys, series);
+		double[][] matrix = CrossSection.correlation(panel.returns(), 20);
+
+		assertEquals(50, matrix.length);
+		for (int i = 0; i < 50; i++) {
+			assertEquals(1.0, matrix[i][i]);
+			for (int j = 0; j < 50; j++) {
+				assertTrue(Math.abs(matrix[i][j]) <= 1);
+			}
+		}
+	}
+
+	private static Candle candle(int day, double close) {
+		return new Candle(LocalDate.ofEpochDay(20_000 + day).atStartOfDay(ZoneId.systemDefault()).toInstant(),
+				close, close, close, close, 0L, null);
+	}
+}
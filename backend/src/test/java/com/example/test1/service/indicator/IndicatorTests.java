@@ -0,0 +1,79 @@
+package com.example.test1.service.indicator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndicatorTests {
+
+	@Test
+	void smaMatchesWindowAverage() {
+		Indicator sma = IndicatorSpec.parse("sma:3").get(0).create();
+		double[] out = new double[1];
+		double[] closes = {1, 2, 3, 4, 5};
+		double[] expected = {Double.NaN, Double.NaN, 2, 3, 4};
+		for (int i = 0; i < closes.length; i++) {
+			sma.update(closes[i], closes[i], closes[i], 0, out, 0);
+			assertEquals(expected[i], out[0], 1e-9);
+		}
+	}
+
+	@Test
+	void copyDoesNotAdvanceOriginal() {
+		Indicator ema = IndicatorSpec.parse("ema:2").get(0).create();
+		double[] out = new double[1];
+		ema.update(1, 1, 1, 0, out, 0);
+		ema.update(3, 3, 3, 0, out, 0);
+		assertEquals(2, out[0], 1e-9);
+
+		ema.copy().update(100, 100, 100, 0, out, 0);
+		ema.update(5, 5, 5, 0, out, 0);
+		// alpha = 2/3：2 + 2/3 * (5 - 2)
+		assertEquals(4, out[0], 1e-9);
+	}
+
+	@Test
+	void rsiIsHundredWhenOnlyRising() {
+		Indicator rsi = IndicatorSpec.parse("rsi:3").get(0).create();
+		double[] out = new double[1];
+		for (int i = 0; i < 10; i++) {
+			rsi.update(i, i, i, 0, out, 0);
+		}
+		assertEquals(100, out[0], 1e-9);
+	}
+
+	@Test
+	void despikeReplacesIsolatedSpikeOnly() {
+		Despike despike = new Despike(15);
+		double[] closes = {10, 10, 10, 10, 20, 10, 10, 13};
+		boolean[] anomalies = new boolean[closes.length - 1];
+		double[] bar = new double[3];
+		for (int i = 0; i < closes.length - 1; i++) {
+			bar[0] = bar[1] = bar[2] = closes[i];
+			anomalies[i] = despike.apply(bar, closes[i + 1]);
+			if (i == 4) {
+				assertEquals(10, bar[2], 1e-9);
+				assertEquals(10, bar[0], 1e-9);
+			}
+		}
+		// 只有第 5 根同时偏离前后两根和均线；第 7 根只偏离后一根（跳升到 13），不视为异常
+		for (int i = 0; i < anomalies.length; i++) {
+			assertEquals(i == 4, anomalies[i]);
+		}
+		assertEquals("despike:15", Despike.key(15));
+	}
+
+	@Test
+	void parsesDefaultsAndRejectsUnknown() {
+		List<IndicatorSpec> specs = IndicatorSpec.parse("macd, bollinger:20:2.5 ,sma:5");
+		assertEquals(List.of("macd:12:26:9", "bollinger:20:2.5", "sma:5"), specs.stream().map(IndicatorSpec::key).toList());
+		assertTrue(specs.get(0).warmup() >= 26);
+		assertNull(IndicatorSpec.parse("kdj:9"));
+		assertNull(IndicatorSpec.parse("sma:0"));
+		assertNull(IndicatorSpec.parse("sma:5:5"));
+	}
+}
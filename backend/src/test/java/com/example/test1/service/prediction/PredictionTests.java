@@ -0,0 +1,74 @@
+package com.example.test1.service.prediction;
+
+import com.example.test1.model.Prediction;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PredictionTests {
+
+	@Test
+	void flatHistoryForecastsFlatWithFullConfidence() {
+		double[] closes = new double[30];
+		Arrays.fill(closes, 50);
+		double[] forecast = BaselineModel.forecast(closes, closes.length, 5);
+		for (double price : forecast) {
+			assertEquals(50, price, 1e-9);
+		}
+		assertEquals(0, BaselineModel.dailyVolatility(closes), 1e-9);
+		assertEquals(100, BaselineModel.confidence(0, 30));
+		assertEquals(100, BaselineModel.accuracy(closes, 10));
+		assertEquals("低", BaselineModel.riskLevel(0));
+	}
+
+	@Test
+	void risingTrendIsDampedOverHorizon() {
+		double[] closes = new double[60];
+		for (int i = 0; i < closes.length; i++) {
+			closes[i] = 100 + i;
+		}
+		double[] forecast = BaselineModel.forecast(closes, closes.length, 30);
+		double last = closes[closes.length - 1];
+		for (int h = 0; h < forecast.length; h++) {
+			assertTrue(forecast[h] > last - 1);
+			// 阻尼后不超过按原斜率线性外推的值
+			assertTrue(forecast[h] < last + h + 1);
+			if (h > 0) {
+				assertTrue(forecast[h] > forecast[h - 1]);
+			}
+		}
+	}
+
+	@Test
+	void tradingDaysSkipWeekends() {
+		// 2025-11-07 是星期五
+		int[] days = BaselineModel.tradingDays(LocalDate.of(2025, 11, 7), 3);
+		assertArrayEquals(new int[]{
+				(int) LocalDate.of(2025, 11, 10).toEpochDay(),
+				(int) LocalDate.of(2025, 11, 11).toEpochDay(),
+				(int) LocalDate.of(2025, 11, 12).toEpochDay()}, days);
+	}
+
+	@Test
+	void sliceRecomputesChangeForRequestedDays() {
+		int start = (int) LocalDate.of(2025, 11, 10).toEpochDay();
+		Forecast forecast = new Forecast("apple", "Apple", "holt", BaselineModel.MODEL_TYPE, 100,
+				new int[]{start, start + 1, start + 2}, new double[]{101, 102, 103},
+				90, 95, 1.2, "低", "2025-11-08 18:00:00", 120, 0);
+
+		Prediction two = forecast.slice(2);
+		assertEquals(2, two.predictedPrices().length);
+		assertEquals(102, two.predictedPrice(), 1e-9);
+		assertEquals(2, two.priceChange(), 1e-9);
+		assertEquals(2, two.priceChangePercent(), 1e-9);
+		assertEquals(LocalDate.of(2025, 11, 11), two.predictionDates().get(1));
+
+		// 超出预测期时返回完整预测期
+		assertEquals(3, forecast.slice(30).predictedPrices().length);
+	}
+}
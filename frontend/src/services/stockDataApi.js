@@ -2,19 +2,18 @@
 import axios from 'axios';
 
 const API_BASE_URL = 'http://localhost:8081/api/stock-data'; 
+const MARKET_API_URL = 'http://localhost:8081/api/market';
+const ANALYTICS_API_URL = 'http://localhost:8081/api/analytics';
 
-export const fetchAllStockData = async (page = 0, size = 10) => {
+// 键集分页：cursor 为上一页返回的 nextCursor（第一页不传），withTotal 时附带估计总数
+export const fetchStockDataSlice = async (cursor = null, size = 10, withTotal = false) => {
   try {
-    const response = await axios.get(`${API_BASE_URL}`, {
-      params: {
-        page,
-        size,
-        sort: 'timestamp,desc' 
-      }
+    const response = await axios.get(`${API_BASE_URL}/scroll`, {
+      params: { cursor: cursor || undefined, size, withTotal }
     });
     return response.data;
   } catch (error) {
-    console.error('获取所有股票数据失败:', error);
+    console.error('获取股票数据失败:', error);
     throw error;
   }
 };
@@ -43,6 +42,7 @@ export const searchStockDataByTime = async (startTime, endTime) => {
   }
 };
 
+// 返回按时间升序的行：t 为 epoch 毫秒，last/high/low/chg/chgPercent/vol 为数字
 export const advancedSearchStockData = async (name, startTime, endTime) => {
   try {
     const response = await axios.get(`${API_BASE_URL}/advanced-search`, {
@@ -53,4 +53,113 @@ export const advancedSearchStockData = async (name, startTime, endTime) => {
     console.error('高级搜索股票数据失败:', error);
     throw error;
   }
-};
\ No newline at end of file
+};
+
+// 一次请求取回多只股票同一时间范围的数据，返回 { name: [rows...] }，行格式同 advancedSearchStockData
+export const batchSearchStockData = async (names, startTime, endTime) => {
+  try {
+    const response = await axios.get(`${API_BASE_URL}/batch-search`, {
+      params: { names, startTime, endTime },
+      // names=a&names=b，与 Spring 的 List<String> 参数绑定一致
+      paramsSerializer: { indexes: null }
+    });
+    return response.data;
+  } catch (error) {
+    console.error('批量搜索股票数据失败:', error);
+    throw error;
+  }
+};
+
+// K 线：服务端按周期聚合 OHLCV，interval 为空时按 maxPoints 自动选择周期
+export const fetchCandles = async (name, from, to, interval, maxPoints) => {
+  try {
+    const response = await axios.get(`${API_BASE_URL}/${encodeURIComponent(name)}/candles`, {
+      params: { interval, from, to, maxPoints }
+    });
+    return response.data;
+  } catch (error) {
+    console.error('获取K线数据失败:', error);
+    throw error;
+  }
+};
+
+// 多只股票同一区间的 K 线 { name: [candles] }，周期对所有股票统一选择
+export const fetchCandlesBatch = async (names, from, to, interval, maxPoints) => {
+  try {
+    const response = await axios.get(`${API_BASE_URL}/candles`, {
+      params: { names, interval, from, to, maxPoints },
+      paramsSerializer: { indexes: null }
+    });
+    return response.data;
+  } catch (error) {
+    console.error('批量获取K线数据失败:', error);
+    throw error;
+  }
+};
+
+// 服务端计算的技术指标，indicators 形如 'sma:20,rsi:14,macd:12:26:9'，按列返回 { interval, t, values }；
+// despike 为异常值过滤阈值（百分比），指定时先过滤异常收盘价，过滤结果在 values['despike:<阈值>'] 中
+export const fetchIndicators = async (name, indicators, from, to, interval = '1d', despike) => {
+  try {
+    const response = await axios.get(`${API_BASE_URL}/${encodeURIComponent(name)}/indicators`, {
+      params: { indicators, interval, from, to, despike }
+    });
+    return response.data;
+  } catch (error) {
+    console.error('获取技术指标失败:', error);
+    throw error;
+  }
+};
+
+// 市场总览：各股票最新报价、开盘价以及涨跌家数、总成交量、波动率
+export const fetchMarketSnapshot = async (names) => {
+  try {
+    const response = await axios.get(`${MARKET_API_URL}/snapshot`, {
+      params: { names },
+      paramsSerializer: { indexes: null }
+    });
+    return response.data;
+  } catch (error) {
+    console.error('获取市场快照失败:', error);
+    throw error;
+  }
+};
+
+// 实时行情推送（SSE）：订阅 names 中的股票，每条新行情回调 onTick(row)，返回取消订阅的函数
+// 连接断开时 EventSource 会自动重连
+export const subscribeTicks = (names, onTick) => {
+  const params = new URLSearchParams();
+  names.forEach((name) => params.append('names', name));
+  const source = new EventSource(`${MARKET_API_URL}/stream?${params.toString()}`);
+  source.addEventListener('tick', (event) => {
+    try {
+      onTick(JSON.parse(event.data));
+    } catch (error) {
+      console.error('解析实时行情失败:', error);
+    }
+  });
+  source.onerror = () => {
+    console.warn('实时行情连接中断，正在重连');
+  };
+  return () => source.close();
+};
+
+// 跨股票分析（服务端计算），结果中缺失的数值为 "NaN"
+const fetchAnalytics = async (path, params) => {
+  try {
+    const response = await axios.get(`${ANALYTICS_API_URL}/${path}`, {
+      params,
+      paramsSerializer: { indexes: null }
+    });
+    return response.data;
+  } catch (error) {
+    console.error(`获取分析数据 ${path} 失败:`, error);
+    throw error;
+  }
+};
+
+// 行业等权指数与滚动波动率 { t, window, sectors: [{ name, members, index, volatility, changePercent, latestVolatility }] }
+export const fetchSectorPerformance = (from, to, window = 20) => fetchAnalytics('sectors', { from, to, window });
+
+// 行业成分 { 行业: [股票名称] }，不读取行情，只需要行业划分时使用
+export const fetchSectorMembers = () => fetchAnalytics('sectors/members', {});